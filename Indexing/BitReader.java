@@ -0,0 +1,129 @@
+import java.nio.ByteBuffer;
+
+/**
+ * This class reads a stream of bits written by BitWriter. The bits are read
+ * from a ByteBuffer starting at its position, so the stream can come from a
+ * byte array as well as from a mapped file, and the buffer itself is never
+ * modified.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class BitReader {
+
+	/**
+	 * This is the buffer containing the bit stream.
+	 */
+	private final ByteBuffer buffer;
+
+	/**
+	 * These variables hold the index of the next byte to be loaded and the
+	 * index after the last byte of the stream.
+	 */
+	private int position, limit;
+
+	/**
+	 * These variables hold the bits which are loaded but not read yet and
+	 * their count. Only the lowest bitCount bits of loadedBits are valid.
+	 */
+	private long loadedBits;
+	private int bitCount;
+
+	/**
+	 * This constructor creates a reader over the remaining bytes of the
+	 * buffer.
+	 *
+	 * @param buffer
+	 */
+	public BitReader(ByteBuffer buffer) {
+		this.buffer = buffer;
+		this.position = buffer.position();
+		this.limit = buffer.limit();
+	}
+
+	/**
+	 * This constructor creates a reader over a byte array.
+	 *
+	 * @param bytes
+	 */
+	public BitReader(byte[] bytes) {
+		this(ByteBuffer.wrap(bytes));
+	}
+
+	/**
+	 * This method loads as many whole bytes as fit into loadedBits.
+	 */
+	private void fill() {
+		while (bitCount <= 56 && position < limit) {
+			loadedBits = (loadedBits << 8) | (buffer.get(position++) & 0xFF);
+			bitCount += 8;
+		}
+	}
+
+	/**
+	 * This method reads a single bit.
+	 *
+	 * @return
+	 */
+	public int readBit() {
+		return readBits(1);
+	}
+
+	/**
+	 * This method reads count bits, most significant bit first.
+	 *
+	 * @param count
+	 *            number of bits between 0 and 32.
+	 * @return
+	 */
+	public int readBits(int count) {
+		if (count == 0)
+			return 0;
+		if (bitCount < count) {
+			fill();
+			if (bitCount < count)
+				throw new IllegalStateException("Unexpected end of bit stream");
+		}
+		bitCount -= count;
+		return (int) ((loadedBits >>> bitCount) & (-1L >>> (64 - count)));
+	}
+
+	/**
+	 * This method reads a number written in unary, i.e. counts the 1 bits
+	 * before the next 0 bit.
+	 *
+	 * @return
+	 */
+	public int readUnary() {
+		int ones = 0;
+		while (true) {
+			if (bitCount == 0) {
+				fill();
+				if (bitCount == 0)
+					throw new IllegalStateException(
+							"Unexpected end of bit stream");
+			}
+			// align the unread bits to the top of the long.
+			long unreadBits = loadedBits << (64 - bitCount);
+			int leadingOnes = Math.min(Long.numberOfLeadingZeros(~unreadBits),
+					bitCount);
+			if (leadingOnes < bitCount) {
+				bitCount -= leadingOnes + 1;
+				return ones + leadingOnes;
+			}
+			ones += bitCount;
+			bitCount = 0;
+		}
+	}
+
+	/**
+	 * This method skips the rest of the current byte and returns the offset in
+	 * the buffer of the first byte which is not read yet.
+	 *
+	 * @return
+	 */
+	public int alignToByte() {
+		bitCount -= bitCount % 8;
+		return position - bitCount / 8;
+	}
+}
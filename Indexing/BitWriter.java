@@ -0,0 +1,119 @@
+import java.util.Arrays;
+
+/**
+ * This class writes a stream of bits into a growable byte array. Bits are
+ * written from the most significant bit of every byte to the least significant
+ * one, and the last byte is padded with zeros.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class BitWriter {
+
+	/**
+	 * This is the initial size of the byte buffer.
+	 */
+	private static final int INITIAL_CAPACITY = 64;
+
+	/**
+	 * This buffer stores the bytes which are completely written.
+	 */
+	private byte[] buffer;
+
+	/**
+	 * This variable holds the number of bytes completely written.
+	 */
+	private int length;
+
+	/**
+	 * These variables hold the bits which do not fill a byte yet and their
+	 * count. Only the lowest bitCount bits of pendingBits are valid.
+	 */
+	private long pendingBits;
+	private int bitCount;
+
+	/**
+	 * The constructor initializes an empty bit stream.
+	 */
+	public BitWriter() {
+		this.buffer = new byte[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * This method writes a single bit.
+	 *
+	 * @param bit
+	 *            0 or 1.
+	 */
+	public void writeBit(int bit) {
+		writeBits(bit, 1);
+	}
+
+	/**
+	 * This method writes the lowest count bits of the value, most significant
+	 * bit first.
+	 *
+	 * @param value
+	 * @param count
+	 *            number of bits between 0 and 32.
+	 */
+	public void writeBits(int value, int count) {
+		if (count == 0)
+			return;
+		pendingBits = (pendingBits << count) | (value & (-1L >>> (64 - count)));
+		bitCount += count;
+		while (bitCount >= 8) {
+			bitCount -= 8;
+			if (length == buffer.length)
+				buffer = Arrays.copyOf(buffer, length << 1);
+			buffer[length++] = (byte) (pendingBits >>> bitCount);
+		}
+	}
+
+	/**
+	 * This method writes a number in unary, i.e. as many 1 bits followed by a
+	 * single 0 bit.
+	 *
+	 * @param ones
+	 */
+	public void writeUnary(int ones) {
+		while (ones >= 32) {
+			writeBits(-1, 32);
+			ones -= 32;
+		}
+		writeBits(-1, ones);
+		writeBits(0, 1);
+	}
+
+	/**
+	 * This method returns the number of bits written so far.
+	 *
+	 * @return
+	 */
+	public long bitLength() {
+		return (long) length * 8 + bitCount;
+	}
+
+	/**
+	 * This method returns the bits written so far as a byte array. The last
+	 * byte is padded with zeros.
+	 *
+	 * @return
+	 */
+	public byte[] toByteArray() {
+		byte[] bytes = Arrays.copyOf(buffer, bitCount == 0 ? length
+				: length + 1);
+		if (bitCount != 0)
+			bytes[length] = (byte) (pendingBits << (8 - bitCount));
+		return bytes;
+	}
+
+	/**
+	 * This method clears the stream so that the writer can be reused.
+	 */
+	public void reset() {
+		length = 0;
+		pendingBits = 0;
+		bitCount = 0;
+	}
+}
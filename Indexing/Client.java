@@ -1,8 +1,5 @@
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -36,6 +33,63 @@ public class Client {
 	 */
 	private final static String annotators = "tokenize, ssplit, pos, lemma";
 
+	/**
+	 * This constant holds the number of worker threads used to ingest the
+	 * documents. It is read from the "index.workers" system property and
+	 * defaults to a single thread.
+	 */
+	private final static int numberOfWorkers = Integer.getInteger(
+			"index.workers", 1);
+
+	/**
+	 * This constant holds the name of the codec used to compress the posting
+	 * lists. It is read from the "index.codec" system property and defaults
+	 * to choosing the codec by the length of each posting list.
+	 */
+	private final static String postingCodec = System.getProperty(
+			"index.codec", PostingCodecs.AUTO);
+
+	/**
+	 * This constant holds the memory budget of the indexer in bytes. It is
+	 * read in megabytes from the "index.memory" system property. When it is
+	 * set the index is built by SpimiIndexer, which writes the postings to
+	 * temporary runs on disk whenever the budget is reached, otherwise the
+	 * whole index is built in memory.
+	 */
+	private final static long memoryBudget = Long.getLong("index.memory", 0) * 1024 * 1024;
+
+	/**
+	 * This constant holds the largest number of runs SpimiIndexer merges at
+	 * once. It is read from the "index.merge.fanin" system property.
+	 */
+	private final static int mergeFanIn = Integer.getInteger(
+			"index.merge.fanin", SpimiIndexer.DEFAULT_MERGE_FAN_IN);
+
+	/**
+	 * This constant holds the lemmatization mode. It is read from the
+	 * "index.lemmatizer" system property: "corenlp", the default, runs the
+	 * CoreNLP pipeline on every document, "fast" uses FastLemmatizer.
+	 */
+	private final static String lemmatizerMode = System.getProperty(
+			"index.lemmatizer", "corenlp");
+
+	/**
+	 * This constant holds the path of the lexicon file, read from the
+	 * "index.lexicon" system property. If it is set, the lexicon is loaded from
+	 * the file if it exists and saved to it with the forms harvested by the
+	 * run.
+	 */
+	private final static String lexiconFile = System
+			.getProperty("index.lexicon");
+
+	/**
+	 * This constant holds the interval, in documents, at which the fast
+	 * lemmatizer is compared with the CoreNLP pipeline. It is read from the
+	 * "index.lemmatizer.sample" system property, 0 turns the comparison off.
+	 */
+	private final static int lemmatizerSampleInterval = Integer.getInteger(
+			"index.lemmatizer.sample", 10);
+
 	/**
 	 * This instance of Index represent the version 1.
 	 */
@@ -52,18 +106,24 @@ public class Client {
 	private static Stemmer stemmer;
 
 	/**
-	 * This instance of Lemmatizer is needed for creating lemmas.
+	 * This instance of TextLemmatizer is needed for creating lemmas. It is
+	 * either a pool holding one CoreNLP lemmatizer per worker, so that the
+	 * workers lemmatize their documents concurrently, or a FastLemmatizer
+	 * backed by such a pool.
+	 */
+	private static TextLemmatizer lemmatizer;
+
+	/**
+	 * This lexicon harvests the lemmas created by the CoreNLP pipeline, may be
+	 * null.
 	 */
-	private static Lemmatizer lemmatizer;
+	private static Lexicon lexicon;
 
 	/**
 	 * Static block initializing all the member variables.
 	 */
 	static {
-		indexVersion1 = new Index();
-		indexVersion2 = new Index();
 		stemmer = new Stemmer();
-		lemmatizer = new Lemmatizer(annotators);
 	}
 
 	/**
@@ -82,129 +142,168 @@ public class Client {
 		}
 		directory = args[0];
 		outputFilePath = args[1];
+		PostingCodecs.checkName(postingCodec);
+		lemmatizer = createLemmatizer();
 		// Get list of all files.
 		File[] listOfFiles = Util.getAllFiles(directory);
 		// Get all the stop words in the sorted order.
-		TreeMap<String, String> stopWords = Util
+		final TreeMap<String, String> stopWords = Util
 				.getStopWordsFromFile(stopWordFile);
 		int numberOfFiles = listOfFiles.length;
 		// 2D array to store the required information about each doc.
-		Integer[][] docInfo = new Integer[numberOfFiles + 1][2];
-		double timeForIndexVersion1 = 0.0d, timeForIndexVersion2 = 0.0d;
+		final Integer[][] docInfo = new Integer[numberOfFiles + 1][2];
+		double timeForIndices = 0.0d;
 		long startTime, endTime;
+		ParallelIndexer indexer = new ParallelIndexer(numberOfWorkers);
 		if (numberOfFiles != 0) {
-
-			// Starting creating Index version 1.
+			DocumentAnalyzer[] analyzers = new DocumentAnalyzer[2];
+			analyzers[0] = new DocumentAnalyzer() {
+				public Map<String, Integer> analyze(int docId, String text) {
+					// For version 1:
+					// do lemmatization
+					Map<String, Integer> lemmasFromFile = lemmatizer
+							.lemmatizeText(text);
+					// remove stop words.
+					return Util.removeStopWords(lemmasFromFile, stopWords);
+				}
+			};
+			analyzers[1] = new DocumentAnalyzer() {
+				public Map<String, Integer> analyze(int docId, String text) {
+					// For version 2:
+					// generate tokens from the text
+					Map<String, Integer> tokensFromFile = Util
+							.getTokensFromText(text);
+					// do stemming
+					Map<String, Integer> stemmedTokens = Util
+							.getStemmedTokens(tokensFromFile);
+					// remove stop words
+					Map<String, Integer> stemmedTokensWoStopWords = Util
+							.removeStopWords(stemmedTokens, stopWords);
+					// update the information about current document.
+					// Every document has its own row, so workers never
+					// write to the same one.
+					Util.updateDocInfo(docInfo, docId, stemmedTokens,
+							stemmedTokensWoStopWords);
+					return stemmedTokensWoStopWords;
+				}
+			};
+
+			// Starting creating both versions of the index in a single pass
+			// over the files.
 			startTime = System.currentTimeMillis();
-			for (File file : listOfFiles) {
-				// Get the doc id.
-				int docId = Integer.parseInt(file.getName().substring(9));
-				// For version 1:
-				// do lemmatization
-				Map<String, Integer> lemmasFromFile = lemmatizer
-						.lemmatize(file);
-				// remove stop words,
-				Map<String, Integer> lemmasWoStopWords = Util.removeStopWords(
-						lemmasFromFile, stopWords);
-				// create index.
-				indexVersion1.creatIndex(docId, lemmasWoStopWords);
-			}
+			Index[] indices = createIndices(indexer, listOfFiles, analyzers,
+					new String[] { "Index_Version1", "Index_Version2" },
+					new Integer[][][] { null, docInfo });
 			endTime = System.currentTimeMillis();
+			indexVersion1 = indices[0];
+			indexVersion2 = indices[1];
 			// calculate total time taken
-			timeForIndexVersion1 = (endTime - startTime) / 1000.0d;
-
-			// indexVersion1.printIndex();
-			// write uncompressed index of version 1 to a binary file.
-			indexVersion1.writeIndexUncompressed(outputFilePath,
-					"Index_Version1.uncompress");
-			// compress index
-			indexVersion1.compressIndex();
-			// write compressed index of version 1 to a binary file.
-			indexVersion1.writeIndexCompressed(outputFilePath,
-					"Index_Version1.compress");
-
-			// Starting creating Index version 2.
-			startTime = System.currentTimeMillis();
-			for (File file : listOfFiles) {
-				int docId = Integer.parseInt(file.getName().substring(9));
-				// For version 2:
-				// generate tokens from the file
-				Map<String, Integer> tokensFromFile = Util
-						.getTokensFromFile(file);
-				// do stemming
-				Map<String, Integer> stemmedTokens = Util
-						.getStemmedTokens(tokensFromFile);
-				// remove stop words
-				Map<String, Integer> stemmedTokensWoStopWords = Util
-						.removeStopWords(stemmedTokens, stopWords);
-				// update the information about current document.
-				Util.updateDocInfo(docInfo, docId, stemmedTokens,
-						stemmedTokensWoStopWords);
-				// System.out.println("DocId: " + docId + " Max Freq: "
-				// + docInfo[docId][0].toString() + " Doc length: "
-				// + docInfo[docId][1].toString());
-				// create index
-				indexVersion2.creatIndex(docId, stemmedTokensWoStopWords);
-
-			}
-			endTime = System.currentTimeMillis();
-			// calculate total time taken
-			timeForIndexVersion2 = (endTime - startTime) / 1000.0d;
-			// write documents information to a binary file
-			writeDocInfo(docInfo, outputFilePath, "docs.info");
-			// write uncompressed index of version 2 to a binary file.
-
-			// indexVersion2.printIndex();
-			indexVersion2.writeIndexUncompressed(outputFilePath,
-					"Index_Version2.uncompress");
-			// compress index
-			indexVersion2.compressIndex();
-			// write compressed index of version 2 to a binary file.
-			indexVersion2.writeIndexCompressed(outputFilePath,
-					"Index_Version2.compress");
+			timeForIndices = (endTime - startTime) / 1000.0d;
 
 			// display the required information.
-			displayOutput(timeForIndexVersion1, timeForIndexVersion2);
+			displayOutput(timeForIndices);
+			if (lemmatizer instanceof FastLemmatizer)
+				System.out.println("\n"
+						+ ((FastLemmatizer) lemmatizer).getReport());
+			System.out.println(StemCache.getShared().getReport());
+			if (lexiconFile != null)
+				lexicon.save(new File(lexiconFile));
 		} else {
 			System.err.println("Empty folder");
 		}
 	}
 
 	/**
-	 * This method writes the required information about the documents to a
-	 * given binary file present at a given path.
+	 * This method creates the lemmatizer selected by the lemmatization mode,
+	 * loading the lexicon file if there is one.
 	 * 
-	 * @param docInfo
-	 * @param filePath
-	 * @param fileName
-	 * @throws FileNotFoundException
+	 * @return
 	 * @throws IOException
 	 */
-	private static void writeDocInfo(Integer[][] docInfo, String filePath,
-			String fileName) throws FileNotFoundException, IOException {
-		File docInfoFile = new File(filePath + fileName);
-		ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(
-				docInfoFile));
-		oos.writeObject(docInfo);
-		oos.flush();
-		oos.close();
+	private static TextLemmatizer createLemmatizer() throws IOException {
+		boolean fast = lemmatizerMode.equalsIgnoreCase("fast");
+		if (!fast && !lemmatizerMode.equalsIgnoreCase("corenlp"))
+			throw new IllegalArgumentException("Unknown lemmatizer: "
+					+ lemmatizerMode);
+		if (fast || lexiconFile != null) {
+			lexicon = new Lexicon();
+			if (lexiconFile != null && new File(lexiconFile).exists())
+				lexicon.load(new File(lexiconFile));
+		}
+		LemmatizerPool pool = new LemmatizerPool(annotators, numberOfWorkers,
+				lexicon);
+		if (fast)
+			return new FastLemmatizer(lexicon, pool, lemmatizerSampleInterval);
+		return pool;
+	}
+
+	/**
+	 * This method builds one index per analyzer out of all the files, in a
+	 * single pass over the files, and writes the uncompressed and compressed
+	 * files of every index, named after the given prefixes, to the output
+	 * directory. The indices are built in memory by the given indexer, or by
+	 * SpimiIndexer if a memory budget is set. The time taken includes writing
+	 * the files, which SpimiIndexer does while merging its runs.
+	 * 
+	 * @param indexer
+	 * @param listOfFiles
+	 * @param analyzers
+	 * @param indexNames
+	 * @param docInfos
+	 *            document information written along with every index, may be
+	 *            null.
+	 * @return
+	 * @throws IOException
+	 */
+	private static Index[] createIndices(ParallelIndexer indexer,
+			File[] listOfFiles, DocumentAnalyzer[] analyzers,
+			String[] indexNames, Integer[][][] docInfos) throws IOException {
+		if (memoryBudget > 0) {
+			File[] uncompressedFiles = new File[indexNames.length];
+			File[] compressedFiles = new File[indexNames.length];
+			for (int i = 0; i < indexNames.length; i++) {
+				uncompressedFiles[i] = new File(outputFilePath + indexNames[i]
+						+ ".uncompress");
+				compressedFiles[i] = new File(outputFilePath + indexNames[i]
+						+ ".compress");
+			}
+			SpimiIndexer spimiIndexer = new SpimiIndexer(numberOfWorkers,
+					memoryBudget, mergeFanIn);
+			return spimiIndexer.buildIndices(listOfFiles, analyzers,
+					uncompressedFiles, compressedFiles, postingCodec, docInfos);
+		}
+		Index[] indices = indexer.buildIndices(listOfFiles, analyzers);
+		for (int i = 0; i < indices.length; i++) {
+			// documents information is written along with the index.
+			indices[i].setDocInfo(docInfos[i]);
+			// indices[i].printIndex();
+			// write uncompressed index to a binary file.
+			indices[i].writeIndexUncompressed(outputFilePath, indexNames[i]
+					+ ".uncompress");
+			// compress index
+			indices[i].compressIndex(postingCodec);
+			// write compressed index to a binary file.
+			indices[i].writeIndexCompressed(outputFilePath, indexNames[i]
+					+ ".compress");
+		}
+		return indices;
 	}
 
 	/**
 	 * This method displays all the required information on the console.
 	 * 
-	 * @param timeForIndexVersion1
-	 * @param timeForIndexVersion2
+	 * @param timeForIndices
 	 * @throws IOException
 	 */
-	private static void displayOutput(double timeForIndexVersion1,
-			double timeForIndexVersion2) throws IOException {
+	private static void displayOutput(double timeForIndices)
+			throws IOException {
+		System.out.printf(
+				"\nElapsed time to create Index Version 1 and 2 : %.2f secs\n",
+				timeForIndices);
+
 		System.out
 				.println("\n********************Index Version 1 Information********************\n");
 
-		System.out.printf(
-				"Elapsed time to create Index Version 1 : %.2f secs\n",
-				timeForIndexVersion1);
 		System.out.println("Size of Index Version 1 Uncompressed : "
 				+ indexVersion1.getSize("uncompressed") / 1024 + " KB");
 		System.out.println("Size of Index Version 1 Compressed : "
@@ -215,9 +314,6 @@ public class Client {
 		System.out
 				.println("\n********************Index Version 2 Information********************\n");
 
-		System.out.printf(
-				"Elapsed time to create Index Version 2 : %.2f secs\n",
-				timeForIndexVersion2);
 		System.out.println("Size of Index Version 2 Uncompressed : "
 				+ indexVersion2.getSize("uncompressed") / 1024 + " KB");
 		System.out.println("Size of Index Version 2 Compressed : "
@@ -270,7 +366,7 @@ public class Client {
 		System.out.format("%10s%20s%20s%25s\n", "Term", "Document Freq",
 				"Term Freq", "Inverted List length");
 
-		stemmer.add("Reynolds".toLowerCase().toCharArray(), "Reynolds".length());
+		stemmer.add("Reynolds".toLowerCase(), 0, "Reynolds".length());
 		stemmer.stem();
 		String s1 = stemmer.toString();
 
@@ -278,7 +374,7 @@ public class Client {
 				indexVersion2.documentFreq(s1), indexVersion2.termFreq(s1),
 				indexVersion2.getPostingSize(s1));
 
-		stemmer.add("NASA".toLowerCase().toCharArray(), "NASA".length());
+		stemmer.add("NASA".toLowerCase(), 0, "NASA".length());
 		stemmer.stem();
 		String s2 = stemmer.toString();
 
@@ -286,7 +382,7 @@ public class Client {
 				indexVersion2.documentFreq(s2), indexVersion2.termFreq(s2),
 				indexVersion2.getPostingSize(s2));
 
-		stemmer.add("Prandtl".toLowerCase().toCharArray(), "Prandtl".length());
+		stemmer.add("Prandtl".toLowerCase(), 0, "Prandtl".length());
 		stemmer.stem();
 		String s3 = stemmer.toString();
 
@@ -294,7 +390,7 @@ public class Client {
 				indexVersion2.documentFreq(s3), indexVersion2.termFreq(s3),
 				indexVersion2.getPostingSize(s3));
 
-		stemmer.add("flow".toLowerCase().toCharArray(), "flow".length());
+		stemmer.add("flow".toLowerCase(), 0, "flow".length());
 		stemmer.stem();
 		String s4 = stemmer.toString();
 
@@ -302,7 +398,7 @@ public class Client {
 				indexVersion2.documentFreq(s4), indexVersion2.termFreq(s4),
 				indexVersion2.getPostingSize(s4));
 
-		stemmer.add("pressure".toLowerCase().toCharArray(), "pressure".length());
+		stemmer.add("pressure".toLowerCase(), 0, "pressure".length());
 		stemmer.stem();
 		String s5 = stemmer.toString();
 
@@ -310,7 +406,7 @@ public class Client {
 				indexVersion2.documentFreq(s5), indexVersion2.termFreq(s5),
 				indexVersion2.getPostingSize(s5));
 
-		stemmer.add("boundary".toLowerCase().toCharArray(), "boundary".length());
+		stemmer.add("boundary".toLowerCase(), 0, "boundary".length());
 		stemmer.stem();
 		String s6 = stemmer.toString();
 
@@ -318,7 +414,7 @@ public class Client {
 				indexVersion2.documentFreq(s6), indexVersion2.termFreq(s6),
 				indexVersion2.getPostingSize(s6));
 
-		stemmer.add("shock".toLowerCase().toCharArray(), "shock".length());
+		stemmer.add("shock".toLowerCase(), 0, "shock".length());
 		stemmer.stem();
 		String s7 = stemmer.toString();
 
@@ -0,0 +1,184 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This program measures the size and the encoding and decoding throughput of
+ * the posting codecs. If an output directory of the indexer is given, it first checks
+ * that the compressed index files decode to exactly the uncompressed ones and
+ * then measures on their posting lists. Otherwise synthetic posting lists are
+ * used.
+ *
+ * Usage: CodecBenchmark [index directory]
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class CodecBenchmark {
+
+	/**
+	 * These constants define the synthetic collection.
+	 */
+	private static final int SYNTHETIC_DOCUMENTS = 1000000;
+	private static final int SYNTHETIC_TERMS = 20000;
+
+	/**
+	 * This is the number of times every measurement is repeated.
+	 */
+	private static final int ROUNDS = 5;
+
+	/**
+	 * These are the codecs which are measured.
+	 */
+	private static final String[] CODEC_NAMES = { PostingCodecs.ELIAS,
+			"gamma", "delta", "vbyte", "groupvarint", "pfordelta", "simple8b",
+			PostingCodecs.AUTO };
+
+	public static void main(String[] args) throws IOException {
+		List<PostingList> postingLists = new ArrayList<PostingList>();
+		if (args.length == 1) {
+			for (String version : new String[] { "Index_Version1",
+					"Index_Version2" }) {
+				verifyRoundTrip(args[0], version, postingLists);
+			}
+		} else {
+			createSyntheticPostingLists(postingLists);
+		}
+		long postings = 0;
+		for (PostingList postingList : postingLists) {
+			postings += postingList.size();
+		}
+		System.out.println("Posting lists : " + postingLists.size()
+				+ ", postings : " + postings);
+
+		System.out.printf("%-12s%15s%24s%24s\n", "Codec", "Bits/posting",
+				"Encode (M postings/s)", "Decode (M postings/s)");
+		for (String codecName : CODEC_NAMES) {
+			benchmark(codecName, postingLists, postings);
+		}
+	}
+
+	/**
+	 * This method encodes and decodes all the posting lists with the selected
+	 * codecs, checks that they round-trip and prints the best throughput of
+	 * all rounds.
+	 *
+	 * @param codecName
+	 * @param postingLists
+	 * @param postings
+	 *            total number of postings.
+	 */
+	private static void benchmark(String codecName,
+			List<PostingList> postingLists, long postings) {
+		byte[][] encoded = new byte[postingLists.size()][];
+		PostingList[] decoded = new PostingList[postingLists.size()];
+		long bestEncodeTime = Long.MAX_VALUE, bestDecodeTime = Long.MAX_VALUE;
+		long bytes = 0;
+		for (int round = 0; round < ROUNDS; round++) {
+			long startTime = System.nanoTime();
+			bytes = 0;
+			for (int i = 0; i < encoded.length; i++) {
+				encoded[i] = PostingCodecs.encodePostingList(
+						postingLists.get(i), codecName);
+				bytes += encoded[i].length;
+			}
+			bestEncodeTime = Math.min(bestEncodeTime, System.nanoTime()
+					- startTime);
+
+			startTime = System.nanoTime();
+			for (int i = 0; i < encoded.length; i++) {
+				decoded[i] = PostingCodecs.decodePostingList(encoded[i]);
+			}
+			bestDecodeTime = Math.min(bestDecodeTime, System.nanoTime()
+					- startTime);
+		}
+		for (int i = 0; i < decoded.length; i++) {
+			if (!equal(postingLists.get(i), decoded[i]))
+				throw new IllegalStateException(codecName
+						+ ": posting list does not round-trip");
+		}
+		System.out.printf("%-12s%15.2f%24.1f%24.1f\n", codecName, bytes
+				* 8.0d / postings, postings * 1000.0d / bestEncodeTime,
+				postings * 1000.0d / bestDecodeTime);
+	}
+
+	/**
+	 * This method checks whether two posting lists hold the same postings.
+	 *
+	 * @param postingList
+	 * @param other
+	 * @return
+	 */
+	private static boolean equal(PostingList postingList, PostingList other) {
+		if (postingList.size() != other.size())
+			return false;
+		for (int i = 0; i < postingList.size(); i++) {
+			if (postingList.docId(i) != other.docId(i)
+					|| postingList.termFreq(i) != other.termFreq(i))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * This method reads the uncompressed and the compressed index files of one
+	 * version, checks that every compressed posting list decodes to the
+	 * uncompressed one and adds the posting lists to the given list.
+	 *
+	 * @param directory
+	 * @param version
+	 * @param postingLists
+	 * @throws IOException
+	 */
+	private static void verifyRoundTrip(String directory, String version,
+			List<PostingList> postingLists) throws IOException {
+		IndexReader index = IndexReader.open(new File(directory, version
+				+ ".uncompress"));
+		IndexReader indexCompressed = IndexReader.open(new File(directory,
+				version + ".compress"));
+		if (index.size() != indexCompressed.size())
+			throw new IllegalStateException(version
+					+ ": compressed index has different terms");
+		for (int termNumber = 0; termNumber < index.size(); termNumber++) {
+			String term = index.getTerm(termNumber);
+			if (!term.equals(indexCompressed.getTerm(termNumber)))
+				throw new IllegalStateException(version
+						+ ": compressed index has different terms");
+			PostingList postingList = index.getPostingList(termNumber);
+			if (!equal(postingList,
+					indexCompressed.getPostingList(termNumber)))
+				throw new IllegalStateException(version
+						+ ": posting list of \"" + term
+						+ "\" does not round-trip");
+			postingLists.add(postingList);
+		}
+		System.out.println(version + " : " + index.size()
+				+ " posting lists round-trip losslessly");
+	}
+
+	/**
+	 * This method creates posting lists with Zipf distributed document
+	 * frequencies and term frequencies.
+	 *
+	 * @param postingLists
+	 */
+	private static void createSyntheticPostingLists(
+			List<PostingList> postingLists) {
+		Random random = new Random(42);
+		for (int rank = 1; rank <= SYNTHETIC_TERMS; rank++) {
+			int documentFreq = Math.max(1, SYNTHETIC_DOCUMENTS / 10 / rank);
+			PostingList postingList = new PostingList();
+			int averageGap = SYNTHETIC_DOCUMENTS / documentFreq;
+			int docId = 0;
+			for (int i = 0; i < documentFreq; i++) {
+				docId += 1 + random.nextInt(2 * averageGap - 1);
+				int termFreq = 1 + (int) (-Math.log(1 - random.nextDouble()) * 2);
+				postingList.add(docId, termFreq);
+			}
+			postingList.freeze();
+			postingLists.add(postingList);
+		}
+	}
+}
@@ -0,0 +1,35 @@
+import java.nio.ByteBuffer;
+
+/**
+ * This codec writes every value as an Elias delta code. The sequence is padded
+ * to a whole number of bytes.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class DeltaCodec implements PostingCodec {
+
+	public int getId() {
+		return 2;
+	}
+
+	public String getName() {
+		return "delta";
+	}
+
+	public void encode(int[] values, int length, ByteWriter out) {
+		BitWriter bits = new BitWriter();
+		for (int i = 0; i < length; i++) {
+			EliasCodec.writeDelta(bits, values[i]);
+		}
+		out.writeBytes(bits.toByteArray());
+	}
+
+	public void decode(ByteBuffer in, int[] values, int length) {
+		BitReader bits = new BitReader(in);
+		for (int i = 0; i < length; i++) {
+			values[i] = EliasCodec.readDelta(bits);
+		}
+		in.position(bits.alignToByte());
+	}
+}
@@ -0,0 +1,28 @@
+import java.util.Map;
+
+/**
+ * This interface represents one analysis chain of the indexer. It turns the
+ * text of a document into the terms which are to be inserted into the index
+ * along with their frequency in the document. Every document is read and
+ * parsed only once, and its text is handed to all the analysis chains.
+ *
+ * Implementations are called from several worker threads at the same time
+ * when documents are ingested in parallel, so they must not keep any per
+ * document state in shared member variables.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public interface DocumentAnalyzer {
+
+	/**
+	 * This method analyzes a single document and returns the terms present in
+	 * it along with their frequency in a map.
+	 *
+	 * @param docId
+	 * @param text
+	 *            text of the document without SGML tags.
+	 * @return
+	 */
+	public Map<String, Integer> analyze(int docId, String text);
+}
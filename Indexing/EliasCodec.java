@@ -0,0 +1,74 @@
+/**
+ * This class implements the Elias gamma and delta codes for positive integers.
+ *
+ * A gamma code writes the number of bits after the leading 1 bit in unary,
+ * followed by those bits. A delta code writes that length plus one as gamma
+ * code instead, which is shorter for large numbers. Both codes work for any
+ * positive int.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class EliasCodec {
+
+	/**
+	 * This method returns the position of the highest 1 bit of a positive
+	 * number, i.e. floor(log2(value)).
+	 *
+	 * @param value
+	 * @return
+	 */
+	private static int highestBit(int value) {
+		if (value < 1)
+			throw new IllegalArgumentException(
+					"Elias codes are defined for positive numbers only: "
+							+ value);
+		return 31 - Integer.numberOfLeadingZeros(value);
+	}
+
+	/**
+	 * This method writes the gamma code of a positive number.
+	 *
+	 * @param out
+	 * @param value
+	 */
+	public static void writeGamma(BitWriter out, int value) {
+		int highestBit = highestBit(value);
+		out.writeUnary(highestBit);
+		out.writeBits(value, highestBit);
+	}
+
+	/**
+	 * This method writes the delta code of a positive number.
+	 *
+	 * @param out
+	 * @param value
+	 */
+	public static void writeDelta(BitWriter out, int value) {
+		int highestBit = highestBit(value);
+		writeGamma(out, highestBit + 1);
+		out.writeBits(value, highestBit);
+	}
+
+	/**
+	 * This method reads a gamma code.
+	 *
+	 * @param in
+	 * @return
+	 */
+	public static int readGamma(BitReader in) {
+		int highestBit = in.readUnary();
+		return (1 << highestBit) | in.readBits(highestBit);
+	}
+
+	/**
+	 * This method reads a delta code.
+	 *
+	 * @param in
+	 * @return
+	 */
+	public static int readDelta(BitReader in) {
+		int highestBit = readGamma(in) - 1;
+		return (1 << highestBit) | in.readBits(highestBit);
+	}
+}
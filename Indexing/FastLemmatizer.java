@@ -0,0 +1,282 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class lemmatizes text with a lexicon harvested from the CoreNLP
+ * pipeline instead of running the pipeline on every document. The text is cut
+ * into tokens by a simple tokenizer which splits off punctuation and clitics
+ * roughly the way the pipeline does, and every token is given the lemma of its most
+ * frequent part of speech in the lexicon. Only the forms which are not in the
+ * lexicon yet are sent to the pipeline, all together once per document, and
+ * the pipeline adds them to the lexicon.
+ *
+ * Every few documents the whole text is lemmatized by the pipeline as well,
+ * which harvests the lemmas in context, and the lemmas of both are compared to
+ * measure how often the fast path agrees with the pipeline.
+ *
+ * The lemmas depend on the content of the lexicon, so they may change as the
+ * lexicon grows.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class FastLemmatizer implements TextLemmatizer {
+
+	/**
+	 * This is the default value of the token count.
+	 */
+	private static final int DEFAULT_TOKEN_COUNT = 1;
+
+	/**
+	 * These are the characters which separate tokens wherever they occur.
+	 */
+	private static final String SEPARATORS = ",;()[]{}\"";
+
+	/**
+	 * These are the characters split off the start and the end of a token.
+	 */
+	private static final String PUNCTUATION = ".,;:!?()[]{}\"'`";
+
+	private Lexicon lexicon;
+
+	/**
+	 * This set holds the forms which the pipeline was given but did not
+	 * return as tokens of their own, so that they are not sent again. They
+	 * are their own lemma.
+	 */
+	private Set<String> unknownForms = Collections
+			.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+	/**
+	 * This is the CoreNLP pipeline used for the forms which are not in the
+	 * lexicon. It must add the lemmas it creates to the lexicon.
+	 */
+	private TextLemmatizer fallback;
+
+	/**
+	 * Every document whose number is a multiple of this interval is compared
+	 * with the pipeline, 0 turns the comparison off.
+	 */
+	private int sampleInterval;
+
+	private AtomicLong documents = new AtomicLong(), tokens = new AtomicLong(),
+			fallbackForms = new AtomicLong(), sampledLemmas = new AtomicLong(),
+			agreeingLemmas = new AtomicLong();
+
+	/**
+	 * The constructor initializes the lexicon and the pipeline.
+	 *
+	 * @param lexicon
+	 * @param fallback
+	 *            CoreNLP pipeline which adds the lemmas it creates to the
+	 *            lexicon.
+	 * @param sampleInterval
+	 */
+	public FastLemmatizer(Lexicon lexicon, TextLemmatizer fallback,
+			int sampleInterval) {
+		this.lexicon = lexicon;
+		this.fallback = fallback;
+		this.sampleInterval = sampleInterval;
+	}
+
+	/**
+	 * This method cuts a text into tokens. Words are split at separators,
+	 * punctuation is split off the start and the end of every word, and the
+	 * clitics "'s" and "n't" are split off its end, the way the CoreNLP
+	 * tokenizer does it.
+	 *
+	 * @param text
+	 * @return
+	 */
+	static List<String> tokenize(String text) {
+		List<String> tokens = new ArrayList<String>();
+		for (String chunk : text.split("\\s+")) {
+			int from = 0;
+			for (int i = 0; i <= chunk.length(); i++) {
+				if (i == chunk.length()
+						|| SEPARATORS.indexOf(chunk.charAt(i)) >= 0) {
+					addWord(tokens, chunk.substring(from, i));
+					if (i < chunk.length())
+						tokens.add(chunk.substring(i, i + 1));
+					from = i + 1;
+				}
+			}
+		}
+		return tokens;
+	}
+
+	/**
+	 * This method adds the tokens of a word without separators to the list.
+	 *
+	 * @param tokens
+	 * @param word
+	 */
+	private static void addWord(List<String> tokens, String word) {
+		int start = 0, end = word.length();
+		while (start < end
+				&& PUNCTUATION.indexOf(word.charAt(start)) >= 0) {
+			tokens.add(word.substring(start, start + 1));
+			start++;
+		}
+		List<String> trailing = new ArrayList<String>();
+		while (end > start && PUNCTUATION.indexOf(word.charAt(end - 1)) >= 0) {
+			// the final dot of an abbreviation like "i.e." is kept.
+			if (word.charAt(end - 1) == '.'
+					&& word.lastIndexOf('.', end - 2) >= start)
+				break;
+			trailing.add(0, word.substring(end - 1, end));
+			end--;
+		}
+		String clitic = null;
+		if (word.regionMatches(true, end - 2, "'s", 0, 2)
+				&& end - 2 > start) {
+			clitic = word.substring(end - 2, end);
+			end -= 2;
+		} else if (word.regionMatches(true, end - 3, "n't", 0, 3)
+				&& end - 3 > start) {
+			clitic = word.substring(end - 3, end);
+			end -= 3;
+		}
+		if (end > start)
+			tokens.add(word.substring(start, end));
+		if (clitic != null)
+			tokens.add(clitic);
+		tokens.addAll(trailing);
+	}
+
+	/**
+	 * This method returns the lemma of a form, sending it to the pipeline if
+	 * it is not in the lexicon. A form the pipeline cannot lemmatize on its
+	 * own is its own lemma.
+	 *
+	 * @param form
+	 * @return
+	 */
+	private String lemmaOf(String form) {
+		String lemma = lexicon.lemma(form);
+		if (lemma == null && !unknownForms.contains(form)) {
+			fallback.lemmatize(form);
+			fallbackForms.incrementAndGet();
+			lemma = lexicon.lemma(form);
+			if (lemma == null)
+				unknownForms.add(form);
+		}
+		return lemma == null ? form : lemma;
+	}
+
+	/**
+	 * This method adds a lemma to the map of lemmas of a document, if it is a
+	 * word like the ones the pipeline keeps.
+	 *
+	 * @param lemmas
+	 * @param lemma
+	 */
+	private static void addLemma(Map<String, Integer> lemmas, String lemma) {
+		lemma = lemma.toLowerCase();
+		if (lemma.matches("[a-zA-Z0-9]+")) {
+			if (lemmas.get(lemma) == null)
+				lemmas.put(lemma, DEFAULT_TOKEN_COUNT);
+			else
+				lemmas.put(lemma, lemmas.get(lemma) + 1);
+		}
+	}
+
+	public Map<String, Integer> lemmatizeText(String text) {
+		List<String> tokensInText = tokenize(text);
+		// send all the unseen forms of the document to the pipeline at once.
+		Set<String> unseenForms = new LinkedHashSet<String>();
+		for (String token : tokensInText) {
+			if (lexicon.lemma(token) == null && !unknownForms.contains(token))
+				unseenForms.add(token);
+		}
+		if (!unseenForms.isEmpty()) {
+			StringBuilder forms = new StringBuilder();
+			for (String form : unseenForms) {
+				forms.append(form).append(' ');
+			}
+			fallback.lemmatizeText(forms.toString());
+			fallbackForms.addAndGet(unseenForms.size());
+			for (String form : unseenForms) {
+				if (lexicon.lemma(form) == null)
+					unknownForms.add(form);
+			}
+		}
+
+		Map<String, Integer> lemmasInText = new HashMap<String, Integer>();
+		for (String token : tokensInText) {
+			String lemma = lexicon.lemma(token);
+			addLemma(lemmasInText, lemma == null ? token : lemma);
+		}
+		tokens.addAndGet(tokensInText.size());
+
+		if (sampleInterval > 0
+				&& documents.incrementAndGet() % sampleInterval == 0)
+			compare(lemmasInText, fallback.lemmatizeText(text));
+		return lemmasInText;
+	}
+
+	/**
+	 * This method counts how many of the lemmas created by the pipeline are
+	 * created by the fast path as well.
+	 *
+	 * @param fastLemmas
+	 * @param pipelineLemmas
+	 */
+	private void compare(Map<String, Integer> fastLemmas,
+			Map<String, Integer> pipelineLemmas) {
+		long sampled = 0, agreeing = 0;
+		for (Map.Entry<String, Integer> lemma : pipelineLemmas.entrySet()) {
+			Integer fastCount = fastLemmas.get(lemma.getKey());
+			sampled += lemma.getValue();
+			if (fastCount != null)
+				agreeing += Math.min(fastCount, lemma.getValue());
+		}
+		sampledLemmas.addAndGet(sampled);
+		agreeingLemmas.addAndGet(agreeing);
+	}
+
+	public String lemmatize(String string) {
+		List<String> tokensInString = tokenize(string);
+		if (tokensInString.isEmpty())
+			return "";
+		return lemmaOf(tokensInString.get(tokensInString.size() - 1))
+				.toLowerCase();
+	}
+
+	/**
+	 * This method returns the share of the lemmas created by the pipeline on
+	 * the sampled documents which the fast path created as well, or -1 if no
+	 * document has been sampled.
+	 *
+	 * @return
+	 */
+	public double getAgreementRate() {
+		if (sampledLemmas.get() == 0)
+			return -1;
+		return (double) agreeingLemmas.get() / sampledLemmas.get();
+	}
+
+	/**
+	 * This method returns a summary of the work of the fast path.
+	 *
+	 * @return
+	 */
+	public String getReport() {
+		StringBuilder report = new StringBuilder();
+		report.append(String.format(
+				"Fast lemmatizer : %d tokens, %d forms sent to CoreNLP, %d forms in lexicon",
+				tokens.get(), fallbackForms.get(), lexicon.size()));
+		if (sampledLemmas.get() > 0)
+			report.append(String.format(
+					"\nAgreement with CoreNLP : %.2f%% of %d lemmas",
+					100.0d * getAgreementRate(), sampledLemmas.get()));
+		return report.toString();
+	}
+}
@@ -1,8 +1,5 @@
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
-import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
@@ -17,30 +14,42 @@ import java.util.TreeMap;
 public class Index {
 
 	/**
-	 * This map stores uncompressed index. Map has term as key and sorted
-	 * posting list as value. A posting list contains docId and term frequency
-	 * pair as key value.
+	 * This map stores uncompressed index. Map has term as key and posting list
+	 * as value. A posting list contains docId and term frequency pairs which
+	 * are sorted by docId once the index is frozen.
 	 */
-	private Map<String, TreeMap<Integer, Integer>> index;
+	private Map<String, PostingList> index;
 
 	/**
-	 * This map stores compressed index. Map has term as key and sorted posting
-	 * list as value. A posting list contains docId and term frequency pair as
-	 * key value.
+	 * This map stores compressed index. Map has term as key and the posting
+	 * list encoded by PostingCodecs as value.
 	 */
-	private Map<String, LinkedHashMap<Short, Short>> indexCompressed;
+	private Map<String, byte[]> indexCompressed;
 
 	/**
 	 * These files stores the uncompressed and compressed index.
 	 */
 	private File indexUncompressedFile, indexCompressedFile;
 
+	/**
+	 * This 2D array stores the frequency of most frequent term and doc length
+	 * of each document. It is written along with the index, may be null.
+	 */
+	private Integer[][] docInfo;
+
+	/**
+	 * This reader holds the memory-mapped uncompressed index file when the
+	 * index has been written by SpimiIndexer, in which case the maps above
+	 * are empty.
+	 */
+	private IndexReader writtenIndex;
+
 	/**
 	 * The constructor initializes both the indices.
 	 */
 	public Index() {
-		this.index = new TreeMap<String, TreeMap<Integer, Integer>>();
-		this.indexCompressed = new TreeMap<String, LinkedHashMap<Short, Short>>();
+		this.index = new TreeMap<String, PostingList>();
+		this.indexCompressed = new TreeMap<String, byte[]>();
 	}
 
 	/**
@@ -53,15 +62,12 @@ public class Index {
 	 * @param termFreq
 	 */
 	private void insert(String term, int docId, int termFreq) {
-		TreeMap<Integer, Integer> oldPostingList = index.get(term);
-		if (oldPostingList != null) {
-			oldPostingList.put(docId, termFreq);
-			index.put(term, oldPostingList);
-		} else {
-			TreeMap<Integer, Integer> newPostingList = new TreeMap<Integer, Integer>();
-			newPostingList.put(docId, termFreq);
-			index.put(term, newPostingList);
+		PostingList postingList = index.get(term);
+		if (postingList == null) {
+			postingList = new PostingList();
+			index.put(term, postingList);
 		}
+		postingList.add(docId, termFreq);
 	}
 
 	/**
@@ -78,6 +84,35 @@ public class Index {
 		}
 	}
 
+	/**
+	 * This method merges a partial index into this index. Posting lists of the
+	 * same term are combined, and since they are sorted by docId when the index
+	 * is frozen the result does not depend on the order in which partial
+	 * indices are merged.
+	 * 
+	 * @param partialIndex
+	 */
+	public void merge(Index partialIndex) {
+		for (Map.Entry<String, PostingList> entry : partialIndex.index
+				.entrySet()) {
+			PostingList oldPostingList = index.get(entry.getKey());
+			if (oldPostingList != null)
+				oldPostingList.addAll(entry.getValue());
+			else
+				index.put(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * This method freezes every posting list of the index. It has to be called
+	 * once all the documents are inserted and before the index is used.
+	 */
+	public void freezeIndex() {
+		for (PostingList postingList : index.values()) {
+			postingList.freeze();
+		}
+	}
+
 	/**
 	 * This method gets the number of documents in which the term is present.
 	 * 
@@ -85,7 +120,13 @@ public class Index {
 	 * @return
 	 */
 	public int documentFreq(String term) {
-		TreeMap<Integer, Integer> postings = index.get(term);
+		if (this.writtenIndex != null) {
+			int termNumber = this.writtenIndex.findTerm(term);
+			if (termNumber >= 0)
+				return this.writtenIndex.getDocumentFreq(termNumber);
+			return 0;
+		}
+		PostingList postings = index.get(term);
 		if (postings != null)
 			return postings.size();
 		return 0;
@@ -98,30 +139,39 @@ public class Index {
 	 * @return
 	 */
 	public int termFreq(String term) {
-		TreeMap<Integer, Integer> postings = index.get(term);
-		int termFreq = 0;
-		for (Map.Entry<Integer, Integer> entry : postings.entrySet()) {
-			termFreq += entry.getValue();
+		if (this.writtenIndex != null) {
+			int termNumber = this.writtenIndex.findTerm(term);
+			if (termNumber >= 0)
+				return this.writtenIndex.getPostingList(termNumber)
+						.totalTermFreq();
+			return 0;
 		}
-		return termFreq;
+		PostingList postings = index.get(term);
+		if (postings != null)
+			return postings.totalTermFreq();
+		return 0;
 	}
 
 	/**
-	 * This method returns the size of the posting list in bytes.
+	 * This method returns the size of the posting list in bytes in the
+	 * uncompressed index file.
 	 * 
 	 * @param term
 	 * @return
-	 * @throws IOException
 	 */
-	public long getPostingSize(String term) throws IOException {
-		TreeMap<Integer, Integer> postings = index.get(term);
-		File temp = new File("TempPosting");
-		ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(
-				temp));
-		oos.writeObject(postings);
-		oos.flush();
-		oos.close();
-		return temp.length();
+	public long getPostingSize(String term) {
+		return (long) documentFreq(term) * IndexFormat.RAW_POSTING_SIZE;
+	}
+
+	/**
+	 * This method sets the document information which is written to the index
+	 * files.
+	 * 
+	 * @param docInfo
+	 *            2D array of maxF and docLen indexed by docId.
+	 */
+	public void setDocInfo(Integer[][] docInfo) {
+		this.docInfo = docInfo;
 	}
 
 	/**
@@ -130,6 +180,8 @@ public class Index {
 	 * @return
 	 */
 	public int size() {
+		if (this.writtenIndex != null)
+			return this.writtenIndex.size();
 		return index.size();
 	}
 
@@ -140,10 +192,11 @@ public class Index {
 	public void printIndex() {
 		Set<String> allLemmas = this.index.keySet();
 		for (String lemma : allLemmas) {
-			TreeMap<Integer, Integer> postingList = this.index.get(lemma);
+			PostingList postingList = this.index.get(lemma);
 			System.out.print(lemma + ": " + postingList.size());
-			for (Map.Entry<Integer, Integer> entry : postingList.entrySet()) {
-				System.out.print(" " + entry.getKey() + "-" + entry.getValue());
+			for (int i = 0; i < postingList.size(); i++) {
+				System.out.print(" " + postingList.docId(i) + "-"
+						+ postingList.termFreq(i));
 			}
 			System.out.println();
 		}
@@ -151,25 +204,35 @@ public class Index {
 
 	/**
 	 * This method initiate index compression process by calculating gaps in
-	 * each posting list and do delta encoding on docId gaps and gamma encoding
-	 * on termFreq and stores the new compressed index in a map.
+	 * each posting list and encoding docId gaps and termFreq with the codecs
+	 * selected by the given name, and stores the new compressed index in a map.
+	 * 
+	 * @param codecName
+	 *            name of a codec, "elias" for delta encoding on gaps and gamma
+	 *            encoding on termFreq, or "auto" to choose by list length.
 	 */
-	public void compressIndex() {
+	public void compressIndex(String codecName) {
 		Set<String> terms = this.index.keySet();
 		for (String term : terms) {
-			TreeMap<Integer, Integer> postingList = index.get(term);
-			LinkedHashMap<Short, Short> postingListWithGaps = new LinkedHashMap<Short, Short>();
-			int initialGap = 0;
-			for (Map.Entry<Integer, Integer> entry : postingList.entrySet()) {
-				int currentGap = entry.getKey() - initialGap;
-				postingListWithGaps.put(Util.deltaEncoding(currentGap),
-						Util.gammaEncoding(entry.getValue()));
-				initialGap = entry.getKey();
-			}
-			this.indexCompressed.put(term, postingListWithGaps);
+			this.indexCompressed.put(term,
+					PostingCodecs.encodePostingList(index.get(term), codecName));
 		}
 	}
 
+	/**
+	 * This method decodes the compressed posting list of a term. It returns
+	 * null if the term is not present in the compressed index.
+	 * 
+	 * @param term
+	 * @return
+	 */
+	public PostingList decompressPostingList(String term) {
+		byte[] postings = this.indexCompressed.get(term);
+		if (postings != null)
+			return PostingCodecs.decodePostingList(postings);
+		return null;
+	}
+
 	/**
 	 * This method writes the compressed index to a binary file by given name at
 	 * given path.
@@ -181,11 +244,13 @@ public class Index {
 	public void writeIndexCompressed(String filePath, String fileName)
 			throws IOException {
 		indexCompressedFile = new File(filePath + fileName);
-		ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(
-				indexCompressedFile));
-		oos.writeObject(this.indexCompressed);
-		oos.flush();
-		oos.close();
+		IndexWriter writer = new IndexWriter(indexCompressedFile, true);
+		writer.setDocInfo(this.docInfo);
+		for (Map.Entry<String, byte[]> entry : this.indexCompressed.entrySet()) {
+			writer.addEncodedPostingList(entry.getKey(),
+					index.get(entry.getKey()), entry.getValue());
+		}
+		writer.close();
 	}
 
 	/**
@@ -199,11 +264,28 @@ public class Index {
 	public void writeIndexUncompressed(String filePath, String fileName)
 			throws IOException {
 		indexUncompressedFile = new File(filePath + fileName);
-		ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(
-				indexUncompressedFile));
-		oos.writeObject(this.index);
-		oos.flush();
-		oos.close();
+		IndexWriter writer = new IndexWriter(indexUncompressedFile, false);
+		writer.setDocInfo(this.docInfo);
+		for (Map.Entry<String, PostingList> entry : this.index.entrySet()) {
+			writer.addPostingList(entry.getKey(), entry.getValue());
+		}
+		writer.close();
+	}
+
+	/**
+	 * This method makes the index refer to index files which have already been
+	 * written without holding the posting lists in memory. The uncompressed
+	 * file is memory-mapped to look up terms.
+	 * 
+	 * @param indexUncompressedFile
+	 * @param indexCompressedFile
+	 * @throws IOException
+	 */
+	public void setWrittenIndex(File indexUncompressedFile,
+			File indexCompressedFile) throws IOException {
+		this.indexUncompressedFile = indexUncompressedFile;
+		this.indexCompressedFile = indexCompressedFile;
+		this.writtenIndex = IndexReader.map(indexUncompressedFile);
 	}
 
 	/**
@@ -0,0 +1,479 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * This class writes an index file in the format described in IndexFormat. The
+ * posting lists are streamed to the file through a buffered channel as they
+ * are added, in any order of terms; only the dictionary is kept in memory
+ * until the file is closed. The postings of an uncompressed list can also be
+ * added one at a time between startPostingList and endPostingList, so that a
+ * list never needs to be held in memory: the docIds go through the buffer of
+ * the file, and the term frequencies and the blocks, which follow them in the
+ * file, through buffers of their own written at their offsets. The document
+ * information should be set before the posting lists are added, so that the
+ * bounds of the postings of every term and of its blocks include the smallest
+ * docLen and maxF of the documents.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class IndexWriter {
+
+	/**
+	 * This is the size of the write buffer.
+	 */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * This class holds the dictionary entry of a term until the file is
+	 * closed.
+	 */
+	private static class DictionaryEntry {
+		byte[] term;
+		int documentFreq;
+		long postingsOffset;
+		int postingsLength;
+		int maxTermFreq, minDocLen, minMaxF;
+		long blocksOffset;
+	}
+
+	/**
+	 * This comparator orders terms by their UTF-8 bytes, taken as unsigned.
+	 */
+	static final Comparator<byte[]> TERM_ORDER = new Comparator<byte[]>() {
+		public int compare(byte[] term1, byte[] term2) {
+			int length = Math.min(term1.length, term2.length);
+			for (int i = 0; i < length; i++) {
+				int difference = (term1[i] & 0xFF) - (term2[i] & 0xFF);
+				if (difference != 0)
+					return difference;
+			}
+			return term1.length - term2.length;
+		}
+	};
+
+	/**
+	 * This class buffers the writes to a region of the file which does not
+	 * start at the current position, and writes them at their offset.
+	 */
+	private class Region {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+		/**
+		 * This is the offset in the file of the first byte of the buffer.
+		 */
+		long position;
+
+		/**
+		 * This flag tells whether the buffer was written to the file since
+		 * the region was started.
+		 */
+		boolean flushed;
+
+		void start(long position) {
+			this.position = position;
+			this.flushed = false;
+			buffer.clear();
+		}
+
+		void putInt(int value) throws IOException {
+			if (buffer.remaining() < 4)
+				flush();
+			buffer.putInt(value);
+		}
+
+		void flush() throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				position += channel.write(buffer, position);
+			}
+			buffer.clear();
+			flushed = true;
+		}
+	}
+
+	private RandomAccessFile file;
+	private FileChannel channel;
+	private ByteBuffer buffer;
+
+	/**
+	 * This variable holds the offset in the file of the next byte written.
+	 */
+	private long position;
+
+	/**
+	 * This flag tells whether the posting lists are compressed.
+	 */
+	private boolean compressed;
+
+	/**
+	 * This list stores the dictionary entries of the terms added so far.
+	 */
+	private List<DictionaryEntry> dictionary;
+
+	/**
+	 * This 2D array stores maxF and docLen of each document, may be null.
+	 */
+	private Integer[][] docInfo;
+
+	/**
+	 * These are the regions of the term frequencies and of the blocks of the
+	 * posting list being streamed, created with the first such list.
+	 */
+	private Region termFreqs, blocks;
+
+	/**
+	 * This is the dictionary entry of the posting list being added, null
+	 * between posting lists, and the number of postings it will have.
+	 */
+	private DictionaryEntry entry;
+	private int size;
+
+	/**
+	 * These are the number of postings added to the current list and to its
+	 * current block, and the bounds of the current block.
+	 */
+	private int added, blockAdded;
+	private int lastDocId, blockMaxTermFreq, blockMinDocLen, blockMinMaxF;
+
+	/**
+	 * The constructor creates the index file, replacing any existing file.
+	 *
+	 * @param indexFile
+	 * @param compressed
+	 *            whether the posting lists will be added encoded by
+	 *            PostingCodecs.
+	 * @throws IOException
+	 */
+	public IndexWriter(File indexFile, boolean compressed) throws IOException {
+		this.file = new RandomAccessFile(indexFile, "rw");
+		this.file.setLength(0);
+		this.channel = file.getChannel();
+		this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		this.compressed = compressed;
+		this.dictionary = new ArrayList<DictionaryEntry>();
+		// the header is written when the file is closed.
+		this.buffer.put(new byte[IndexFormat.HEADER_SIZE]);
+		this.position = IndexFormat.HEADER_SIZE;
+	}
+
+	/**
+	 * This method writes the buffer to the file.
+	 *
+	 * @throws IOException
+	 */
+	private void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	private void writeInt(int value) throws IOException {
+		if (buffer.remaining() < 4)
+			flush();
+		buffer.putInt(value);
+		position += 4;
+	}
+
+	private void writeLong(long value) throws IOException {
+		if (buffer.remaining() < 8)
+			flush();
+		buffer.putLong(value);
+		position += 8;
+	}
+
+	private void writeBytes(byte[] bytes) throws IOException {
+		if (buffer.remaining() < bytes.length) {
+			flush();
+			if (bytes.length > buffer.capacity()) {
+				ByteBuffer wrapped = ByteBuffer.wrap(bytes);
+				while (wrapped.hasRemaining()) {
+					channel.write(wrapped);
+				}
+				position += bytes.length;
+				return;
+			}
+		}
+		buffer.put(bytes);
+		position += bytes.length;
+	}
+
+	/**
+	 * This method starts the dictionary entry of a posting list of the given
+	 * size which starts at the current position.
+	 */
+	private void startEntry(String term, int size) {
+		if (entry != null)
+			throw new IllegalStateException("Posting list of "
+					+ new String(entry.term, IndexFormat.UTF8) + " not ended");
+		entry = new DictionaryEntry();
+		entry.term = term.getBytes(IndexFormat.UTF8);
+		entry.documentFreq = size;
+		entry.postingsOffset = position;
+		entry.minDocLen = Integer.MAX_VALUE;
+		entry.minMaxF = Integer.MAX_VALUE;
+		this.size = size;
+		added = 0;
+		blockAdded = 0;
+	}
+
+	/**
+	 * This method adds a posting to the bounds of the current block and of
+	 * the entry, and writes the block when it is full or the list ends.
+	 */
+	private void addToBlock(int docId, int termFreq) throws IOException {
+		if (blockAdded == 0) {
+			blockMaxTermFreq = 0;
+			blockMinDocLen = Integer.MAX_VALUE;
+			blockMinMaxF = Integer.MAX_VALUE;
+		}
+		Integer[] info = docInfo == null || docId >= docInfo.length ? null
+				: docInfo[docId];
+		blockMaxTermFreq = Math.max(blockMaxTermFreq, termFreq);
+		blockMinMaxF = Math.min(blockMinMaxF, info == null || info[0] == null ? 0
+				: info[0]);
+		blockMinDocLen = Math.min(blockMinDocLen,
+				info == null || info[1] == null ? 0 : info[1]);
+		lastDocId = docId;
+		added++;
+		blockAdded++;
+		if (blockAdded == IndexFormat.BLOCK_SIZE || added == size) {
+			if (compressed) {
+				writeInt(lastDocId);
+				writeInt(blockMaxTermFreq);
+				writeInt(blockMinDocLen);
+				writeInt(blockMinMaxF);
+			} else {
+				blocks.putInt(lastDocId);
+				blocks.putInt(blockMaxTermFreq);
+				blocks.putInt(blockMinDocLen);
+				blocks.putInt(blockMinMaxF);
+			}
+			entry.maxTermFreq = Math.max(entry.maxTermFreq, blockMaxTermFreq);
+			entry.minDocLen = Math.min(entry.minDocLen, blockMinDocLen);
+			entry.minMaxF = Math.min(entry.minMaxF, blockMinMaxF);
+			blockAdded = 0;
+		}
+	}
+
+	/**
+	 * This method adds the current entry to the dictionary.
+	 */
+	private void endEntry() {
+		if (size == 0) {
+			entry.minDocLen = 0;
+			entry.minMaxF = 0;
+		}
+		dictionary.add(entry);
+		entry = null;
+	}
+
+	/**
+	 * This method starts the posting list of a term of an uncompressed index,
+	 * whose postings are then added by addPosting in ascending order of docId.
+	 *
+	 * @param term
+	 * @param size
+	 *            number of postings which will be added.
+	 * @throws IOException
+	 */
+	public void startPostingList(String term, int size) throws IOException {
+		if (compressed)
+			throw new IllegalStateException(
+					"Posting lists of a compressed index must be encoded");
+		startEntry(term, size);
+		if (termFreqs == null) {
+			termFreqs = new Region();
+			blocks = new Region();
+		}
+		entry.postingsLength = 8 * size;
+		entry.blocksOffset = position + 8L * size;
+		termFreqs.start(position + 4L * size);
+		blocks.start(entry.blocksOffset);
+	}
+
+	/**
+	 * This method adds a posting to the posting list being streamed.
+	 *
+	 * @param docId
+	 * @param termFreq
+	 * @throws IOException
+	 */
+	public void addPosting(int docId, int termFreq) throws IOException {
+		if (entry == null || added == size)
+			throw new IllegalStateException("No room for posting " + docId);
+		writeInt(docId);
+		termFreqs.putInt(termFreq);
+		addToBlock(docId, termFreq);
+	}
+
+	/**
+	 * This method ends the posting list being streamed, which must have all
+	 * its postings.
+	 *
+	 * @throws IOException
+	 */
+	public void endPostingList() throws IOException {
+		if (entry == null || added != size)
+			throw new IllegalStateException("Posting list of "
+					+ (entry == null ? "no term" : new String(entry.term,
+							IndexFormat.UTF8)) + " not complete");
+		long end = entry.blocksOffset + (long) IndexFormat.BLOCK_ENTRY_SIZE
+				* ((size + IndexFormat.BLOCK_SIZE - 1) / IndexFormat.BLOCK_SIZE);
+		if (!termFreqs.flushed && !blocks.flushed) {
+			// the regions follow the docIds, they are appended to them.
+			writeBuffer(termFreqs.buffer);
+			writeBuffer(blocks.buffer);
+		} else {
+			flush();
+			termFreqs.flush();
+			blocks.flush();
+			channel.position(end);
+			position = end;
+		}
+		endEntry();
+	}
+
+	/**
+	 * This method appends the content of a buffer, which is cleared.
+	 */
+	private void writeBuffer(ByteBuffer bytes) throws IOException {
+		bytes.flip();
+		if (buffer.remaining() < bytes.remaining())
+			flush();
+		position += bytes.remaining();
+		buffer.put(bytes);
+		bytes.clear();
+	}
+
+	/**
+	 * This method adds the posting list of a term to an uncompressed index.
+	 *
+	 * @param term
+	 * @param postingList
+	 * @throws IOException
+	 */
+	public void addPostingList(String term, PostingList postingList)
+			throws IOException {
+		startPostingList(term, postingList.size());
+		for (int i = 0; i < postingList.size(); i++) {
+			addPosting(postingList.docId(i), postingList.termFreq(i));
+		}
+		endPostingList();
+	}
+
+	/**
+	 * This method adds the posting list of a term, encoded by PostingCodecs,
+	 * to a compressed index.
+	 *
+	 * @param term
+	 * @param postingList
+	 *            posting list which was encoded.
+	 * @param encodedPostingList
+	 * @throws IOException
+	 */
+	public void addEncodedPostingList(String term, PostingList postingList,
+			byte[] encodedPostingList) throws IOException {
+		if (!compressed)
+			throw new IllegalStateException(
+					"Posting lists of an uncompressed index must not be encoded");
+		startEntry(term, postingList.size());
+		writeBytes(encodedPostingList);
+		entry.postingsLength = (int) (position - entry.postingsOffset);
+		entry.blocksOffset = position;
+		for (int i = 0; i < postingList.size(); i++) {
+			addToBlock(postingList.docId(i), postingList.termFreq(i));
+		}
+		endEntry();
+	}
+
+	/**
+	 * This method sets the document information written along with the index.
+	 * It is used for the bounds of the posting lists added afterwards.
+	 *
+	 * @param docInfo
+	 *            2D array of maxF and docLen indexed by docId.
+	 */
+	public void setDocInfo(Integer[][] docInfo) {
+		this.docInfo = docInfo;
+	}
+
+	/**
+	 * This method writes the dictionary, the term bytes, the document
+	 * information and the header, and closes the file.
+	 *
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		try {
+			Collections.sort(dictionary, new Comparator<DictionaryEntry>() {
+				public int compare(DictionaryEntry entry1,
+						DictionaryEntry entry2) {
+					return TERM_ORDER.compare(entry1.term, entry2.term);
+				}
+			});
+			for (int i = 1; i < dictionary.size(); i++) {
+				if (TERM_ORDER.compare(dictionary.get(i - 1).term,
+						dictionary.get(i).term) == 0)
+					throw new IllegalStateException("Term added twice: "
+							+ new String(dictionary.get(i).term, IndexFormat.UTF8));
+			}
+
+			long dictionaryOffset = position;
+			int termOffset = 0;
+			for (DictionaryEntry entry : dictionary) {
+				writeInt(termOffset);
+				writeInt(entry.term.length);
+				writeInt(entry.documentFreq);
+				writeLong(entry.postingsOffset);
+				writeInt(entry.postingsLength);
+				writeInt(entry.maxTermFreq);
+				writeInt(entry.minDocLen);
+				writeInt(entry.minMaxF);
+				writeLong(entry.blocksOffset);
+				termOffset += entry.term.length;
+			}
+			long termBytesOffset = position;
+			for (DictionaryEntry entry : dictionary) {
+				writeBytes(entry.term);
+			}
+			long docInfoOffset = position;
+			int numberOfDocuments = docInfo == null ? 0 : docInfo.length - 1;
+			for (int docId = 1; docId <= numberOfDocuments; docId++) {
+				writeInt(docInfo[docId][0] == null ? 0 : docInfo[docId][0]);
+				writeInt(docInfo[docId][1] == null ? 0 : docInfo[docId][1]);
+			}
+			flush();
+
+			ByteBuffer header = ByteBuffer.allocate(IndexFormat.HEADER_SIZE);
+			header.putInt(IndexFormat.HEADER_MAGIC, IndexFormat.MAGIC);
+			header.putInt(IndexFormat.HEADER_VERSION, IndexFormat.VERSION);
+			header.putInt(IndexFormat.HEADER_FLAGS,
+					compressed ? IndexFormat.FLAG_COMPRESSED : 0);
+			header.putInt(IndexFormat.HEADER_TERMS, dictionary.size());
+			header.putInt(IndexFormat.HEADER_DOCUMENTS, numberOfDocuments);
+			header.putInt(IndexFormat.HEADER_BLOCK_SIZE, IndexFormat.BLOCK_SIZE);
+			header.putLong(IndexFormat.HEADER_DICTIONARY_OFFSET,
+					dictionaryOffset);
+			header.putLong(IndexFormat.HEADER_TERM_BYTES_OFFSET,
+					termBytesOffset);
+			header.putLong(IndexFormat.HEADER_DOC_INFO_OFFSET, docInfoOffset);
+			long headerPosition = 0;
+			while (header.hasRemaining()) {
+				headerPosition += channel.write(header, headerPosition);
+			}
+		} finally {
+			channel.close();
+			file.close();
+		}
+	}
+}
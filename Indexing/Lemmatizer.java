@@ -5,9 +5,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
-import org.jsoup.Jsoup;
-
 import edu.stanford.nlp.ling.CoreAnnotations.LemmaAnnotation;
+import edu.stanford.nlp.ling.CoreAnnotations.PartOfSpeechAnnotation;
+import edu.stanford.nlp.ling.CoreAnnotations.TextAnnotation;
 import edu.stanford.nlp.ling.CoreLabel;
 import edu.stanford.nlp.ling.CoreAnnotations.SentencesAnnotation;
 import edu.stanford.nlp.ling.CoreAnnotations.TokensAnnotation;
@@ -18,10 +18,15 @@ import edu.stanford.nlp.util.CoreMap;
 /**
  * This class contains method to create lemma out of a give file.
  * 
+ * The annotators of a StanfordCoreNLP pipeline are not guaranteed to be safe
+ * to call from several threads at once, so a Lemmatizer must not be shared by
+ * the workers of a parallel ingestion: LemmatizerPool gives every worker a
+ * pipeline of its own instead.
+ * 
  * @author Abhishek Gupta (axg137230)
  *
  */
-public class Lemmatizer {
+public class Lemmatizer implements TextLemmatizer {
 
 	/**
 	 * This is the default value of the token count.
@@ -39,6 +44,12 @@ public class Lemmatizer {
 	 */
 	StanfordCoreNLP pipeline;
 
+	/**
+	 * This lexicon harvests the form, part of speech and lemma of every token
+	 * lemmatized, may be null.
+	 */
+	private Lexicon lexicon;
+
 	/**
 	 * This constructor initializes the member variables.
 	 * 
@@ -50,6 +61,28 @@ public class Lemmatizer {
 		pipeline = new StanfordCoreNLP(props);
 	}
 
+	/**
+	 * This method sets the lexicon to which the form, part of speech and lemma
+	 * of every token lemmatized from now on are added.
+	 * 
+	 * @param lexicon
+	 */
+	public void setLexicon(Lexicon lexicon) {
+		this.lexicon = lexicon;
+	}
+
+	/**
+	 * This method adds a token to the lexicon, if there is one.
+	 * 
+	 * @param token
+	 */
+	private void harvest(CoreLabel token) {
+		if (lexicon != null)
+			lexicon.add(token.get(TextAnnotation.class),
+					token.get(PartOfSpeechAnnotation.class),
+					token.get(LemmaAnnotation.class));
+	}
+
 	/**
 	 * This method apply lemmatization on a file content and returns back the
 	 * lemmas present in the file along with their frequency in a map.
@@ -59,8 +92,20 @@ public class Lemmatizer {
 	 * @throws IOException
 	 */
 	public Map<String, Integer> lemmatize(File file) throws IOException {
+		return lemmatizeText(Util.getDocumentText(file));
+	}
+
+	/**
+	 * This method apply lemmatization on the text of a document and returns
+	 * back the lemmas present in the text along with their frequency in a
+	 * map.
+	 * 
+	 * @param text
+	 *            text of a document without SGML tags.
+	 * @return
+	 */
+	public Map<String, Integer> lemmatizeText(String text) {
 		Map<String, Integer> lemmasInFile = new HashMap<String, Integer>();
-		String text = Jsoup.parse(file, "UTF-8").text();
 		// create an empty Annotation just with the given text
 		Annotation document = new Annotation(text);
 		// run all Annotators on this text
@@ -75,6 +120,7 @@ public class Lemmatizer {
 			// traversing the words in the current sentence
 			// a CoreLabel is a CoreMap with additional token-specific methods
 			for (CoreLabel token : sentence.get(TokensAnnotation.class)) {
+				harvest(token);
 				String lemma = token.get(LemmaAnnotation.class).toLowerCase();
 				// System.out.println(lemma);
 				if (lemma.matches("[a-zA-Z0-9]+")) {
@@ -102,6 +148,7 @@ public class Lemmatizer {
 			// traversing the words in the current sentence
 			// a CoreLabel is a CoreMap with additional token-specific methods
 			for (CoreLabel token : sentence.get(TokensAnnotation.class)) {
+				harvest(token);
 				lemma = token.get(LemmaAnnotation.class).toLowerCase();
 			}
 		}
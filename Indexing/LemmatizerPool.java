@@ -0,0 +1,93 @@
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * This class keeps a pool of lemmatizers, each with a StanfordCoreNLP pipeline
+ * of its own, so that several documents can be lemmatized at the same time.
+ * Every call takes a lemmatizer out of a bounded queue, waiting for one to be
+ * returned if all of them are busy, and puts it back once the text is
+ * lemmatized. All the pipelines are created with the same annotators, so the
+ * output does not depend on which lemmatizer handles a document.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class LemmatizerPool implements TextLemmatizer {
+
+	/**
+	 * This queue holds the lemmatizers which are not in use.
+	 */
+	private BlockingQueue<Lemmatizer> lemmatizers;
+
+	/**
+	 * The constructor creates the given number of lemmatizers. Every pipeline
+	 * loads its own models, so the pool should not be larger than the number
+	 * of threads using it.
+	 *
+	 * @param annotators
+	 * @param size
+	 *            any value less than one is treated as one.
+	 * @param lexicon
+	 *            lexicon to which all the lemmatizers add the tokens they
+	 *            lemmatize, may be null.
+	 */
+	public LemmatizerPool(String annotators, int size, Lexicon lexicon) {
+		size = Math.max(1, size);
+		this.lemmatizers = new ArrayBlockingQueue<Lemmatizer>(size);
+		for (int i = 0; i < size; i++) {
+			Lemmatizer lemmatizer = new Lemmatizer(annotators);
+			lemmatizer.setLexicon(lexicon);
+			this.lemmatizers.add(lemmatizer);
+		}
+	}
+
+	/**
+	 * This method takes a lemmatizer out of the pool, waiting until one is
+	 * available.
+	 *
+	 * @return
+	 */
+	private Lemmatizer take() {
+		try {
+			return lemmatizers.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(
+					"Interrupted while waiting for a lemmatizer", e);
+		}
+	}
+
+	/**
+	 * This method lemmatizes the text of a document with one of the
+	 * lemmatizers of the pool and returns the lemmas present in the text along
+	 * with their frequency in a map.
+	 *
+	 * @param text
+	 *            text of a document without SGML tags.
+	 * @return
+	 */
+	public Map<String, Integer> lemmatizeText(String text) {
+		Lemmatizer lemmatizer = take();
+		try {
+			return lemmatizer.lemmatizeText(text);
+		} finally {
+			lemmatizers.add(lemmatizer);
+		}
+	}
+
+	/**
+	 * This method returns the lemma of the last word of a string.
+	 *
+	 * @param string
+	 * @return
+	 */
+	public String lemmatize(String string) {
+		Lemmatizer lemmatizer = take();
+		try {
+			return lemmatizer.lemmatize(string);
+		} finally {
+			lemmatizers.add(lemmatizer);
+		}
+	}
+}
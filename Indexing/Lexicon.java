@@ -0,0 +1,165 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class stores the lemma of every (surface form, part of speech) pair
+ * seen by the CoreNLP pipeline, along with the number of times the pair was
+ * seen. It is harvested while documents are lemmatized, saved to a text file
+ * and loaded by later runs.
+ *
+ * The file has one line per pair: form, part of speech, lemma and count,
+ * separated by tabs, sorted by form and part of speech.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class Lexicon {
+
+	/**
+	 * This class holds the parts of speech of a single form.
+	 */
+	private static class Form {
+		TreeMap<String, String> lemmas = new TreeMap<String, String>();
+		TreeMap<String, Integer> counts = new TreeMap<String, Integer>();
+
+		/**
+		 * This is the lemma of the most frequent part of speech, or null if
+		 * it has to be chosen again.
+		 */
+		String mostFrequentLemma;
+
+		synchronized void add(String partOfSpeech, String lemma, int count) {
+			lemmas.put(partOfSpeech, lemma);
+			Integer oldCount = counts.get(partOfSpeech);
+			counts.put(partOfSpeech, oldCount == null ? count : oldCount
+					+ count);
+			mostFrequentLemma = null;
+		}
+
+		synchronized String mostFrequentLemma() {
+			if (mostFrequentLemma == null) {
+				int maxCount = 0;
+				for (Map.Entry<String, Integer> count : counts.entrySet()) {
+					if (count.getValue() > maxCount) {
+						maxCount = count.getValue();
+						mostFrequentLemma = lemmas.get(count.getKey());
+					}
+				}
+			}
+			return mostFrequentLemma;
+		}
+	}
+
+	/**
+	 * This map stores the parts of speech of every form.
+	 */
+	private ConcurrentHashMap<String, Form> forms = new ConcurrentHashMap<String, Form>();
+
+	/**
+	 * This method records that the pipeline gave a form with a part of speech
+	 * the given lemma.
+	 *
+	 * @param form
+	 * @param partOfSpeech
+	 * @param lemma
+	 */
+	public void add(String form, String partOfSpeech, String lemma) {
+		add(form, partOfSpeech, lemma, 1);
+	}
+
+	private void add(String form, String partOfSpeech, String lemma, int count) {
+		Form entry = forms.get(form);
+		if (entry == null) {
+			Form newEntry = new Form();
+			entry = forms.putIfAbsent(form, newEntry);
+			if (entry == null)
+				entry = newEntry;
+		}
+		entry.add(partOfSpeech, lemma, count);
+	}
+
+	/**
+	 * This method returns the lemma of a form for its most frequent part of
+	 * speech, or null if the form has never been seen. Tagging every form
+	 * with its most frequent part of speech is the cheapest tagger there is,
+	 * and is right for most of the tokens of a small technical vocabulary.
+	 *
+	 * @param form
+	 * @return
+	 */
+	public String lemma(String form) {
+		Form entry = forms.get(form);
+		if (entry == null)
+			return null;
+		return entry.mostFrequentLemma();
+	}
+
+	/**
+	 * This method returns the number of forms in the lexicon.
+	 *
+	 * @return
+	 */
+	public int size() {
+		return forms.size();
+	}
+
+	/**
+	 * This method loads a lexicon file into this lexicon.
+	 *
+	 * @param file
+	 * @throws IOException
+	 */
+	public void load(File file) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(
+				new FileInputStream(file), "UTF-8"));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] fields = line.split("\t");
+				if (fields.length != 4)
+					throw new IOException("Malformed lexicon line: " + line);
+				add(fields[0], fields[1], fields[2],
+						Integer.parseInt(fields[3]));
+			}
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * This method saves this lexicon to a file.
+	 *
+	 * @param file
+	 * @throws IOException
+	 */
+	public void save(File file) throws IOException {
+		BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+				new FileOutputStream(file), "UTF-8"));
+		try {
+			for (Map.Entry<String, Form> form : new TreeMap<String, Form>(
+					forms).entrySet()) {
+				Form entry = form.getValue();
+				synchronized (entry) {
+					for (Map.Entry<String, String> lemma : entry.lemmas
+							.entrySet()) {
+						writer.write(form.getKey() + "\t" + lemma.getKey()
+								+ "\t" + lemma.getValue() + "\t"
+								+ entry.counts.get(lemma.getKey()));
+						writer.newLine();
+					}
+				}
+			}
+		} finally {
+			writer.close();
+		}
+	}
+}
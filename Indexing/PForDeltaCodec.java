@@ -0,0 +1,141 @@
+import java.nio.ByteBuffer;
+
+/**
+ * This codec implements patched frame-of-reference coding. The values are cut
+ * into blocks of 128. For every block a bit width is chosen such that the
+ * encoded block is as small as possible, and all the values of the block are
+ * packed with that width. Values which do not fit are exceptions: their low
+ * bits are packed like the others and their high bits are stored after the
+ * block along with their position.
+ *
+ * A block is written as the bit width, the number of exceptions, the packed
+ * values and then position and variable-byte high bits of every exception.
+ * The last block may hold fewer than 128 values.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class PForDeltaCodec implements PostingCodec {
+
+	/**
+	 * This is the number of values in a block.
+	 */
+	public static final int BLOCK_SIZE = 128;
+
+	public int getId() {
+		return 5;
+	}
+
+	public String getName() {
+		return "pfordelta";
+	}
+
+	/**
+	 * This method returns the number of bytes variable-byte coding needs for a
+	 * number with the given number of significant bits.
+	 *
+	 * @param bits
+	 * @return
+	 */
+	private static int variableByteLength(int bits) {
+		return Math.max(1, (bits + 6) / 7);
+	}
+
+	/**
+	 * This method chooses the bit width which gives the smallest encoding of a
+	 * block.
+	 *
+	 * @param values
+	 * @param from
+	 * @param count
+	 * @return
+	 */
+	private static int chooseBitWidth(int[] values, int from, int count) {
+		// number of values for every count of significant bits.
+		int[] widths = new int[33];
+		for (int i = from; i < from + count; i++) {
+			widths[32 - Integer.numberOfLeadingZeros(values[i])]++;
+		}
+		int bestWidth = 32;
+		long bestSize = Long.MAX_VALUE;
+		for (int width = 0; width <= 32; width++) {
+			long size = ((long) count * width + 7) / 8;
+			int exceptions = 0;
+			for (int w = width + 1; w <= 32; w++) {
+				size += widths[w] * (1 + variableByteLength(w - width));
+				exceptions += widths[w];
+			}
+			if (exceptions < 256 && size < bestSize) {
+				bestSize = size;
+				bestWidth = width;
+			}
+		}
+		return bestWidth;
+	}
+
+	public void encode(int[] values, int length, ByteWriter out) {
+		for (int from = 0; from < length; from += BLOCK_SIZE) {
+			int count = Math.min(BLOCK_SIZE, length - from);
+			int width = chooseBitWidth(values, from, count);
+			long mask = width == 0 ? 0 : -1L >>> (64 - width);
+			int exceptions = 0;
+			for (int i = from; i < from + count; i++) {
+				if ((values[i] & 0xFFFFFFFFL) > mask)
+					exceptions++;
+			}
+			out.writeByte(width);
+			out.writeByte(exceptions);
+
+			// pack the low bits of all values.
+			long pendingBits = 0;
+			int bitCount = 0;
+			for (int i = from; i < from + count && width > 0; i++) {
+				pendingBits = (pendingBits << width) | (values[i] & mask);
+				bitCount += width;
+				while (bitCount >= 8) {
+					bitCount -= 8;
+					out.writeByte((int) (pendingBits >>> bitCount));
+				}
+			}
+			if (bitCount > 0)
+				out.writeByte((int) (pendingBits << (8 - bitCount)));
+
+			// patch list.
+			for (int i = from; i < from + count && exceptions > 0; i++) {
+				if ((values[i] & 0xFFFFFFFFL) > mask) {
+					out.writeByte(i - from);
+					VariableByteCodec.writeVInt(out, values[i] >>> width);
+				}
+			}
+		}
+	}
+
+	public void decode(ByteBuffer in, int[] values, int length) {
+		for (int from = 0; from < length; from += BLOCK_SIZE) {
+			int count = Math.min(BLOCK_SIZE, length - from);
+			int width = in.get();
+			int exceptions = in.get() & 0xFF;
+			if (width == 0) {
+				for (int i = from; i < from + count; i++) {
+					values[i] = 0;
+				}
+			} else {
+				long mask = -1L >>> (64 - width);
+				long loadedBits = 0;
+				int bitCount = 0;
+				for (int i = from; i < from + count; i++) {
+					while (bitCount < width) {
+						loadedBits = (loadedBits << 8) | (in.get() & 0xFF);
+						bitCount += 8;
+					}
+					bitCount -= width;
+					values[i] = (int) ((loadedBits >>> bitCount) & mask);
+				}
+			}
+			for (int e = 0; e < exceptions; e++) {
+				int i = from + (in.get() & 0xFF);
+				values[i] |= VariableByteCodec.readVInt(in) << width;
+			}
+		}
+	}
+}
@@ -0,0 +1,150 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class builds indices using a pool of worker threads. Every document is
+ * read and parsed once, and its text is handed to all the analysis chains, each
+ * of which feeds its own index. The list of files is split into one contiguous
+ * share per worker, every worker analyzes its share into partial indices of its
+ * own and the partial indices are merged in worker order once all of them are
+ * done. Since posting lists are sorted by docId when the index is frozen, the
+ * merged indices are the same as the ones built by a single thread.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class ParallelIndexer {
+
+	/**
+	 * This variable holds the number of worker threads used for ingestion.
+	 */
+	private int numberOfWorkers;
+
+	/**
+	 * The constructor initializes the number of workers. Any value less than
+	 * one is treated as one, i.e. the documents are ingested by the calling
+	 * thread.
+	 *
+	 * @param numberOfWorkers
+	 */
+	public ParallelIndexer(int numberOfWorkers) {
+		this.numberOfWorkers = Math.max(1, numberOfWorkers);
+	}
+
+	/**
+	 * This method runs the given analyzers on every file and returns one index
+	 * per analyzer, built out of the analyzed documents.
+	 *
+	 * @param listOfFiles
+	 *            files sorted by name.
+	 * @param analyzers
+	 * @return
+	 * @throws IOException
+	 */
+	public Index[] buildIndices(File[] listOfFiles,
+			DocumentAnalyzer[] analyzers) throws IOException {
+		int workers = Math.min(numberOfWorkers, listOfFiles.length);
+		if (workers <= 1) {
+			Index[] indices = indexFiles(listOfFiles, 0, listOfFiles.length,
+					analyzers);
+			for (Index index : indices) {
+				index.freezeIndex();
+			}
+			return indices;
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(workers);
+		try {
+			List<Future<Index[]>> partialIndices = new ArrayList<Future<Index[]>>();
+			for (int worker = 0; worker < workers; worker++) {
+				int from = (int) ((long) listOfFiles.length * worker / workers);
+				int to = (int) ((long) listOfFiles.length * (worker + 1) / workers);
+				partialIndices.add(executor.submit(newWorker(listOfFiles,
+						from, to, analyzers)));
+			}
+			// merge the partial indices in the order of the workers.
+			Index[] indices = new Index[analyzers.length];
+			for (int i = 0; i < indices.length; i++) {
+				indices[i] = new Index();
+			}
+			for (Future<Index[]> partialIndex : partialIndices) {
+				Index[] partialIndicesOfWorker = partialIndex.get();
+				for (int i = 0; i < indices.length; i++) {
+					indices[i].merge(partialIndicesOfWorker[i]);
+				}
+			}
+			for (Index index : indices) {
+				index.freezeIndex();
+			}
+			return indices;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while building the index", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException)
+				throw (IOException) cause;
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			throw new IOException(cause);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * This method creates the task of a single worker which indexes the files
+	 * from the given range.
+	 *
+	 * @param listOfFiles
+	 * @param from
+	 *            first file of the range, inclusive.
+	 * @param to
+	 *            last file of the range, exclusive.
+	 * @param analyzers
+	 * @return
+	 */
+	private static Callable<Index[]> newWorker(final File[] listOfFiles,
+			final int from, final int to, final DocumentAnalyzer[] analyzers) {
+		return new Callable<Index[]>() {
+			public Index[] call() throws IOException {
+				return indexFiles(listOfFiles, from, to, analyzers);
+			}
+		};
+	}
+
+	/**
+	 * This method parses the files from the given range one after the other,
+	 * analyzes the text of every file with all the analyzers and inserts it
+	 * into one new index per analyzer.
+	 *
+	 * @param listOfFiles
+	 * @param from
+	 * @param to
+	 * @param analyzers
+	 * @return
+	 * @throws IOException
+	 */
+	private static Index[] indexFiles(File[] listOfFiles, int from, int to,
+			DocumentAnalyzer[] analyzers) throws IOException {
+		Index[] indices = new Index[analyzers.length];
+		for (int i = 0; i < indices.length; i++) {
+			indices[i] = new Index();
+		}
+		for (int f = from; f < to; f++) {
+			int docId = Util.getDocId(listOfFiles[f]);
+			String text = Util.getDocumentText(listOfFiles[f]);
+			for (int i = 0; i < analyzers.length; i++) {
+				indices[i].creatIndex(docId, analyzers[i].analyze(docId, text));
+			}
+		}
+		return indices;
+	}
+}
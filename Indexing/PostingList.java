@@ -0,0 +1,199 @@
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * This class stores the posting list of a single term. The docIds and the term
+ * frequencies are kept in two parallel int arrays which grow while the index is
+ * being built. Once building is done the list is frozen, i.e. the postings are
+ * sorted by docId and the arrays are trimmed to their size, so that a posting
+ * costs 8 bytes instead of a tree node and two boxed integers.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class PostingList implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * This is the initial capacity of a new posting list. Most of the terms
+	 * occur in a handful of documents only.
+	 */
+	private static final int INITIAL_CAPACITY = 4;
+
+	/**
+	 * These arrays store the docIds and the term frequencies of the postings.
+	 * The posting at position i is the pair (docIds[i], termFreqs[i]).
+	 */
+	private int[] docIds, termFreqs;
+
+	/**
+	 * This variable holds the number of postings in the list.
+	 */
+	private int size;
+
+	/**
+	 * This flag is true as long as the postings are sorted by docId without
+	 * duplicates.
+	 */
+	private boolean sorted;
+
+	/**
+	 * The constructor initializes an empty posting list.
+	 */
+	public PostingList() {
+		this.docIds = new int[INITIAL_CAPACITY];
+		this.termFreqs = new int[INITIAL_CAPACITY];
+		this.size = 0;
+		this.sorted = true;
+	}
+
+	/**
+	 * This constructor creates a frozen posting list out of arrays which are
+	 * already sorted by docId. The arrays are used as they are.
+	 *
+	 * @param docIds
+	 * @param termFreqs
+	 * @param size
+	 */
+	public PostingList(int[] docIds, int[] termFreqs, int size) {
+		this.docIds = docIds;
+		this.termFreqs = termFreqs;
+		this.size = size;
+		this.sorted = true;
+	}
+
+	/**
+	 * This method adds a docId,termFreq pair to the list. If the document is
+	 * already present in the list its term frequency is replaced.
+	 *
+	 * @param docId
+	 * @param termFreq
+	 */
+	public void add(int docId, int termFreq) {
+		if (size > 0 && sorted) {
+			int lastDocId = docIds[size - 1];
+			if (docId == lastDocId) {
+				termFreqs[size - 1] = termFreq;
+				return;
+			}
+			if (docId < lastDocId)
+				sorted = false;
+		}
+		if (size == docIds.length) {
+			int capacity = size + (size >> 1) + 1;
+			docIds = Arrays.copyOf(docIds, capacity);
+			termFreqs = Arrays.copyOf(termFreqs, capacity);
+		}
+		docIds[size] = docId;
+		termFreqs[size] = termFreq;
+		size++;
+	}
+
+	/**
+	 * This method adds all the postings of the other list to this list.
+	 *
+	 * @param other
+	 */
+	public void addAll(PostingList other) {
+		for (int i = 0; i < other.size; i++) {
+			add(other.docIds[i], other.termFreqs[i]);
+		}
+	}
+
+	/**
+	 * This method freezes the list once building is done. The postings are
+	 * sorted by docId, of duplicate docIds only the last one added is kept,
+	 * and the arrays are trimmed to the size of the list.
+	 */
+	public void freeze() {
+		if (!sorted) {
+			// sort positions by docId, keeping the order of insertion for
+			// equal docIds.
+			long[] keys = new long[size];
+			for (int i = 0; i < size; i++) {
+				keys[i] = ((long) docIds[i] << 32) | i;
+			}
+			Arrays.sort(keys);
+			int[] sortedDocIds = new int[size];
+			int[] sortedTermFreqs = new int[size];
+			int newSize = 0;
+			for (int i = 0; i < size; i++) {
+				int docId = (int) (keys[i] >>> 32);
+				int position = (int) keys[i];
+				if (newSize > 0 && sortedDocIds[newSize - 1] == docId)
+					newSize--;
+				sortedDocIds[newSize] = docId;
+				sortedTermFreqs[newSize] = termFreqs[position];
+				newSize++;
+			}
+			docIds = sortedDocIds;
+			termFreqs = sortedTermFreqs;
+			size = newSize;
+			sorted = true;
+		}
+		if (docIds.length != size) {
+			docIds = Arrays.copyOf(docIds, size);
+			termFreqs = Arrays.copyOf(termFreqs, size);
+		}
+	}
+
+	/**
+	 * This method returns the number of postings, i.e. the document frequency
+	 * of the term.
+	 *
+	 * @return
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * This method returns the docId of the posting at the given position.
+	 *
+	 * @param i
+	 * @return
+	 */
+	public int docId(int i) {
+		return docIds[i];
+	}
+
+	/**
+	 * This method returns the term frequency of the posting at the given
+	 * position.
+	 *
+	 * @param i
+	 * @return
+	 */
+	public int termFreq(int i) {
+		return termFreqs[i];
+	}
+
+	/**
+	 * This method returns the number of times the term occurs in all the
+	 * documents of the list.
+	 *
+	 * @return
+	 */
+	public int totalTermFreq() {
+		int totalTermFreq = 0;
+		for (int i = 0; i < size; i++) {
+			totalTermFreq += termFreqs[i];
+		}
+		return totalTermFreq;
+	}
+
+	/**
+	 * This method returns the frequency of the term in the given document, or
+	 * 0 if the document is not in the list. The list must be frozen.
+	 *
+	 * @param docId
+	 * @return
+	 */
+	public int termFreqInDoc(int docId) {
+		int position = Arrays.binarySearch(docIds, 0, size, docId);
+		if (position >= 0)
+			return termFreqs[position];
+		return 0;
+	}
+}
@@ -0,0 +1,78 @@
+import java.nio.ByteBuffer;
+
+/**
+ * This codec packs as many values as possible into 64-bit words. The top 4
+ * bits of a word select how the remaining 60 bits are split, from 60 values
+ * of 1 bit up to a single value of 60 bits. The first two selectors stand for
+ * runs of 240 and 120 zeros.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class Simple8bCodec implements PostingCodec {
+
+	/**
+	 * These arrays hold the number of values and the bits per value of every
+	 * selector.
+	 */
+	private static final int[] VALUES_PER_WORD = { 240, 120, 60, 30, 20, 15,
+			12, 10, 8, 7, 6, 5, 4, 3, 2, 1 };
+	private static final int[] BITS_PER_VALUE = { 0, 0, 1, 2, 3, 4, 5, 6, 7,
+			8, 10, 12, 15, 20, 30, 60 };
+
+	public int getId() {
+		return 6;
+	}
+
+	public String getName() {
+		return "simple8b";
+	}
+
+	public void encode(int[] values, int length, ByteWriter out) {
+		int from = 0;
+		while (from < length) {
+			// try the selectors from the densest one.
+			for (int selector = 0; selector < VALUES_PER_WORD.length; selector++) {
+				int count = VALUES_PER_WORD[selector];
+				int bits = BITS_PER_VALUE[selector];
+				if (count > length - from)
+					continue;
+				long limit = 1L << bits;
+				boolean fits = true;
+				for (int i = from; i < from + count && fits; i++) {
+					fits = (values[i] & 0xFFFFFFFFL) < limit;
+				}
+				if (!fits)
+					continue;
+				long word = (long) selector << 60;
+				for (int i = 0; i < count && bits > 0; i++) {
+					word |= (values[from + i] & 0xFFFFFFFFL) << (i * bits);
+				}
+				out.writeLong(word);
+				from += count;
+				break;
+			}
+		}
+	}
+
+	public void decode(ByteBuffer in, int[] values, int length) {
+		int from = 0;
+		while (from < length) {
+			long word = in.getLong();
+			int selector = (int) (word >>> 60);
+			int count = VALUES_PER_WORD[selector];
+			int bits = BITS_PER_VALUE[selector];
+			if (bits == 0) {
+				for (int i = from; i < from + count; i++) {
+					values[i] = 0;
+				}
+			} else {
+				long mask = (1L << bits) - 1;
+				for (int i = 0; i < count; i++) {
+					values[from + i] = (int) ((word >>> (i * bits)) & mask);
+				}
+			}
+			from += count;
+		}
+	}
+}
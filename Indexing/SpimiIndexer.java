@@ -0,0 +1,660 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class builds indices whose size is not limited by the heap, using
+ * single-pass in-memory indexing (SPIMI). Like ParallelIndexer, every document
+ * is parsed once and its text is handed to all the analysis chains. The
+ * analyzed documents are inserted into one in-memory block per analyzer until
+ * the estimated size of the blocks reaches the memory budget. The blocks are
+ * then written to temporary run files with their terms sorted, and new blocks
+ * are started. Once all the documents are analyzed the runs of every analyzer
+ * are merged term by term into its index files, reading only one buffer of
+ * every run at a time.
+ *
+ * At most the merge fan-in runs are read at once: while an analyzer has more
+ * runs, consecutive groups of them are merged into longer runs, pass after
+ * pass. The postings of a term are copied run by run, from the merged runs to
+ * the longer run or to the uncompressed index file, without being gathered
+ * first. The compressed index file is then written from the uncompressed one,
+ * one posting list at a time, since the codecs encode a whole list at once.
+ *
+ * The files can be split among several workers, each of which has its own
+ * share of the memory budget and writes its own runs. The index files are the
+ * same as the ones written from indices built in memory.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class SpimiIndexer {
+
+	/**
+	 * This is the size of the buffer of a run file, i.e. the amount of a run
+	 * kept in memory while the runs are merged.
+	 */
+	private static final int RUN_BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * These are rough estimates of the heap used by a term of a block, besides
+	 * its characters, and by a posting, including the unused capacity of the
+	 * growing arrays.
+	 */
+	private static final int TERM_OVERHEAD = 128, POSTING_OVERHEAD = 16;
+
+	/**
+	 * This is the default number of runs merged at once.
+	 */
+	public static final int DEFAULT_MERGE_FAN_IN = 64;
+
+	/**
+	 * This class holds the block of a worker, the terms of the documents
+	 * analyzed since the last run was written.
+	 */
+	private static class Block {
+		Map<String, PostingList> postingLists = new HashMap<String, PostingList>();
+		long estimatedSize;
+
+		void insert(int docId, Map<String, Integer> terms) {
+			for (Map.Entry<String, Integer> term : terms.entrySet()) {
+				PostingList postingList = postingLists.get(term.getKey());
+				if (postingList == null) {
+					postingList = new PostingList();
+					postingLists.put(term.getKey(), postingList);
+					estimatedSize += TERM_OVERHEAD + 2 * term.getKey().length();
+				}
+				postingList.add(docId, term.getValue());
+				estimatedSize += POSTING_OVERHEAD;
+			}
+		}
+
+		boolean isEmpty() {
+			return postingLists.isEmpty();
+		}
+	}
+
+	/**
+	 * This class reads the terms of a run file one after the other.
+	 */
+	private static class RunReader {
+		DataInputStream in;
+		int runNumber;
+		int remainingTerms;
+		String term;
+
+		/**
+		 * This is the number of postings of the current term, once read.
+		 */
+		int size;
+
+		RunReader(File run, int runNumber) throws IOException {
+			this.in = new DataInputStream(new BufferedInputStream(
+					new FileInputStream(run), RUN_BUFFER_SIZE));
+			this.runNumber = runNumber;
+			this.remainingTerms = in.readInt();
+		}
+
+		/**
+		 * This method reads the next term. It returns false at the end of the
+		 * run.
+		 */
+		boolean nextTerm() throws IOException {
+			if (remainingTerms == 0) {
+				term = null;
+				return false;
+			}
+			remainingTerms--;
+			term = in.readUTF();
+			return true;
+		}
+
+		/**
+		 * This method reads the number of postings of the current term, which
+		 * are then read as docId and term frequency pairs.
+		 */
+		int readSize() throws IOException {
+			size = in.readInt();
+			return size;
+		}
+
+		void close() throws IOException {
+			in.close();
+		}
+	}
+
+	/**
+	 * This class reads a group of runs in parallel, one term at a time, the
+	 * smallest term of all of them being taken next.
+	 */
+	private static class RunMerger {
+		PriorityQueue<RunReader> queue;
+		List<RunReader> readers = new ArrayList<RunReader>();
+
+		/**
+		 * These are the readers of the runs holding the current term, in the
+		 * order of the runs.
+		 */
+		List<RunReader> runsOfTerm = new ArrayList<RunReader>();
+
+		RunMerger(List<File> runs) throws IOException {
+			queue = new PriorityQueue<RunReader>(Math.max(1, runs.size()),
+					new Comparator<RunReader>() {
+						public int compare(RunReader run1, RunReader run2) {
+							int comparison = run1.term.compareTo(run2.term);
+							if (comparison != 0)
+								return comparison;
+							return run1.runNumber - run2.runNumber;
+						}
+					});
+			try {
+				for (int runNumber = 0; runNumber < runs.size(); runNumber++) {
+					RunReader reader = new RunReader(runs.get(runNumber),
+							runNumber);
+					readers.add(reader);
+					if (reader.nextTerm())
+						queue.add(reader);
+				}
+			} catch (IOException e) {
+				close();
+				throw e;
+			}
+		}
+
+		/**
+		 * This method moves to the next term, whose number of postings in every
+		 * run holding it is read. The postings of the previous term must have
+		 * been read. It returns null once all the terms are read.
+		 */
+		String nextTerm() throws IOException {
+			for (RunReader reader : runsOfTerm) {
+				if (reader.nextTerm())
+					queue.add(reader);
+			}
+			runsOfTerm.clear();
+			if (queue.isEmpty())
+				return null;
+			String term = queue.peek().term;
+			while (!queue.isEmpty() && queue.peek().term.equals(term)) {
+				RunReader reader = queue.poll();
+				reader.readSize();
+				runsOfTerm.add(reader);
+			}
+			return term;
+		}
+
+		/**
+		 * This method returns the number of postings of the current term.
+		 */
+		int size() {
+			int size = 0;
+			for (RunReader reader : runsOfTerm) {
+				size += reader.size;
+			}
+			return size;
+		}
+
+		void close() throws IOException {
+			for (RunReader reader : readers) {
+				reader.close();
+			}
+		}
+	}
+
+	/**
+	 * This variable holds the number of worker threads used for ingestion.
+	 */
+	private int numberOfWorkers;
+
+	/**
+	 * This variable holds the memory budget of all the blocks in bytes.
+	 */
+	private long memoryBudget;
+
+	/**
+	 * This variable holds the largest number of runs merged at once.
+	 */
+	private int mergeFanIn;
+
+	/**
+	 * The constructor initializes the number of workers and the memory budget,
+	 * with the default merge fan-in.
+	 *
+	 * @param numberOfWorkers
+	 *            any value less than one is treated as one.
+	 * @param memoryBudget
+	 *            estimated heap in bytes which the blocks of all the workers
+	 *            may use together.
+	 */
+	public SpimiIndexer(int numberOfWorkers, long memoryBudget) {
+		this(numberOfWorkers, memoryBudget, DEFAULT_MERGE_FAN_IN);
+	}
+
+	/**
+	 * The constructor initializes the number of workers, the memory budget
+	 * and the merge fan-in.
+	 *
+	 * @param numberOfWorkers
+	 *            any value less than one is treated as one.
+	 * @param memoryBudget
+	 *            estimated heap in bytes which the blocks of all the workers
+	 *            may use together.
+	 * @param mergeFanIn
+	 *            largest number of runs merged at once, any value less than
+	 *            two is treated as two.
+	 */
+	public SpimiIndexer(int numberOfWorkers, long memoryBudget, int mergeFanIn) {
+		this.numberOfWorkers = Math.max(1, numberOfWorkers);
+		this.memoryBudget = memoryBudget;
+		this.mergeFanIn = Math.max(2, mergeFanIn);
+	}
+
+	/**
+	 * This method runs the given analyzers on every file and writes the
+	 * uncompressed and the compressed index files of every analyzer. The
+	 * returned indices refer to the written files and do not hold the posting
+	 * lists.
+	 *
+	 * @param listOfFiles
+	 *            files sorted by name.
+	 * @param analyzers
+	 * @param uncompressedFiles
+	 *            uncompressed index file of every analyzer.
+	 * @param compressedFiles
+	 *            compressed index file of every analyzer.
+	 * @param codecName
+	 *            name of the codec of the compressed indices.
+	 * @param docInfos
+	 *            document information written along with the index of every
+	 *            analyzer, may be null. It is read once all the documents are
+	 *            analyzed.
+	 * @return
+	 * @throws IOException
+	 */
+	public Index[] buildIndices(File[] listOfFiles,
+			DocumentAnalyzer[] analyzers, File[] uncompressedFiles,
+			File[] compressedFiles, String codecName, Integer[][][] docInfos)
+			throws IOException {
+		List<List<File>> runs = new ArrayList<List<File>>();
+		for (int i = 0; i < analyzers.length; i++) {
+			runs.add(new ArrayList<File>());
+		}
+		try {
+			writeRuns(listOfFiles, analyzers, runs);
+			for (int i = 0; i < analyzers.length; i++) {
+				reduceRuns(runs.get(i));
+				mergeRuns(runs.get(i), uncompressedFiles[i], docInfos[i]);
+				writeCompressedIndex(uncompressedFiles[i], compressedFiles[i],
+						codecName, docInfos[i]);
+			}
+		} finally {
+			deleteRuns(runs);
+		}
+		Index[] indices = new Index[analyzers.length];
+		for (int i = 0; i < analyzers.length; i++) {
+			indices[i] = new Index();
+			indices[i].setWrittenIndex(uncompressedFiles[i], compressedFiles[i]);
+		}
+		return indices;
+	}
+
+	/**
+	 * This method deletes the run files.
+	 *
+	 * @param runs
+	 *            runs of every analyzer.
+	 */
+	private static void deleteRuns(List<List<File>> runs) {
+		for (List<File> runsOfAnalyzer : runs) {
+			for (File run : runsOfAnalyzer) {
+				run.delete();
+			}
+		}
+	}
+
+	/**
+	 * This method analyzes all the files and writes the blocks to runs. The
+	 * runs of every analyzer are added to its list in the order of the
+	 * workers.
+	 *
+	 * @param listOfFiles
+	 * @param analyzers
+	 * @param runs
+	 *            runs of every analyzer.
+	 * @throws IOException
+	 */
+	private void writeRuns(File[] listOfFiles, DocumentAnalyzer[] analyzers,
+			List<List<File>> runs) throws IOException {
+		int workers = Math.min(numberOfWorkers, listOfFiles.length);
+		if (workers <= 1) {
+			indexFiles(listOfFiles, 0, listOfFiles.length, analyzers,
+					memoryBudget, runs);
+			return;
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(workers);
+		List<Future<List<List<File>>>> workerRuns = new ArrayList<Future<List<List<File>>>>();
+		try {
+			for (int worker = 0; worker < workers; worker++) {
+				int from = (int) ((long) listOfFiles.length * worker / workers);
+				int to = (int) ((long) listOfFiles.length * (worker + 1) / workers);
+				workerRuns.add(executor.submit(newWorker(listOfFiles, from, to,
+						analyzers, memoryBudget / workers)));
+			}
+			for (Future<List<List<File>>> runsOfWorker : workerRuns) {
+				List<List<File>> runsOfAnalyzers = runsOfWorker.get();
+				for (int i = 0; i < analyzers.length; i++) {
+					runs.get(i).addAll(runsOfAnalyzers.get(i));
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while building the index", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException)
+				throw (IOException) cause;
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			throw new IOException(cause);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * This method creates the task of a single worker which indexes the files
+	 * from the given range and returns the runs of every analyzer.
+	 *
+	 * @param listOfFiles
+	 * @param from
+	 * @param to
+	 * @param analyzers
+	 * @param budget
+	 * @return
+	 */
+	private static Callable<List<List<File>>> newWorker(
+			final File[] listOfFiles, final int from, final int to,
+			final DocumentAnalyzer[] analyzers, final long budget) {
+		return new Callable<List<List<File>>>() {
+			public List<List<File>> call() throws IOException {
+				List<List<File>> runs = new ArrayList<List<File>>();
+				for (int i = 0; i < analyzers.length; i++) {
+					runs.add(new ArrayList<File>());
+				}
+				try {
+					indexFiles(listOfFiles, from, to, analyzers, budget, runs);
+				} catch (IOException e) {
+					deleteRuns(runs);
+					throw e;
+				}
+				return runs;
+			}
+		};
+	}
+
+	/**
+	 * This method parses the files from the given range one after the other,
+	 * inserts the text of every file analyzed by every analyzer into the block
+	 * of the analyzer, and writes the blocks to runs whenever they reach the
+	 * budget together.
+	 *
+	 * @param listOfFiles
+	 * @param from
+	 *            first file of the range, inclusive.
+	 * @param to
+	 *            last file of the range, exclusive.
+	 * @param analyzers
+	 * @param budget
+	 * @param runs
+	 *            runs of every analyzer.
+	 * @throws IOException
+	 */
+	private static void indexFiles(File[] listOfFiles, int from, int to,
+			DocumentAnalyzer[] analyzers, long budget, List<List<File>> runs)
+			throws IOException {
+		Block[] blocks = newBlocks(analyzers.length);
+		for (int f = from; f < to; f++) {
+			int docId = Util.getDocId(listOfFiles[f]);
+			String text = Util.getDocumentText(listOfFiles[f]);
+			long estimatedSize = 0;
+			for (int i = 0; i < analyzers.length; i++) {
+				blocks[i].insert(docId, analyzers[i].analyze(docId, text));
+				estimatedSize += blocks[i].estimatedSize;
+			}
+			if (estimatedSize >= budget) {
+				writeRuns(blocks, runs);
+				blocks = newBlocks(analyzers.length);
+			}
+		}
+		writeRuns(blocks, runs);
+	}
+
+	/**
+	 * This method creates an empty block for every analyzer.
+	 *
+	 * @param numberOfAnalyzers
+	 * @return
+	 */
+	private static Block[] newBlocks(int numberOfAnalyzers) {
+		Block[] blocks = new Block[numberOfAnalyzers];
+		for (int i = 0; i < numberOfAnalyzers; i++) {
+			blocks[i] = new Block();
+		}
+		return blocks;
+	}
+
+	/**
+	 * This method writes the non-empty blocks to runs of their analyzers.
+	 *
+	 * @param blocks
+	 * @param runs
+	 * @throws IOException
+	 */
+	private static void writeRuns(Block[] blocks, List<List<File>> runs)
+			throws IOException {
+		for (int i = 0; i < blocks.length; i++) {
+			if (!blocks[i].isEmpty())
+				runs.get(i).add(writeRun(blocks[i]));
+		}
+	}
+
+	/**
+	 * This method writes a block to a new temporary run file. A run holds the
+	 * number of terms, then for every term in sorted order the term, the
+	 * number of postings and the docId and term frequency of every posting.
+	 *
+	 * @param block
+	 * @return
+	 * @throws IOException
+	 */
+	private static File writeRun(Block block) throws IOException {
+		File run = File.createTempFile("index", ".run");
+		run.deleteOnExit();
+		String[] terms = block.postingLists.keySet().toArray(
+				new String[block.postingLists.size()]);
+		Arrays.sort(terms);
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(run), RUN_BUFFER_SIZE));
+		try {
+			out.writeInt(terms.length);
+			for (String term : terms) {
+				PostingList postingList = block.postingLists.get(term);
+				out.writeUTF(term);
+				out.writeInt(postingList.size());
+				for (int i = 0; i < postingList.size(); i++) {
+					out.writeInt(postingList.docId(i));
+					out.writeInt(postingList.termFreq(i));
+				}
+			}
+		} finally {
+			out.close();
+		}
+		return run;
+	}
+
+	/**
+	 * This method merges consecutive groups of at most the merge fan-in runs
+	 * into longer runs, pass after pass, until there are no more runs than
+	 * the fan-in. The list is updated with the runs of every pass, keeping
+	 * the order of the runs, and the merged runs are deleted.
+	 *
+	 * @param runs
+	 * @throws IOException
+	 */
+	private void reduceRuns(List<File> runs) throws IOException {
+		while (runs.size() > mergeFanIn) {
+			List<File> longerRuns = new ArrayList<File>();
+			try {
+				for (int from = 0; from < runs.size(); from += mergeFanIn) {
+					int to = Math.min(from + mergeFanIn, runs.size());
+					longerRuns.add(mergeRuns(runs.subList(from, to)));
+				}
+			} catch (IOException e) {
+				for (File run : longerRuns) {
+					run.delete();
+				}
+				throw e;
+			}
+			for (File run : runs) {
+				run.delete();
+			}
+			runs.clear();
+			runs.addAll(longerRuns);
+		}
+	}
+
+	/**
+	 * This method merges runs into a new temporary run file, in the format
+	 * written by writeRun. The postings of a term are copied from one run
+	 * after the other, in the order of the runs, which is the order of their
+	 * docIds.
+	 *
+	 * @param runs
+	 * @return
+	 * @throws IOException
+	 */
+	private static File mergeRuns(List<File> runs) throws IOException {
+		File run = File.createTempFile("index", ".run");
+		run.deleteOnExit();
+		RunMerger merger = null;
+		DataOutputStream out = null;
+		int terms = 0;
+		try {
+			merger = new RunMerger(runs);
+			out = new DataOutputStream(new BufferedOutputStream(
+					new FileOutputStream(run), RUN_BUFFER_SIZE));
+			// the number of terms is written once they are merged.
+			out.writeInt(0);
+			String term;
+			while ((term = merger.nextTerm()) != null) {
+				out.writeUTF(term);
+				out.writeInt(merger.size());
+				for (RunReader reader : merger.runsOfTerm) {
+					for (int i = 0; i < reader.size; i++) {
+						out.writeInt(reader.in.readInt());
+						out.writeInt(reader.in.readInt());
+					}
+				}
+				terms++;
+			}
+			out.close();
+			out = null;
+			RandomAccessFile file = new RandomAccessFile(run, "rw");
+			try {
+				file.writeInt(terms);
+			} finally {
+				file.close();
+			}
+		} catch (IOException e) {
+			run.delete();
+			throw e;
+		} finally {
+			if (merger != null)
+				merger.close();
+			if (out != null)
+				out.close();
+		}
+		return run;
+	}
+
+	/**
+	 * This method merges the runs into the uncompressed index file. The
+	 * postings of a term are streamed to the file from one run after the
+	 * other, so that no posting list is held in memory.
+	 *
+	 * @param runs
+	 * @param uncompressedFile
+	 * @param docInfo
+	 * @throws IOException
+	 */
+	private static void mergeRuns(List<File> runs, File uncompressedFile,
+			Integer[][] docInfo) throws IOException {
+		RunMerger merger = new RunMerger(runs);
+		IndexWriter writer = null;
+		try {
+			writer = new IndexWriter(uncompressedFile, false);
+			writer.setDocInfo(docInfo);
+			String term;
+			while ((term = merger.nextTerm()) != null) {
+				writer.startPostingList(term, merger.size());
+				for (RunReader reader : merger.runsOfTerm) {
+					for (int i = 0; i < reader.size; i++) {
+						int docId = reader.in.readInt();
+						writer.addPosting(docId, reader.in.readInt());
+					}
+				}
+				writer.endPostingList();
+			}
+		} finally {
+			merger.close();
+			if (writer != null)
+				writer.close();
+		}
+	}
+
+	/**
+	 * This method writes the compressed index file from the uncompressed one,
+	 * which is mapped. The posting lists are decoded and encoded one at a
+	 * time.
+	 *
+	 * @param uncompressedFile
+	 * @param compressedFile
+	 * @param codecName
+	 * @param docInfo
+	 * @throws IOException
+	 */
+	private static void writeCompressedIndex(File uncompressedFile,
+			File compressedFile, String codecName, Integer[][] docInfo)
+			throws IOException {
+		IndexReader reader = IndexReader.map(uncompressedFile);
+		IndexWriter writer = new IndexWriter(compressedFile, true);
+		try {
+			writer.setDocInfo(docInfo);
+			for (int n = 0; n < reader.size(); n++) {
+				PostingList postingList = reader.getPostingList(n);
+				writer.addEncodedPostingList(reader.getTerm(n), postingList,
+						PostingCodecs.encodePostingList(postingList, codecName));
+			}
+		} finally {
+			writer.close();
+		}
+	}
+}
@@ -0,0 +1,171 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class memoizes the stems created by the Porter Stemmer. The same few
+ * thousand words occur in almost every document, so most of the tokens are
+ * stemmed only once for the whole collection.
+ *
+ * The cache is bounded: it is split into stripes, each of them a least
+ * recently used map guarded by its own lock, so that worker threads stemming
+ * different tokens rarely wait for each other. Every thread stems with a
+ * Stemmer of its own. A stem is a function of the token alone, so the stems
+ * do not depend on what is in the cache.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class StemCache {
+
+	/**
+	 * This is the number of tokens kept by the shared cache. It is read from
+	 * the "stem.cache" system property, 0 turns the cache off.
+	 */
+	private static final int SHARED_CAPACITY = Integer.getInteger(
+			"stem.cache", 1 << 16);
+
+	private static final int STRIPES = 16;
+
+	private static final StemCache shared = new StemCache(SHARED_CAPACITY);
+
+	private static final ThreadLocal<Stemmer> stemmers = new ThreadLocal<Stemmer>() {
+		protected Stemmer initialValue() {
+			return new Stemmer();
+		}
+	};
+
+	/**
+	 * This class is a stripe of the cache, evicting its least recently used
+	 * token once it is full.
+	 */
+	@SuppressWarnings("serial")
+	private static class Stripe extends LinkedHashMap<String, String> {
+		private int capacity;
+
+		Stripe(int capacity) {
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+		}
+
+		protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+			return size() > capacity;
+		}
+	}
+
+	private Stripe[] stripes;
+
+	private AtomicLong hits = new AtomicLong(), misses = new AtomicLong();
+
+	/**
+	 * The constructor creates an empty cache.
+	 *
+	 * @param capacity
+	 *            maximum number of tokens kept, 0 keeps none.
+	 */
+	public StemCache(int capacity) {
+		int stripeCapacity = (Math.max(0, capacity) + STRIPES - 1) / STRIPES;
+		this.stripes = new Stripe[STRIPES];
+		for (int i = 0; i < STRIPES; i++) {
+			stripes[i] = new Stripe(stripeCapacity);
+		}
+	}
+
+	/**
+	 * This method returns the cache shared by all the callers.
+	 *
+	 * @return
+	 */
+	public static StemCache getShared() {
+		return shared;
+	}
+
+	/**
+	 * This method stems a token with the Stemmer of the calling thread.
+	 *
+	 * @param token
+	 *            a lower case token.
+	 * @return
+	 */
+	public static String stemUncached(String token) {
+		Stemmer stemmer = stemmers.get();
+		stemmer.add(token, 0, token.length());
+		stemmer.stem();
+		return stemmer.toString();
+	}
+
+	/**
+	 * This method returns the stem of a token, stemming it only if it is not
+	 * in the cache.
+	 *
+	 * @param token
+	 *            a lower case token.
+	 * @return
+	 */
+	public String stem(String token) {
+		int hash = token.hashCode();
+		Stripe stripe = stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+		String stem;
+		synchronized (stripe) {
+			stem = stripe.get(token);
+		}
+		if (stem != null) {
+			hits.incrementAndGet();
+			return stem;
+		}
+		misses.incrementAndGet();
+		stem = stemUncached(token);
+		synchronized (stripe) {
+			stripe.put(token, stem);
+		}
+		return stem;
+	}
+
+	/**
+	 * This method returns the number of tokens in the cache.
+	 *
+	 * @return
+	 */
+	public int size() {
+		int size = 0;
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				size += stripe.size();
+			}
+		}
+		return size;
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * This method returns the share of the lookups found in the cache, or -1
+	 * if there has been none.
+	 *
+	 * @return
+	 */
+	public double getHitRate() {
+		long lookups = hits.get() + misses.get();
+		if (lookups == 0)
+			return -1;
+		return (double) hits.get() / lookups;
+	}
+
+	/**
+	 * This method returns a summary of the use of the cache.
+	 *
+	 * @return
+	 */
+	public String getReport() {
+		return String.format(
+				"Stem cache : %d hits, %d misses (%.2f%% hits), %d tokens cached",
+				hits.get(), misses.get(), 100.0d * Math.max(0, getHitRate()),
+				size());
+	}
+}
@@ -0,0 +1,132 @@
+/**
+ * This class holds a term as characters and as UTF-8 bytes in buffers which
+ * are reused for every term, so that a token can be stemmed and looked up in
+ * the dictionary of an index without creating a String for it:
+ *
+ * stemmer.add(tokenizer.buffer(), 0, tokenizer.length());
+ * stemmer.stem();
+ * term.set(stemmer.getResultBuffer(), 0, stemmer.getResultLength());
+ * int termNumber = indexReader.findTerm(term);
+ *
+ * The bytes are encoded only when they are asked for.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class TermBuffer {
+
+	private char[] chars = new char[32];
+	private int length;
+
+	private byte[] bytes = new byte[32];
+
+	/**
+	 * This is the number of bytes of the term, or -1 if the bytes have not
+	 * been encoded since the term was set.
+	 */
+	private int byteLength = -1;
+
+	/**
+	 * This method sets the term to length characters of chars starting at
+	 * offset.
+	 *
+	 * @param chars
+	 * @param offset
+	 * @param length
+	 */
+	public void set(char[] chars, int offset, int length) {
+		if (length > this.chars.length)
+			this.chars = new char[Math.max(length, 2 * this.chars.length)];
+		System.arraycopy(chars, offset, this.chars, 0, length);
+		this.length = length;
+		this.byteLength = -1;
+	}
+
+	/**
+	 * This method sets the term to the characters of a sequence.
+	 *
+	 * @param term
+	 */
+	public void set(CharSequence term) {
+		int length = term.length();
+		if (length > this.chars.length)
+			this.chars = new char[Math.max(length, 2 * this.chars.length)];
+		for (int i = 0; i < length; i++) {
+			this.chars[i] = term.charAt(i);
+		}
+		this.length = length;
+		this.byteLength = -1;
+	}
+
+	/**
+	 * This method returns the buffer holding the term in its first length()
+	 * characters.
+	 *
+	 * @return
+	 */
+	public char[] chars() {
+		return chars;
+	}
+
+	public int length() {
+		return length;
+	}
+
+	/**
+	 * This method returns the buffer holding the UTF-8 bytes of the term in
+	 * its first byteLength() bytes.
+	 *
+	 * @return
+	 */
+	public byte[] bytes() {
+		if (byteLength < 0)
+			encode();
+		return bytes;
+	}
+
+	public int byteLength() {
+		if (byteLength < 0)
+			encode();
+		return byteLength;
+	}
+
+	/**
+	 * This method encodes the characters as UTF-8. An unpaired surrogate is
+	 * encoded as "?", the way String.getBytes does it.
+	 */
+	private void encode() {
+		if (bytes.length < 4 * length)
+			bytes = new byte[4 * length];
+		int n = 0;
+		for (int i = 0; i < length; i++) {
+			char c = chars[i];
+			if (c < 0x80) {
+				bytes[n++] = (byte) c;
+			} else if (c < 0x800) {
+				bytes[n++] = (byte) (0xC0 | (c >> 6));
+				bytes[n++] = (byte) (0x80 | (c & 0x3F));
+			} else if (Character.isHighSurrogate(c) && i + 1 < length
+					&& Character.isLowSurrogate(chars[i + 1])) {
+				int codePoint = Character.toCodePoint(c, chars[++i]);
+				bytes[n++] = (byte) (0xF0 | (codePoint >> 18));
+				bytes[n++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+				bytes[n++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+				bytes[n++] = (byte) (0x80 | (codePoint & 0x3F));
+			} else if (Character.isSurrogate(c)) {
+				bytes[n++] = '?';
+			} else {
+				bytes[n++] = (byte) (0xE0 | (c >> 12));
+				bytes[n++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				bytes[n++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+		byteLength = n;
+	}
+
+	/**
+	 * This method returns the term as a string.
+	 */
+	public String toString() {
+		return new String(chars, 0, length);
+	}
+}
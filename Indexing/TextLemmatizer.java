@@ -0,0 +1,32 @@
+import java.util.Map;
+
+/**
+ * This interface represents a way of creating lemmas out of text. It is
+ * implemented by the CoreNLP based Lemmatizer, by a pool of them and by the
+ * dictionary based FastLemmatizer.
+ *
+ * Implementations are called from several worker threads at the same time.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public interface TextLemmatizer {
+
+	/**
+	 * This method lemmatizes the text of a document and returns the lemmas
+	 * present in the text along with their frequency in a map.
+	 *
+	 * @param text
+	 *            text of a document without SGML tags.
+	 * @return
+	 */
+	public Map<String, Integer> lemmatizeText(String text);
+
+	/**
+	 * This method returns the lemma of the last word of a string.
+	 *
+	 * @param string
+	 * @return
+	 */
+	public String lemmatize(String string);
+}
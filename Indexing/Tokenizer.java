@@ -0,0 +1,161 @@
+/**
+ * This class cuts the text of a document into processed tokens in a single
+ * scan over its characters. It creates exactly the tokens which
+ * Util.getRawTokens followed by Util.processToken create, without the regular
+ * expressions and the intermediate strings and lists:
+ *
+ * - a raw token is a run of letters, numbers, dots and "'", every other
+ * character (hyphens included) separates tokens.
+ *
+ * - letters are lower cased.
+ *
+ * - a raw token which is a single "." is dropped, the dots of any other raw
+ * token are removed, e.g. "U.N." becomes "un".
+ *
+ * - "'s" is removed from the end of the token, otherwise all the "'" are
+ * removed and the token is dropped if nothing is left.
+ *
+ * The token is written into a buffer which is reused for every token of the
+ * text, so only the tokens which are kept as strings are allocated.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class Tokenizer {
+
+	/**
+	 * This table tells which ASCII characters are part of a raw token.
+	 */
+	private static final boolean[] TOKEN_CHARS = new boolean[128];
+
+	static {
+		for (char c = 'a'; c <= 'z'; c++) {
+			TOKEN_CHARS[c] = true;
+			TOKEN_CHARS[Character.toUpperCase(c)] = true;
+		}
+		for (char c = '0'; c <= '9'; c++) {
+			TOKEN_CHARS[c] = true;
+		}
+		TOKEN_CHARS['.'] = true;
+		TOKEN_CHARS['\''] = true;
+	}
+
+	private CharSequence text;
+
+	/**
+	 * This is the position of the next character of the text to be scanned.
+	 */
+	private int position;
+
+	/**
+	 * This buffer holds the current token in its first length characters.
+	 */
+	private char[] token = new char[32];
+	private int length;
+
+	/**
+	 * The constructor initializes the tokenizer with the text to be scanned.
+	 *
+	 * @param text
+	 */
+	public Tokenizer(CharSequence text) {
+		reset(text);
+	}
+
+	/**
+	 * This method starts scanning a new text, reusing the buffer.
+	 *
+	 * @param text
+	 */
+	public void reset(CharSequence text) {
+		this.text = text;
+		this.position = 0;
+		this.length = 0;
+	}
+
+	private static boolean isTokenChar(char c) {
+		return c < 128 && TOKEN_CHARS[c];
+	}
+
+	/**
+	 * This method moves to the next token of the text and returns false if
+	 * there is none left. The token may be empty, as the raw token "'s" is.
+	 *
+	 * @return
+	 */
+	public boolean next() {
+		int end = text.length();
+		while (true) {
+			while (position < end && !isTokenChar(text.charAt(position)))
+				position++;
+			if (position == end)
+				return false;
+
+			// copy the raw token, lower cased and without dots.
+			int rawLength = 0, apostrophes = 0;
+			length = 0;
+			char c;
+			while (position < end && isTokenChar(c = text.charAt(position))) {
+				position++;
+				rawLength++;
+				if (c == '.')
+					continue;
+				if (c == '\'')
+					apostrophes++;
+				else if (c <= 'Z' && c >= 'A')
+					c += 'a' - 'A';
+				if (length == token.length) {
+					char[] newToken = new char[2 * length];
+					System.arraycopy(token, 0, newToken, 0, length);
+					token = newToken;
+				}
+				token[length++] = c;
+			}
+			// a single "." is not a token.
+			if (rawLength == 1 && length == 0)
+				continue;
+
+			if (length >= 2 && token[length - 2] == '\''
+					&& token[length - 1] == 's') {
+				length -= 2;
+				return true;
+			}
+			if (apostrophes > 0) {
+				int newLength = 0;
+				for (int i = 0; i < length; i++) {
+					if (token[i] != '\'')
+						token[newLength++] = token[i];
+				}
+				length = newLength;
+			}
+			if (length > 0)
+				return true;
+		}
+	}
+
+	/**
+	 * This method returns the buffer holding the current token in its first
+	 * length() characters. It is overwritten by the next call to next().
+	 *
+	 * @return
+	 */
+	public char[] buffer() {
+		return token;
+	}
+
+	/**
+	 * This method returns the length of the current token.
+	 *
+	 * @return
+	 */
+	public int length() {
+		return length;
+	}
+
+	/**
+	 * This method returns the current token as a string.
+	 */
+	public String toString() {
+		return new String(token, 0, length);
+	}
+}
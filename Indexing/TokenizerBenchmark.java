@@ -0,0 +1,111 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This program checks that the Tokenizer creates exactly the tokens of
+ * Util.getRawTokens followed by Util.processToken on every document of a
+ * directory, and then measures the throughput of both.
+ *
+ * Usage: TokenizerBenchmark <directory of documents>
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class TokenizerBenchmark {
+
+	/**
+	 * This is the number of times every measurement is repeated.
+	 */
+	private static final int ROUNDS = 10;
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 1) {
+			System.out.println("Usage: TokenizerBenchmark <directory>");
+			return;
+		}
+		File[] files = Util.getAllFiles(args[0]);
+		List<String> texts = new ArrayList<String>();
+		long characters = 0;
+		for (File file : files) {
+			String text = Util.getDocumentText(file);
+			texts.add(text);
+			characters += text.length();
+		}
+
+		long tokens = 0;
+		for (int i = 0; i < texts.size(); i++) {
+			List<String> expected = tokenizeWithRegex(texts.get(i));
+			List<String> actual = tokenizeWithScanner(texts.get(i));
+			if (!expected.equals(actual)) {
+				System.out.println("Tokens differ for " + files[i].getName()
+						+ "\nexpected : " + expected + "\nactual : " + actual);
+				System.exit(1);
+			}
+			tokens += expected.size();
+		}
+		System.out.println("Documents : " + texts.size() + ", characters : "
+				+ characters + ", tokens : " + tokens
+				+ ", all tokens identical");
+
+		long bestRegexTime = Long.MAX_VALUE, bestScannerTime = Long.MAX_VALUE;
+		long checksum = 0;
+		for (int round = 0; round < ROUNDS; round++) {
+			long startTime = System.nanoTime();
+			for (String text : texts) {
+				checksum += tokenizeWithRegex(text).size();
+			}
+			bestRegexTime = Math.min(bestRegexTime, System.nanoTime()
+					- startTime);
+
+			startTime = System.nanoTime();
+			Tokenizer tokenizer = new Tokenizer("");
+			for (String text : texts) {
+				tokenizer.reset(text);
+				while (tokenizer.next()) {
+					checksum += tokenizer.length();
+				}
+			}
+			bestScannerTime = Math.min(bestScannerTime, System.nanoTime()
+					- startTime);
+		}
+
+		System.out.printf("%-10s%18s%18s\n", "Path", "MB chars/s",
+				"M tokens/s");
+		print("regex", characters, tokens, bestRegexTime);
+		print("scanner", characters, tokens, bestScannerTime);
+		System.out.printf("Speedup : %.2fx (checksum %d)\n",
+				(double) bestRegexTime / bestScannerTime, checksum);
+	}
+
+	/**
+	 * This method creates the tokens of a text the way the indexer used to,
+	 * with regular expressions.
+	 *
+	 * @param text
+	 * @return
+	 */
+	private static List<String> tokenizeWithRegex(String text) {
+		List<String> tokens = new ArrayList<String>();
+		for (String rawToken : Util.getRawTokens(text)) {
+			tokens.addAll(Util.processToken(rawToken));
+		}
+		return tokens;
+	}
+
+	private static List<String> tokenizeWithScanner(String text) {
+		List<String> tokens = new ArrayList<String>();
+		Tokenizer tokenizer = new Tokenizer(text);
+		while (tokenizer.next()) {
+			tokens.add(tokenizer.toString());
+		}
+		return tokens;
+	}
+
+	private static void print(String path, long characters, long tokens,
+			long time) {
+		System.out.printf("%-10s%18.1f%18.2f\n", path, characters * 1000.0d
+				/ time, tokens * 1000.0d / time);
+	}
+}
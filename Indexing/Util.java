@@ -15,8 +15,6 @@ import java.util.Scanner;
 import java.util.Set;
 import java.util.TreeMap;
 
-import org.jsoup.Jsoup;
-
 /**
  * This class implement methods for manipulating/processing tokens and files..
  * 
@@ -37,7 +35,7 @@ public class Util {
 	 *            a String type.
 	 * @return ArrayList of type String.
 	 */
-	private static ArrayList<String> processToken(String rawToken) {
+	public static ArrayList<String> processToken(String rawToken) {
 		ArrayList<String> processedTokens = new ArrayList<String>();
 		ArrayList<String> processedTokensTemp = new ArrayList<String>();
 
@@ -87,27 +85,34 @@ public class Util {
 	}
 
 	/**
-	 * This method removes all the SGML tags in the file, remove everything
-	 * except letters(lower case, upper case), numbers, dots, "'" and returns
-	 * list of string by splitting them by spaces.
+	 * This method reads a file and returns its text with all the SGML tags
+	 * removed.
 	 * 
 	 * @param file
 	 *            a File type.
+	 * @return String
+	 * @throws IOException
+	 */
+	public static String getDocumentText(File file) throws IOException {
+		return SgmlReader.getText(file);
+	}
+
+	/**
+	 * This method removes everything except letters(lower case, upper case),
+	 * numbers, dots, "'" from the text of a document and returns list of
+	 * string by splitting them by spaces.
+	 * 
+	 * @param text
+	 *            text of a document without SGML tags.
 	 * @return ArrayList<String>
 	 */
-	public static ArrayList<String> removeSGMLTags(File file) {
+	public static ArrayList<String> getRawTokens(String text) {
 		ArrayList<String> listOfTokensInFile = new ArrayList<String>();
-		try {
-			String fileToString = Jsoup.parse(file, "UTF-8").text();
-			String[] tokensWithOutSpaces = fileToString
-					.replaceAll("[^a-zA-Z0-9'.]", " ").replaceAll("\\s+", " ")
-					.trim().split(" ");
-			for (String rawToken : tokensWithOutSpaces) {
-				if (rawToken.length() > 0)
-					listOfTokensInFile.add(rawToken.trim());
-			}
-		} catch (IOException e) {
-			e.printStackTrace();
+		String[] tokensWithOutSpaces = text.replaceAll("[^a-zA-Z0-9'.]", " ")
+				.replaceAll("\\s+", " ").trim().split(" ");
+		for (String rawToken : tokensWithOutSpaces) {
+			if (rawToken.length() > 0)
+				listOfTokensInFile.add(rawToken.trim());
 		}
 		return listOfTokensInFile;
 	}
@@ -142,28 +147,23 @@ public class Util {
 	}
 
 	/**
-	 * This method parses single file and creates tokens from it.
+	 * This method creates tokens from the text of a single document. The
+	 * tokens are the same as the ones created by processToken from the raw
+	 * tokens of getRawTokens, but the text is scanned only once.
 	 * 
-	 * @param file
-	 *            a File type
-	 * @throws FileNotFoundException
+	 * @param text
+	 *            text of a document without SGML tags.
 	 */
-	public static Map<String, Integer> getTokensFromFile(File file)
-			throws FileNotFoundException {
+	public static Map<String, Integer> getTokensFromText(String text) {
 		Map<String, Integer> tokens = new HashMap<String, Integer>();
-		ArrayList<String> listOfRawTokensInFile = Util.removeSGMLTags(file);
-		for (String rawToken : listOfRawTokensInFile) {
-			ArrayList<String> processedTokens = processToken(rawToken);
-			if (processedTokens != null) {
-				for (String processedToken : processedTokens) {
-					if (tokens.get(processedToken) == null)
-						tokens.put(processedToken, DEFAULT_TOKEN_COUNT);
-					else
-						tokens.put(processedToken,
-								tokens.get(processedToken) + 1);
-
-				}
-			}
+		Tokenizer tokenizer = new Tokenizer(text);
+		while (tokenizer.next()) {
+			String processedToken = tokenizer.toString();
+			Integer count = tokens.get(processedToken);
+			if (count == null)
+				tokens.put(processedToken, DEFAULT_TOKEN_COUNT);
+			else
+				tokens.put(processedToken, count + 1);
 		}
 		return tokens;
 	}
@@ -183,6 +183,17 @@ public class Util {
 		return listOfFiles;
 	}
 
+	/**
+	 * This method returns the document id of a Cranfield file, i.e. the number
+	 * following the "cranfield" prefix in the file name.
+	 * 
+	 * @param file
+	 * @return
+	 */
+	public static int getDocId(File file) {
+		return Integer.parseInt(file.getName().substring(9));
+	}
+
 	/**
 	 * This method returns the sorted list of words from given a file.
 	 * 
@@ -258,19 +269,17 @@ public class Util {
 
 	/**
 	 * This method do stemming on each term of the map and constructs a new map
-	 * with stemmed tokens.
+	 * with stemmed tokens. The stems are taken from the shared stem cache.
 	 * 
 	 * @param tokensFromFile
 	 * @return
 	 */
 	public static Map<String, Integer> getStemmedTokens(
 			Map<String, Integer> tokensFromFile) {
-		Stemmer stemmer = new Stemmer();
+		StemCache stemCache = StemCache.getShared();
 		Map<String, Integer> stemmedTokens = new HashMap<String, Integer>();
 		for (String token : tokensFromFile.keySet()) {
-			stemmer.add(token.toCharArray(), token.length());
-			stemmer.stem();
-			String stemmedToken = stemmer.toString();
+			String stemmedToken = stemCache.stem(token);
 			if (stemmedTokens.get(stemmedToken) == null)
 				stemmedTokens.put(stemmedToken, tokensFromFile.get(token));
 			else
@@ -280,80 +289,4 @@ public class Util {
 		return stemmedTokens;
 	}
 
-	/**
-	 * This method encodes an integer using delta encoding.
-	 * 
-	 * @param gaps
-	 * @return
-	 */
-	public static short deltaEncoding(Integer gaps) {
-		int count = 1;
-		// int unary = 0;
-		int n = gaps;
-		while (n > 1) {
-			n = n / 2;
-			count++;
-
-		}
-		// System.out.println(count);
-		int code = gammaEncoding(count);
-		int count1 = 0;
-		// System.out.println(code);
-		// int unary1=0;
-		int n1 = gaps;
-		while (n1 != 1) {
-			n1 = n1 / 2;
-			count1++;
-
-		}
-		// System.out.println(count1);
-		// int holdcnt1= count1;
-		int k = gaps;
-		int y = 1 << count1;
-		y = y - 1;
-		// System.out.println(y);
-		k = k & y;
-		// System.out.println(k);
-		// System.out.println(k);
-		// System.out.println(code);
-		code = code << count1;
-		code = k | code;
-		// System.out.println(Integer.toBinaryString(code));
-		return (short) code;
-	}
-
-	/**
-	 * This method encodes an integer using delta encoding.
-	 * 
-	 * @param gaps
-	 * @return
-	 */
-	public static short gammaEncoding(Integer frequency) {
-		int count = 0;
-		int unary = 0;
-		int n = frequency;
-		while (n != 1) {
-			n = n / 2;
-			count++;
-
-		}
-		int holdcnt = count;
-		int k = frequency;
-		int y = 1 << count;
-		y = y - 1;
-		k = frequency & y;
-		// System.out.println(k);
-		while (count != 0) {
-			unary = unary << 1;
-			unary |= 1;
-			count--;
-		}
-		unary = unary << 1;
-		// System.out.println(unary);
-		unary = unary << holdcnt;
-		// System.out.println();
-		k = k | unary;
-		return (short) k;
-	}
-
 }
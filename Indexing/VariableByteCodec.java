@@ -0,0 +1,62 @@
+import java.nio.ByteBuffer;
+
+/**
+ * This codec writes every value in as few bytes as possible. Each byte holds 7
+ * bits of the value, lowest bits first, and its high bit tells whether more
+ * bytes of the same value follow.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class VariableByteCodec implements PostingCodec {
+
+	public int getId() {
+		return 3;
+	}
+
+	public String getName() {
+		return "vbyte";
+	}
+
+	/**
+	 * This method writes a single value.
+	 *
+	 * @param out
+	 * @param value
+	 */
+	public static void writeVInt(ByteWriter out, int value) {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	/**
+	 * This method reads a single value.
+	 *
+	 * @param in
+	 * @return
+	 */
+	public static int readVInt(ByteBuffer in) {
+		int b = in.get();
+		int value = b & 0x7F;
+		for (int shift = 7; b < 0; shift += 7) {
+			b = in.get();
+			value |= (b & 0x7F) << shift;
+		}
+		return value;
+	}
+
+	public void encode(int[] values, int length, ByteWriter out) {
+		for (int i = 0; i < length; i++) {
+			writeVInt(out, values[i]);
+		}
+	}
+
+	public void decode(ByteBuffer in, int[] values, int length) {
+		for (int i = 0; i < length; i++) {
+			values[i] = readVInt(in);
+		}
+	}
+}
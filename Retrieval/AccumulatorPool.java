@@ -0,0 +1,110 @@
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * This class lends score accumulators to queries and takes them back once the
+ * query is ranked, so that querying does not allocate accumulators once the
+ * pool holds as many as the queries running at the same time use. Dense
+ * accumulators grow to the largest capacity asked for and stay that large.
+ * Only the accumulators are pooled: every query still allocates its top k
+ * collectors, its rankings and arrays indexed by query term, whose size does
+ * not depend on the size of the collection.
+ *
+ * The kind of accumulator is selected by the "query.accumulator" system
+ * property: "dense", "sparse", or "auto", the default, which lends a sparse
+ * accumulator when the query is expected to touch less than a sixteenth of the
+ * documents.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class AccumulatorPool {
+
+	private final String mode;
+
+	/**
+	 * A sparse accumulator is lent when the expected number of touched
+	 * documents times this density is less than the capacity.
+	 */
+	private static final int SPARSE_DENSITY = 16;
+
+	private static volatile AccumulatorPool shared = new AccumulatorPool();
+
+	private ConcurrentLinkedQueue<DenseAccumulator> denseAccumulators = new ConcurrentLinkedQueue<DenseAccumulator>();
+	private ConcurrentLinkedQueue<SparseAccumulator> sparseAccumulators = new ConcurrentLinkedQueue<SparseAccumulator>();
+
+	/**
+	 * The constructor creates a pool lending the kind of accumulators selected
+	 * by the system property.
+	 */
+	public AccumulatorPool() {
+		this(System.getProperty("query.accumulator", "auto"));
+	}
+
+	/**
+	 * The constructor creates a pool lending the given kind of accumulators.
+	 *
+	 * @param mode
+	 *            dense, sparse or auto.
+	 */
+	public AccumulatorPool(String mode) {
+		if (!mode.equals("dense") && !mode.equals("sparse")
+				&& !mode.equals("auto"))
+			throw new IllegalArgumentException("Unknown accumulator: " + mode);
+		this.mode = mode;
+	}
+
+	/**
+	 * This method returns the pool shared by all the queries.
+	 *
+	 * @return
+	 */
+	public static AccumulatorPool getShared() {
+		return shared;
+	}
+
+	/**
+	 * This method replaces the pool shared by the queries ranked from now on.
+	 *
+	 * @param pool
+	 */
+	public static void setShared(AccumulatorPool pool) {
+		shared = pool;
+	}
+
+	/**
+	 * This method lends an empty accumulator.
+	 *
+	 * @param capacity
+	 *            one more than the largest docId to be added.
+	 * @param expectedDocs
+	 *            estimate of the number of documents to be touched.
+	 * @return
+	 */
+	public ScoreAccumulator borrow(int capacity, long expectedDocs) {
+		if (mode.equals("sparse")
+				|| (mode.equals("auto") && expectedDocs * SPARSE_DENSITY < capacity)) {
+			SparseAccumulator accumulator = sparseAccumulators.poll();
+			if (accumulator == null)
+				accumulator = new SparseAccumulator((int) expectedDocs);
+			return accumulator;
+		}
+		DenseAccumulator accumulator = denseAccumulators.poll();
+		if (accumulator == null)
+			accumulator = new DenseAccumulator(capacity);
+		accumulator.ensureCapacity(capacity);
+		return accumulator;
+	}
+
+	/**
+	 * This method clears an accumulator and takes it back into the pool.
+	 *
+	 * @param accumulator
+	 */
+	public void release(ScoreAccumulator accumulator) {
+		accumulator.clear();
+		if (accumulator instanceof DenseAccumulator)
+			denseAccumulators.offer((DenseAccumulator) accumulator);
+		else if (accumulator instanceof SparseAccumulator)
+			sparseAccumulators.offer((SparseAccumulator) accumulator);
+	}
+}
@@ -0,0 +1,89 @@
+/**
+ * This class groups the documents of a collection by their baseline key for a
+ * weighing function, so that the documents containing none of the query terms
+ * can be ranked key by key: they all have the same score within a key, and
+ * are ranked by ascending docId.
+ *
+ * The docIds are sorted by key and then by docId with a counting sort, the
+ * documents of key x being at positions start(x) to end(x) - 1.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class BaselineKeyIndex {
+
+	private int[] keyStarts;
+	private int[] docIds;
+
+	/**
+	 * This flag is set for the keys of which a document has a docLen or a
+	 * maxF above 0, i.e. may contain some term.
+	 */
+	private boolean[] hasTerms;
+
+	/**
+	 * The constructor groups the documents of a collection by the baseline key
+	 * of a weighing function.
+	 *
+	 * @param function
+	 * @param stats
+	 */
+	public BaselineKeyIndex(WeighingFunction function, CollectionStats stats) {
+		int keys = function.baselineKeys(stats);
+		int cs = stats.collectionSize();
+		this.keyStarts = new int[keys + 1];
+		this.docIds = new int[cs];
+		this.hasTerms = new boolean[keys];
+		for (int docId = 1; docId < cs + 1; docId++) {
+			int key = function.baselineKey(stats, docId);
+			keyStarts[key + 1]++;
+			if (stats.docLen(docId) > 0 || stats.maxF(docId) > 0)
+				hasTerms[key] = true;
+		}
+		for (int key = 0; key < keys; key++) {
+			keyStarts[key + 1] += keyStarts[key];
+		}
+		int[] next = new int[keys];
+		System.arraycopy(keyStarts, 0, next, 0, keys);
+		for (int docId = 1; docId < cs + 1; docId++) {
+			docIds[next[function.baselineKey(stats, docId)]++] = docId;
+		}
+	}
+
+	/**
+	 * This method returns one more than the largest key.
+	 *
+	 * @return
+	 */
+	public int keys() {
+		return hasTerms.length;
+	}
+
+	public int start(int key) {
+		return keyStarts[key];
+	}
+
+	public int end(int key) {
+		return keyStarts[key + 1];
+	}
+
+	/**
+	 * This method returns the docId at the given position.
+	 *
+	 * @param i
+	 * @return
+	 */
+	public int docId(int i) {
+		return docIds[i];
+	}
+
+	/**
+	 * This method tells whether a document of the key may contain some term.
+	 *
+	 * @param key
+	 * @return
+	 */
+	public boolean hasTerms(int key) {
+		return hasTerms[key];
+	}
+}
@@ -0,0 +1,79 @@
+/**
+ * This class gives the score of a query for the documents containing none of
+ * its terms, as if every term had a term frequency of 0. Such a score depends
+ * on the document only through the baseline key of the weighing function, so
+ * it is computed once per key and kept in accumulators borrowed from the
+ * accumulator pool, indexed by the key. The terms are added in the order of
+ * the query, so the score is exactly the one of scoring the document term by
+ * term.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class BaselineScores {
+
+	private CollectionStats stats;
+	private double[] idf;
+	private WeighingFunction[] functions;
+	private ScoreAccumulator[] baselines;
+
+	/**
+	 * The constructor borrows an accumulator for each weighing function, which
+	 * are given back by release.
+	 *
+	 * @param stats
+	 * @param idf
+	 *            idf of the query terms in the order of the query.
+	 * @param functions
+	 */
+	public BaselineScores(CollectionStats stats, double[] idf,
+			WeighingFunction[] functions) {
+		this.stats = stats;
+		this.idf = idf;
+		this.functions = functions;
+		this.baselines = new ScoreAccumulator[functions.length];
+		AccumulatorPool pool = AccumulatorPool.getShared();
+		try {
+			for (int f = 0; f < functions.length; f++) {
+				baselines[f] = pool.borrow(functions[f].baselineKeys(stats),
+						stats.collectionSize());
+			}
+		} catch (RuntimeException e) {
+			release();
+			throw e;
+		}
+	}
+
+	/**
+	 * This method returns the score of a document containing none of the
+	 * query terms using the weighing function at the given position.
+	 *
+	 * @param function
+	 * @param docId
+	 * @return
+	 */
+	public double score(int function, int docId) {
+		WeighingFunction weighingFunction = functions[function];
+		ScoreAccumulator baseline = baselines[function];
+		int key = weighingFunction.baselineKey(stats, docId);
+		if (!baseline.isTouched(key)) {
+			baseline.touch(key);
+			for (int t = 0; t < idf.length; t++) {
+				baseline.add(key, weighingFunction.score(0, idf[t], stats, docId));
+			}
+		}
+		return baseline.score(key);
+	}
+
+	/**
+	 * This method gives the accumulators back to the pool.
+	 */
+	public void release() {
+		AccumulatorPool pool = AccumulatorPool.getShared();
+		for (int f = 0; f < baselines.length; f++) {
+			if (baselines[f] != null)
+				pool.release(baselines[f]);
+			baselines[f] = null;
+		}
+	}
+}
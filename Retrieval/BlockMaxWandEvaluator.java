@@ -0,0 +1,132 @@
+import java.util.Arrays;
+
+/**
+ * This class ranks the documents for a query with the Block-Max WAND
+ * algorithm (Ding and Suel, Faster top-k document retrieval using block-max
+ * indexes).
+ *
+ * The pivot is found as in WAND, with the bounds of the gains of the whole
+ * posting lists. The bounds of the gains of the blocks holding the pivot
+ * document are then added up; if they cannot make it into the top k, no
+ * document up to the end of the shortest of these blocks can, and the
+ * iterators skip past it without reading the postings in between. The bounds
+ * of the blocks are computed only for the blocks which are reached.
+ *
+ * Skipping a block only saves decoding when the postings are read in place or
+ * already decoded in the heap. The posting lists of a mapped compressed file
+ * are encoded as a whole and decoded entirely when their cursor is created,
+ * so there the blocks would save scoring work only; the evaluator is
+ * restricted to the other layouts and falls back to WAND for such files.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class BlockMaxWandEvaluator extends DynamicPruningEvaluator {
+
+	public String getName() {
+		return "BlockMaxWAND";
+	}
+
+	/**
+	 * This evaluator scores the documents of mapped compressed files.
+	 */
+	private WandEvaluator wand = new WandEvaluator();
+
+	protected void scoreMatchingDocuments(QueryState state) {
+		if (!state.index.hasDecodedPostings()) {
+			wand.scoreMatchingDocuments(state);
+			return;
+		}
+		PostingCursor[] postings = state.postings;
+		int m = postings.length, n = state.functions.length;
+		PostingBlocks[] blocks = new PostingBlocks[m];
+		// current block of every term and the bounds of the gains of its
+		// blocks for every weighing function, NaN until computed.
+		int[] currentBlock = new int[m];
+		double[][] blockGains = new double[m][];
+		int[] order = new int[m];
+		int active = 0;
+		for (int t = 0; t < m; t++) {
+			if (postings[t] == null
+					|| postings[t].nextDoc() == PostingsIterator.NO_MORE_DOCS)
+				continue;
+			blocks[t] = state.index.getPostingBlocks(state.queryTerms[t]);
+			blockGains[t] = new double[blocks[t].size() * n];
+			Arrays.fill(blockGains[t], Double.NaN);
+			order[active++] = t;
+		}
+		double[] maxGainSums = new double[n];
+		while (active > 0) {
+			active = WandEvaluator.sort(order, active, postings);
+			if (active == 0)
+				break;
+			int pivot = -1;
+			for (int f = 0; f < n; f++) {
+				maxGainSums[f] = 0.0d;
+			}
+			for (int i = 0; i < active && pivot < 0; i++) {
+				for (int f = 0; f < n; f++) {
+					maxGainSums[f] += state.maxGains[order[i]][f];
+				}
+				if (state.isCompetitive(maxGainSums))
+					pivot = i;
+			}
+			if (pivot < 0)
+				break;
+			int pivotDocId = postings[order[pivot]].docId();
+			while (pivot + 1 < active
+					&& postings[order[pivot + 1]].docId() == pivotDocId)
+				pivot++;
+
+			// add up the bounds of the blocks holding the pivot document.
+			int nextDocId = pivot + 1 < active ? postings[order[pivot + 1]]
+					.docId() : PostingsIterator.NO_MORE_DOCS;
+			for (int f = 0; f < n; f++) {
+				maxGainSums[f] = 0.0d;
+			}
+			for (int i = 0; i <= pivot; i++) {
+				int t = order[i];
+				int block = currentBlock[t];
+				while (block < blocks[t].size()
+						&& blocks[t].lastDocId(block) < pivotDocId)
+					block++;
+				currentBlock[t] = block;
+				// the postings of the term end before the pivot document.
+				if (block == blocks[t].size())
+					continue;
+				if (Double.isNaN(blockGains[t][block * n])) {
+					TermBounds bounds = blocks[t].bounds(block);
+					for (int f = 0; f < n; f++) {
+						blockGains[t][block * n + f] = widen(state.functions[f]
+								.maxGain(state.idf[t], bounds, state.stats));
+					}
+				}
+				for (int f = 0; f < n; f++) {
+					maxGainSums[f] += blockGains[t][block * n + f];
+				}
+				nextDocId = Math.min(nextDocId, blocks[t].lastDocId(block) + 1);
+			}
+
+			if (!state.isCompetitive(maxGainSums)) {
+				for (int i = 0; i <= pivot; i++) {
+					postings[order[i]].advance(nextDocId);
+				}
+			} else if (postings[order[0]].docId() == pivotDocId) {
+				if (state.isCompetitive(pivotDocId, maxGainSums)) {
+					for (int i = 0; i <= pivot; i++) {
+						state.tfs[order[i]] = postings[order[i]].freq();
+					}
+					state.evaluatedPostings += pivot + 1;
+					state.score(pivotDocId);
+				}
+				for (int i = 0; i <= pivot; i++) {
+					postings[order[i]].nextDoc();
+				}
+			} else {
+				for (int i = 0; postings[order[i]].docId() < pivotDocId; i++) {
+					postings[order[i]].advance(pivotDocId);
+				}
+			}
+		}
+	}
+}
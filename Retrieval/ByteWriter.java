@@ -0,0 +1,124 @@
+import java.util.Arrays;
+
+/**
+ * This class writes bytes into a growable byte array. Multi-byte numbers are
+ * written in big-endian order, which is the default order of ByteBuffer.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class ByteWriter {
+
+	/**
+	 * This is the initial size of the byte buffer.
+	 */
+	private static final int INITIAL_CAPACITY = 64;
+
+	/**
+	 * This buffer stores the bytes written so far.
+	 */
+	private byte[] buffer;
+
+	/**
+	 * This variable holds the number of bytes written so far.
+	 */
+	private int length;
+
+	/**
+	 * The constructor initializes an empty buffer.
+	 */
+	public ByteWriter() {
+		this.buffer = new byte[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * This method makes room for the given number of bytes.
+	 *
+	 * @param bytes
+	 */
+	private void ensureCapacity(int bytes) {
+		if (length + bytes > buffer.length)
+			buffer = Arrays.copyOf(buffer,
+					Math.max(buffer.length << 1, length + bytes));
+	}
+
+	/**
+	 * This method writes the lowest 8 bits of the value.
+	 *
+	 * @param value
+	 */
+	public void writeByte(int value) {
+		ensureCapacity(1);
+		buffer[length++] = (byte) value;
+	}
+
+	/**
+	 * This method writes an int in 4 bytes.
+	 *
+	 * @param value
+	 */
+	public void writeInt(int value) {
+		ensureCapacity(4);
+		buffer[length++] = (byte) (value >>> 24);
+		buffer[length++] = (byte) (value >>> 16);
+		buffer[length++] = (byte) (value >>> 8);
+		buffer[length++] = (byte) value;
+	}
+
+	/**
+	 * This method writes a long in 8 bytes.
+	 *
+	 * @param value
+	 */
+	public void writeLong(long value) {
+		writeInt((int) (value >>> 32));
+		writeInt((int) value);
+	}
+
+	/**
+	 * This method writes a part of a byte array.
+	 *
+	 * @param bytes
+	 * @param offset
+	 * @param count
+	 */
+	public void writeBytes(byte[] bytes, int offset, int count) {
+		ensureCapacity(count);
+		System.arraycopy(bytes, offset, buffer, length, count);
+		length += count;
+	}
+
+	/**
+	 * This method writes a whole byte array.
+	 *
+	 * @param bytes
+	 */
+	public void writeBytes(byte[] bytes) {
+		writeBytes(bytes, 0, bytes.length);
+	}
+
+	/**
+	 * This method returns the number of bytes written so far.
+	 *
+	 * @return
+	 */
+	public int size() {
+		return length;
+	}
+
+	/**
+	 * This method returns a copy of the bytes written so far.
+	 *
+	 * @return
+	 */
+	public byte[] toByteArray() {
+		return Arrays.copyOf(buffer, length);
+	}
+
+	/**
+	 * This method clears the buffer so that the writer can be reused.
+	 */
+	public void reset() {
+		length = 0;
+	}
+}
@@ -1,10 +1,9 @@
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
-import java.util.Set;
 import java.util.TreeMap;
 
 public class Client {
@@ -19,10 +18,22 @@ public class Client {
 	private static final String indexFile = "resources/Index_Version2.uncompress";
 
 	/**
-	 * This stores the location of doc.info file.
+	 * This stores the location of doc.info file, used only when the index file
+	 * does not contain the document information.
 	 */
 	private static final String docInfoFile = "resources/docs.info";
 
+	/**
+	 * This flag tells whether the index file is memory-mapped instead of being
+	 * loaded into the heap.
+	 */
+	private static final boolean mapIndex = Boolean.getBoolean("index.mapped");
+
+	/**
+	 * This is the number of top ranked documents printed for every query.
+	 */
+	private static final int TOP_DOCUMENTS = 10;
+
 	/**
 	 * This stores the location of file containing queries..
 	 */
@@ -56,34 +67,44 @@ public class Client {
 		queryFile = args[1];
 		stopWordFile = args[2];
 		long starTime = System.currentTimeMillis();
-		// Constructing index.
-		index.constructIndex(indexFile);
+		// Constructing or mapping index.
+		if (mapIndex)
+			index.mapIndex(indexFile);
+		else
+			index.constructIndex(indexFile);
 		// Loading document information.
-		index.loadDocInfo(docInfoFile);
+		if (!index.hasDocInfo())
+			index.loadDocInfo(docInfoFile);
 		// Getting all stop words.
 		TreeMap<String, String> stopWords = Util
 				.getStopWordsFromFile(stopWordFile);
 		// Getting all the queries.
-		String[] queries = getQueries(queryFile);
-		int queryCount = 1;
-		// Iterating over all queries.
-		for (String query : queries) {
-			if (query.length() != 0) {
-				Query q = new Query();
-				// Create index of the query and removing stop words.
-				q.indexQuery(query, stopWords);
-				// Calculate score of this query with each document and rank
-				// them.
-				q.generateRaking(index);
-				// Print the top 10 ranked documents using both weighing
-				// functions.
-				printQueryRanking(query, queryCount++, q.getRankingByW1(),
-						q.getRankingByW2(), cranfieldPrefix);
-			}
+		List<String> queries = new ArrayList<String>();
+		for (String query : getQueries(queryFile)) {
+			if (query.length() != 0)
+				queries.add(query);
+		}
+		// Ranking the documents for all the queries, concurrently if an
+		// executor is selected, against a read-only view of the index.
+		QueryBatch batch = new QueryBatch(index, stopWords, TOP_DOCUMENTS);
+		Query[] rankedQueries = batch.rank(queries.toArray(new String[queries
+				.size()]));
+		// Print the top 10 ranked documents using both weighing functions, in
+		// the order of the query file.
+		for (int i = 0; i < rankedQueries.length; i++) {
+			printQueryRanking(queries.get(i), i + 1,
+					rankedQueries[i].getRankingByW1(),
+					rankedQueries[i].getRankingByW2(), cranfieldPrefix);
 		}
 		long endTime = System.currentTimeMillis();
 		System.out.printf("\n%s : %.2f secs\n", "Total time taken",
 				(endTime - starTime) / 1000.0d);
+		if (Query.getEvaluator() instanceof DynamicPruningEvaluator)
+			System.out.println(((DynamicPruningEvaluator) Query.getEvaluator())
+					.getReport());
+		if (Query.getEvaluator() instanceof ScoreAtATimeEvaluator)
+			System.out.println(((ScoreAtATimeEvaluator) Query.getEvaluator())
+					.getReport());
 	}
 
 	/**
@@ -98,40 +119,37 @@ public class Client {
 	 * @throws IOException
 	 */
 	private static void printQueryRanking(String query, int queryCount,
-			Map<Integer, Double> rankingByW1, Map<Integer, Double> rankingByW2,
-			String cranfieldPrefix) throws IOException {
+			TopDocs rankingByW1, TopDocs rankingByW2, String cranfieldPrefix)
+			throws IOException {
 		System.out
 				.println("***************************************************************************************");
 		System.out.println("Q" + queryCount + ": " + query);
 		System.out
 				.println("\n************************* Using Weighing Function 1 ***********************************");
-		System.out.printf("%4s\t%5s\t%5s\t%s\n", "Rank", "DocId", "Score",
-				"Document Headline");
-		Set<Integer> topDocsByW1 = rankingByW1.keySet();
-		Iterator<Integer> topDocByW1 = topDocsByW1.iterator();
-		for (int i = 0; i < 10 && topDocByW1.hasNext(); i++) {
-			int docId = topDocByW1.next();
-			System.out
-					.printf("%4d\t%5d\t%.2f\t%s\n",
-							i + 1,
-							docId,
-							rankingByW1.get(docId),
-							Util.getDocTitle(cranfieldPrefix, docId).replace(
-									"\n", " "));
-		}
+		printTopDocs(rankingByW1, cranfieldPrefix);
 		System.out
 				.println("\n************************* Using Weighing Function 2 ***********************************");
+		printTopDocs(rankingByW2, cranfieldPrefix);
+	}
+
+	/**
+	 * Method prints ranked documents along with their headline.
+	 * 
+	 * @param topDocs
+	 * @param cranfieldPrefix
+	 * @throws IOException
+	 */
+	private static void printTopDocs(TopDocs topDocs, String cranfieldPrefix)
+			throws IOException {
 		System.out.printf("%4s\t%5s\t%5s\t%s\n", "Rank", "DocId", "Score",
 				"Document Headline");
-		Set<Integer> topDocsByW2 = rankingByW2.keySet();
-		Iterator<Integer> topDocByW2 = topDocsByW2.iterator();
-		for (int i = 0; i < 10 && topDocByW2.hasNext(); i++) {
-			int docId = topDocByW2.next();
+		for (int i = 0; i < topDocs.size(); i++) {
+			int docId = topDocs.docId(i);
 			System.out
 					.printf("%4d\t%5d\t%.2f\t%s\n",
 							i + 1,
 							docId,
-							rankingByW2.get(docId),
+							topDocs.score(i),
 							Util.getDocTitle(cranfieldPrefix, docId).replace(
 									"\n", " "));
 		}
@@ -144,7 +162,7 @@ public class Client {
 	 * @return
 	 * @throws FileNotFoundException
 	 */
-	private static String[] getQueries(String file)
+	static String[] getQueries(String file)
 			throws FileNotFoundException {
 		scanner = new Scanner(new File(file));
 		StringBuilder allQueries = new StringBuilder();
@@ -0,0 +1,171 @@
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class holds the statistics of the collection needed by the weighing
+ * functions, computed once when the index is loaded: the collection size, the
+ * average document length, docLen / avgDocLen and log(maxF + 1) of every
+ * document in primitive arrays indexed by docId, and the idf of every term
+ * looked up so far.
+ *
+ * The values are computed with the same expressions the weighing functions
+ * used to evaluate for every (document, term) pair, so the scores do not
+ * change.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class CollectionStats {
+
+	private Index index;
+
+	private int collectionSize;
+
+	/**
+	 * These are the largest maxF and docLen of all the documents.
+	 */
+	private int largestMaxF, largestDocLen;
+
+	private double avgDocLen;
+
+	/**
+	 * These arrays are indexed by docId, element 0 is not used.
+	 */
+	private int[] maxF, docLen;
+	private double[] docLenNorm, logMaxF;
+
+	/**
+	 * This map caches log(cs / df) / log(cs) of the terms, where df is one
+	 * more than the document frequency of the term.
+	 */
+	private ConcurrentHashMap<String, Double> idf = new ConcurrentHashMap<String, Double>();
+
+	/**
+	 * This map caches the documents grouped by the baseline key of every
+	 * weighing function asked for so far.
+	 */
+	private ConcurrentHashMap<WeighingFunction, BaselineKeyIndex> baselineKeyIndices = new ConcurrentHashMap<WeighingFunction, BaselineKeyIndex>();
+
+	/**
+	 * This map caches the impact-ordered layout of the index for every
+	 * weighing function asked for so far.
+	 */
+	private ConcurrentHashMap<WeighingFunction, ImpactIndex> impactIndices = new ConcurrentHashMap<WeighingFunction, ImpactIndex>();
+
+	/**
+	 * The constructor computes the statistics of the documents of an index.
+	 *
+	 * @param index
+	 */
+	public CollectionStats(Index index) {
+		this.index = index;
+		this.collectionSize = index.collectionSize();
+		this.avgDocLen = index.avgDocLen();
+		this.maxF = new int[collectionSize + 1];
+		this.docLen = new int[collectionSize + 1];
+		this.docLenNorm = new double[collectionSize + 1];
+		this.logMaxF = new double[collectionSize + 1];
+		for (int docId = 1; docId < collectionSize + 1; docId++) {
+			maxF[docId] = index.maxF(docId);
+			docLen[docId] = index.docLen(docId);
+			docLenNorm[docId] = docLen[docId] / avgDocLen;
+			logMaxF[docId] = Math.log(maxF[docId] + 1.0d);
+			largestMaxF = Math.max(largestMaxF, maxF[docId]);
+			largestDocLen = Math.max(largestDocLen, docLen[docId]);
+		}
+	}
+
+	public int collectionSize() {
+		return collectionSize;
+	}
+
+	public double avgDocLen() {
+		return avgDocLen;
+	}
+
+	public int largestMaxF() {
+		return largestMaxF;
+	}
+
+	public int largestDocLen() {
+		return largestDocLen;
+	}
+
+	public int maxF(int docId) {
+		return maxF[docId];
+	}
+
+	public int docLen(int docId) {
+		return docLen[docId];
+	}
+
+	/**
+	 * This method returns docLen / avgDocLen of a document.
+	 *
+	 * @param docId
+	 * @return
+	 */
+	public double docLenNorm(int docId) {
+		return docLenNorm[docId];
+	}
+
+	/**
+	 * This method returns log(maxF + 1) of a document.
+	 *
+	 * @param docId
+	 * @return
+	 */
+	public double logMaxF(int docId) {
+		return logMaxF[docId];
+	}
+
+	/**
+	 * This method returns log(cs / df) / log(cs) of a term, computing it only
+	 * the first time the term is looked up.
+	 *
+	 * @param term
+	 * @return
+	 */
+	public double idf(String term) {
+		Double termIdf = idf.get(term);
+		if (termIdf == null) {
+			int df = index.documentFreq(term) + 1;
+			termIdf = Math.log(collectionSize / df) / Math.log(collectionSize);
+			idf.put(term, termIdf);
+		}
+		return termIdf;
+	}
+
+	/**
+	 * This method returns the documents grouped by the baseline key of a
+	 * weighing function, grouping them only the first time the function is
+	 * asked for.
+	 *
+	 * @param function
+	 * @return
+	 */
+	public BaselineKeyIndex getBaselineKeyIndex(WeighingFunction function) {
+		BaselineKeyIndex keyIndex = baselineKeyIndices.get(function);
+		if (keyIndex == null) {
+			keyIndex = new BaselineKeyIndex(function, this);
+			baselineKeyIndices.put(function, keyIndex);
+		}
+		return keyIndex;
+	}
+
+	/**
+	 * This method returns the impact-ordered layout of the index for a
+	 * weighing function, creating it only the first time the function is asked
+	 * for.
+	 *
+	 * @param function
+	 * @return
+	 */
+	public ImpactIndex getImpactIndex(WeighingFunction function) {
+		ImpactIndex impactIndex = impactIndices.get(function);
+		if (impactIndex == null) {
+			impactIndex = new ImpactIndex(function, this, index);
+			impactIndices.put(function, impactIndex);
+		}
+		return impactIndex;
+	}
+}
@@ -0,0 +1,79 @@
+import java.util.Arrays;
+
+/**
+ * This class keeps the scores of the documents in an array indexed by
+ * docId, along with the list of the touched documents. It suits queries which
+ * touch a good part of the collection.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class DenseAccumulator implements ScoreAccumulator {
+
+	private double[] scores;
+	private boolean[] touched;
+
+	private int[] touchedDocIds;
+	private int touchedCount;
+
+	/**
+	 * The constructor creates an accumulator for the docIds from 0 to
+	 * capacity - 1.
+	 *
+	 * @param capacity
+	 */
+	public DenseAccumulator(int capacity) {
+		this.scores = new double[capacity];
+		this.touched = new boolean[capacity];
+		this.touchedDocIds = new int[capacity];
+	}
+
+	public void ensureCapacity(int capacity) {
+		if (capacity > scores.length) {
+			scores = Arrays.copyOf(scores, capacity);
+			touched = Arrays.copyOf(touched, capacity);
+			touchedDocIds = Arrays.copyOf(touchedDocIds, capacity);
+		}
+	}
+
+	public void touch(int docId) {
+		if (!touched[docId]) {
+			touched[docId] = true;
+			touchedDocIds[touchedCount++] = docId;
+		}
+	}
+
+	public void add(int docId, double value) {
+		touch(docId);
+		scores[docId] += value;
+	}
+
+	public double score(int docId) {
+		return scores[docId];
+	}
+
+	public boolean isTouched(int docId) {
+		return touched[docId];
+	}
+
+	public int touchedCount() {
+		return touchedCount;
+	}
+
+	public int touchedDocId(int i) {
+		return touchedDocIds[i];
+	}
+
+	public void sortTouched() {
+		Arrays.sort(touchedDocIds, 0, touchedCount);
+	}
+
+	public void clear() {
+		for (int i = 0; i < touchedCount; i++) {
+			int docId = touchedDocIds[i];
+			scores[docId] = 0.0d;
+			touched[docId] = false;
+		}
+		touchedCount = 0;
+	}
+}
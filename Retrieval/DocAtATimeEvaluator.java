@@ -0,0 +1,164 @@
+/**
+ * This class ranks the documents for a query a document at a time, with
+ * several weighing functions at once.
+ *
+ * The postings iterators of the query terms are merged through a binary
+ * min-heap ordered by their current docId, so every document containing at
+ * least one of the terms is visited once, in ascending order of docId, with
+ * the term frequencies of all the terms at hand. It is scored term by term in
+ * the order of the query and offered to the collectors right away, so no
+ * score accumulator is needed. The documents skipped between two visited ones
+ * contain none of the query terms and are scored by BaselineScores.
+ *
+ * This is the basis for the evaluators which skip postings with
+ * PostingsIterator.advance.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class DocAtATimeEvaluator implements QueryEvaluator {
+
+	public TopDocs[] evaluate(Index index, String[] queryTerms, int k,
+			WeighingFunction[] functions) {
+		CollectionStats stats = index.getCollectionStats();
+		int m = queryTerms.length;
+		double[] idf = new double[m];
+		PostingCursor[] postings = new PostingCursor[m];
+		for (int t = 0; t < m; t++) {
+			idf[t] = stats.idf(queryTerms[t]);
+			postings[t] = index.getPostingCursor(queryTerms[t]);
+		}
+
+		int n = functions.length;
+		TopKCollector[] topDocs = new TopKCollector[n];
+		for (int f = 0; f < n; f++) {
+			topDocs[f] = new TopKCollector(k);
+		}
+		scoreRange(stats, postings, idf, functions, 1,
+				stats.collectionSize() + 1, topDocs);
+		TopDocs[] rankings = new TopDocs[n];
+		for (int f = 0; f < n; f++) {
+			rankings[f] = topDocs[f].topDocs();
+		}
+		return rankings;
+	}
+
+	/**
+	 * This method scores the documents of a range of docIds and offers them
+	 * to the collectors.
+	 * 
+	 * @param stats
+	 * @param postings
+	 *            postings of the query terms before their first posting, null
+	 *            for the terms which are not in the index.
+	 * @param idf
+	 * @param functions
+	 * @param fromDocId
+	 *            first docId of the range.
+	 * @param toDocId
+	 *            one more than the last docId of the range.
+	 * @param topDocs
+	 *            collector of every weighing function.
+	 */
+	static void scoreRange(CollectionStats stats, PostingsIterator[] postings,
+			double[] idf, WeighingFunction[] functions, int fromDocId,
+			int toDocId, TopKCollector[] topDocs) {
+		int m = postings.length;
+		// heap of the positions of the query terms with postings left in the
+		// range.
+		int[] heap = new int[m];
+		int heapSize = 0;
+		for (int t = 0; t < m; t++) {
+			if (postings[t] != null
+					&& postings[t].advance(fromDocId) < toDocId)
+				heapSize = siftUp(heap, heapSize, t, postings);
+		}
+
+		int n = functions.length;
+		int[] tfs = new int[m];
+		BaselineScores baselines = new BaselineScores(stats, idf, functions);
+		try {
+			int nextDocId = fromDocId;
+			while (heapSize > 0) {
+				int docId = postings[heap[0]].docId();
+				for (; nextDocId < docId; nextDocId++) {
+					for (int f = 0; f < n; f++) {
+						topDocs[f].collect(nextDocId,
+								baselines.score(f, nextDocId));
+					}
+				}
+				// take the term frequencies of all the terms on this document.
+				while (heapSize > 0 && postings[heap[0]].docId() == docId) {
+					int t = heap[0];
+					tfs[t] = postings[t].freq();
+					if (postings[t].nextDoc() >= toDocId)
+						t = heap[--heapSize];
+					siftDown(heap, heapSize, t, postings);
+				}
+				for (int f = 0; f < n; f++) {
+					double score = 0.0d;
+					for (int t = 0; t < m; t++) {
+						score += functions[f].score(tfs[t], idf[t], stats, docId);
+					}
+					topDocs[f].collect(docId, score);
+				}
+				for (int t = 0; t < m; t++) {
+					tfs[t] = 0;
+				}
+				nextDocId = docId + 1;
+			}
+			for (; nextDocId < toDocId; nextDocId++) {
+				for (int f = 0; f < n; f++) {
+					topDocs[f].collect(nextDocId, baselines.score(f, nextDocId));
+				}
+			}
+		} finally {
+			baselines.release();
+		}
+	}
+
+	/**
+	 * This method adds a term to the end of the heap, sifts it up to its
+	 * place and returns the new size of the heap.
+	 */
+	static int siftUp(int[] heap, int size, int term,
+			PostingsIterator[] postings) {
+		int docId = postings[term].docId();
+		int i = size;
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (postings[heap[parent]].docId() <= docId)
+				break;
+			heap[i] = heap[parent];
+			i = parent;
+		}
+		heap[i] = term;
+		return size + 1;
+	}
+
+	/**
+	 * This method puts a term at the root of the heap of the given size and
+	 * sifts it down to its place.
+	 */
+	static void siftDown(int[] heap, int size, int term,
+			PostingsIterator[] postings) {
+		if (size == 0)
+			return;
+		int docId = postings[term].docId();
+		int i = 0;
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= size)
+				break;
+			if (child + 1 < size
+					&& postings[heap[child + 1]].docId() < postings[heap[child]]
+							.docId())
+				child++;
+			if (docId <= postings[heap[child]].docId())
+				break;
+			heap[i] = heap[child];
+			i = child;
+		}
+		heap[i] = term;
+	}
+}
@@ -0,0 +1,299 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class is the base of the query evaluators which find the top k
+ * documents without scoring every document containing a query term, and still
+ * rank them exactly the way scoring every document would.
+ *
+ * The score of a document is the sum of the scores of all the query terms,
+ * including the terms it does not contain, which score as if their term
+ * frequency was 0. It is split into the baseline score of the document, its
+ * score as if it contained none of the terms, and the gains of the terms it
+ * contains, each bounded by the maxGain of the weighing function. The
+ * documents are ranked in two steps:
+ *
+ * - the documents containing none of the terms are ranked key by key of the
+ * BaselineKeyIndex of each weighing function, and only the first documents of
+ * a key which can still make it into the top k are looked at. The largest
+ * baseline score of the documents which may contain terms is noted.
+ *
+ * - the documents containing the terms are visited by a subclass, which skips
+ * the documents whose largest baseline score plus the bounds of the gains of
+ * the terms they may contain cannot make it into the top k of any weighing
+ * function, and scores the other ones exactly, term by term in the order of
+ * the query.
+ *
+ * The bounds are widened by a relative and absolute slack, so that rounding
+ * errors cannot make a document be skipped wrongly. Ties are never skipped.
+ *
+ * The evaluator counts the postings of the query terms, the postings whose
+ * term frequency was read, and the document scores which were not computed
+ * compared to scoring every document with every weighing function.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public abstract class DynamicPruningEvaluator implements QueryEvaluator {
+
+	/**
+	 * This is the relative and absolute slack added to the bounds of the
+	 * gains.
+	 */
+	private static final double SLACK = 1e-9d;
+
+	private AtomicLong queries = new AtomicLong();
+	private AtomicLong postings = new AtomicLong();
+	private AtomicLong evaluatedPostings = new AtomicLong();
+	private AtomicLong documentScores = new AtomicLong();
+	private AtomicLong skippedDocumentScores = new AtomicLong();
+
+	/**
+	 * This class holds the state of the evaluation of a query.
+	 */
+	static class QueryState {
+
+		Index index;
+		String[] queryTerms;
+		CollectionStats stats;
+		WeighingFunction[] functions;
+		double[] idf;
+
+		/**
+		 * These are the postings of the query terms, null for the terms which
+		 * are not in the index.
+		 */
+		PostingCursor[] postings;
+
+		/**
+		 * These are the bounds of the gains of the query terms for every
+		 * weighing function, indexed by term and then by function.
+		 */
+		double[][] maxGains;
+
+		/**
+		 * This is the largest baseline score for every weighing function of
+		 * the documents which may contain terms.
+		 */
+		double[] maxBaselines;
+
+		/**
+		 * These are the term frequencies of the document being scored,
+		 * indexed by term.
+		 */
+		int[] tfs;
+
+		TopKCollector[] topDocs;
+		BaselineScores baselines;
+
+		/**
+		 * These are sums of bounds of gains for every weighing function.
+		 */
+		private double[] maxGainSums;
+
+		long postingsCount, evaluatedPostings, scoredDocuments,
+				baselineDocuments;
+
+		QueryState(Index index, String[] queryTerms, int k,
+				WeighingFunction[] functions) {
+			this.index = index;
+			this.queryTerms = queryTerms;
+			this.stats = index.getCollectionStats();
+			this.functions = functions;
+			int m = queryTerms.length, n = functions.length;
+			this.idf = new double[m];
+			this.postings = new PostingCursor[m];
+			this.maxGains = new double[m][n];
+			this.tfs = new int[m];
+			for (int t = 0; t < m; t++) {
+				idf[t] = stats.idf(queryTerms[t]);
+				postings[t] = index.getPostingCursor(queryTerms[t]);
+				if (postings[t] == null)
+					continue;
+				postingsCount += postings[t].size();
+				TermBounds bounds = index.getTermBounds(queryTerms[t]);
+				for (int f = 0; f < n; f++) {
+					maxGains[t][f] = widen(functions[f].maxGain(idf[t], bounds,
+							stats));
+				}
+			}
+			this.maxGainSums = new double[n];
+			this.maxBaselines = new double[n];
+			this.topDocs = new TopKCollector[n];
+			for (int f = 0; f < n; f++) {
+				maxBaselines[f] = Double.NEGATIVE_INFINITY;
+				topDocs[f] = new TopKCollector(k);
+			}
+			this.baselines = new BaselineScores(stats, idf, functions);
+		}
+
+		/**
+		 * This method ranks the documents containing none of the query terms
+		 * and notes the largest baseline scores.
+		 */
+		void collectBaselines() {
+			for (int f = 0; f < functions.length; f++) {
+				BaselineKeyIndex keyIndex = stats
+						.getBaselineKeyIndex(functions[f]);
+				for (int key = 0; key < keyIndex.keys(); key++) {
+					int start = keyIndex.start(key), end = keyIndex.end(key);
+					if (start == end)
+						continue;
+					double score = baselines.score(f, keyIndex.docId(start));
+					if (keyIndex.hasTerms(key)
+							&& Double.compare(score, maxBaselines[f]) > 0)
+						maxBaselines[f] = score;
+					// the documents of a key are ranked by ascending docId.
+					for (int i = start; i < end; i++) {
+						int docId = keyIndex.docId(i);
+						if (!topDocs[f].isCompetitive(docId, score))
+							break;
+						if (!containsTerms(docId)) {
+							topDocs[f].collect(docId, score);
+							baselineDocuments++;
+						}
+					}
+				}
+			}
+		}
+
+		/**
+		 * This method tells whether a document contains some query term.
+		 */
+		private boolean containsTerms(int docId) {
+			for (PostingCursor termPostings : postings) {
+				if (termPostings != null
+						&& termPostings.termFreqInDoc(docId) > 0)
+					return true;
+			}
+			return false;
+		}
+
+		/**
+		 * This method tells whether a document containing any of the query
+		 * terms, and whose gains are bounded by the given sums, may make it
+		 * into the top k of some weighing function.
+		 */
+		boolean isCompetitive(double[] maxGainSums) {
+			for (int f = 0; f < functions.length; f++) {
+				if (topDocs[f]
+						.isCompetitive(maxBaselines[f] + maxGainSums[f]))
+					return true;
+			}
+			return false;
+		}
+
+		/**
+		 * This method tells whether a document, whose gains are bounded by
+		 * the sums of the gains of the given terms, may make it into the top
+		 * k of some weighing function.
+		 */
+		boolean isCompetitive(int docId, int[] terms, int count) {
+			for (int f = 0; f < functions.length; f++) {
+				maxGainSums[f] = 0.0d;
+				for (int i = 0; i < count; i++) {
+					maxGainSums[f] += maxGains[terms[i]][f];
+				}
+			}
+			return isCompetitive(docId, maxGainSums);
+		}
+
+		/**
+		 * This method tells whether a document, whose gains are bounded by
+		 * the given sums, may make it into the top k of some weighing
+		 * function.
+		 */
+		boolean isCompetitive(int docId, double[] maxGainSums) {
+			for (int f = 0; f < functions.length; f++) {
+				if (topDocs[f].isCompetitive(docId,
+						baselines.score(f, docId) + maxGainSums[f]))
+					return true;
+			}
+			return false;
+		}
+
+		/**
+		 * This method scores a document with the term frequencies in tfs
+		 * using every weighing function, collects it, and resets tfs.
+		 */
+		void score(int docId) {
+			for (int f = 0; f < functions.length; f++) {
+				double score = 0.0d;
+				for (int t = 0; t < tfs.length; t++) {
+					score += functions[f].score(tfs[t], idf[t], stats, docId);
+				}
+				topDocs[f].collect(docId, score);
+			}
+			for (int t = 0; t < tfs.length; t++) {
+				tfs[t] = 0;
+			}
+			scoredDocuments++;
+		}
+	}
+
+	/**
+	 * This method widens the bound of a gain by the slack.
+	 *
+	 * @param maxGain
+	 * @return
+	 */
+	static double widen(double maxGain) {
+		return maxGain + Math.abs(maxGain) * SLACK + SLACK;
+	}
+
+	public TopDocs[] evaluate(Index index, String[] queryTerms, int k,
+			WeighingFunction[] functions) {
+		QueryState state = new QueryState(index, queryTerms, k, functions);
+		try {
+			state.collectBaselines();
+			scoreMatchingDocuments(state);
+		} finally {
+			state.baselines.release();
+		}
+		int n = functions.length;
+		long scores = (long) state.stats.collectionSize() * n;
+		queries.incrementAndGet();
+		postings.addAndGet(state.postingsCount);
+		evaluatedPostings.addAndGet(state.evaluatedPostings);
+		documentScores.addAndGet(scores);
+		skippedDocumentScores.addAndGet(scores - state.scoredDocuments * n
+				- state.baselineDocuments);
+		TopDocs[] rankings = new TopDocs[n];
+		for (int f = 0; f < n; f++) {
+			rankings[f] = state.topDocs[f].topDocs();
+		}
+		return rankings;
+	}
+
+	/**
+	 * This method scores the documents containing query terms which may make
+	 * it into the top k of some weighing function.
+	 *
+	 * @param state
+	 */
+	protected abstract void scoreMatchingDocuments(QueryState state);
+
+	/**
+	 * This method returns the name of the evaluator used in its report.
+	 *
+	 * @return
+	 */
+	public abstract String getName();
+
+	/**
+	 * This method returns a line telling how many document scores and
+	 * postings were skipped.
+	 *
+	 * @return
+	 */
+	public String getReport() {
+		long scores = documentScores.get(), skippedScores = skippedDocumentScores
+				.get();
+		long total = postings.get(), evaluated = evaluatedPostings.get();
+		return String.format(
+				"%s : %d queries, %d of %d document scores skipped (%.2f%%),"
+						+ " %d of %d postings evaluated (%.2f%%)", getName(),
+				queries.get(), skippedScores, scores, scores == 0 ? 0.0d
+						: 100.0d * skippedScores / scores, evaluated, total,
+				total == 0 ? 0.0d : 100.0d * evaluated / total);
+	}
+}
@@ -0,0 +1,81 @@
+import java.nio.ByteBuffer;
+
+/**
+ * This codec writes the values in groups of four. A group starts with a
+ * selector byte holding the number of bytes, minus one, of each of the four
+ * values in two bits, followed by the bytes of the values, lowest byte first.
+ * Decoding needs a single branch per group instead of one per byte.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class GroupVarIntCodec implements PostingCodec {
+
+	public int getId() {
+		return 4;
+	}
+
+	public String getName() {
+		return "groupvarint";
+	}
+
+	/**
+	 * This method returns the number of bytes needed for a value.
+	 *
+	 * @param value
+	 * @return
+	 */
+	private static int byteCount(int value) {
+		if ((value & 0xFFFFFF00) == 0)
+			return 1;
+		if ((value & 0xFFFF0000) == 0)
+			return 2;
+		if ((value & 0xFF000000) == 0)
+			return 3;
+		return 4;
+	}
+
+	public void encode(int[] values, int length, ByteWriter out) {
+		for (int group = 0; group < length; group += 4) {
+			int groupLength = Math.min(4, length - group);
+			int selector = 0;
+			for (int i = 0; i < groupLength; i++) {
+				selector |= (byteCount(values[group + i]) - 1) << (i * 2);
+			}
+			out.writeByte(selector);
+			for (int i = 0; i < groupLength; i++) {
+				int value = values[group + i];
+				int bytes = ((selector >>> (i * 2)) & 3) + 1;
+				for (int b = 0; b < bytes; b++) {
+					out.writeByte(value >>> (b * 8));
+				}
+			}
+		}
+	}
+
+	public void decode(ByteBuffer in, int[] values, int length) {
+		for (int group = 0; group < length; group += 4) {
+			int groupLength = Math.min(4, length - group);
+			int selector = in.get() & 0xFF;
+			for (int i = 0; i < groupLength; i++) {
+				int value;
+				switch ((selector >>> (i * 2)) & 3) {
+				case 0:
+					value = in.get() & 0xFF;
+					break;
+				case 1:
+					value = (in.get() & 0xFF) | (in.get() & 0xFF) << 8;
+					break;
+				case 2:
+					value = (in.get() & 0xFF) | (in.get() & 0xFF) << 8
+							| (in.get() & 0xFF) << 16;
+					break;
+				default:
+					value = (in.get() & 0xFF) | (in.get() & 0xFF) << 8
+							| (in.get() & 0xFF) << 16 | in.get() << 24;
+				}
+				values[group + i] = value;
+			}
+		}
+	}
+}
@@ -0,0 +1,92 @@
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class is the impact-ordered layout of an index for a weighing
+ * function. The impact of a posting is the gain of the term in the document,
+ * its score less the score it would have with a term frequency of 0,
+ * quantized to an integer from 0 to LEVELS - 1 on a scale of its own for
+ * every term: the largest gain of the postings of the term is given the
+ * highest impact, so that the postings of every term use all the levels. The
+ * scale is kept with the impact-ordered postings, which turn impacts back
+ * into gains that can be added up and compared across terms.
+ *
+ * The layout is built in memory from the docId-ordered posting lists of the
+ * index, the impact-ordered postings of a term being built the first time the
+ * term is looked up.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class ImpactIndex {
+
+	/**
+	 * This is the number of impact levels, impacts take 8 bits.
+	 */
+	public static final int LEVELS = 256;
+
+	private Index index;
+	private WeighingFunction function;
+	private CollectionStats stats;
+
+	private ConcurrentHashMap<String, ImpactPostings> postings = new ConcurrentHashMap<String, ImpactPostings>();
+
+	/**
+	 * The constructor creates the impact-ordered layout of an index for a
+	 * weighing function.
+	 *
+	 * @param function
+	 * @param stats
+	 * @param index
+	 */
+	public ImpactIndex(WeighingFunction function, CollectionStats stats,
+			Index index) {
+		this.function = function;
+		this.stats = stats;
+		this.index = index;
+	}
+
+	/**
+	 * This method returns the impact-ordered postings of a term, or null if
+	 * the term is not in the index.
+	 *
+	 * @param term
+	 * @return
+	 */
+	public ImpactPostings getPostings(String term) {
+		ImpactPostings termPostings = postings.get(term);
+		if (termPostings == null) {
+			PostingCursor cursor = index.getPostingCursor(term);
+			if (cursor == null)
+				return null;
+			double idf = stats.idf(term);
+			double[] gains = new double[cursor.size()];
+			double maxGain = 0.0d;
+			for (int i = 0; i < cursor.size(); i++) {
+				int docId = cursor.docId(i);
+				gains[i] = function.score(cursor.termFreq(i), idf, stats, docId)
+						- function.score(0, idf, stats, docId);
+				if (gains[i] > maxGain)
+					maxGain = gains[i];
+			}
+			double scale = maxGain / (LEVELS - 1);
+			int[] impacts = new int[gains.length];
+			for (int i = 0; i < gains.length; i++) {
+				impacts[i] = quantize(gains[i], scale);
+			}
+			termPostings = new ImpactPostings(cursor, impacts, LEVELS, scale);
+			postings.put(term, termPostings);
+		}
+		return termPostings;
+	}
+
+	/**
+	 * This method quantizes a gain to the nearest impact level, a gain which
+	 * is not a positive number giving an impact of 0.
+	 */
+	private static int quantize(double gain, double scale) {
+		if (!(gain > 0.0d) || !(scale > 0.0d))
+			return 0;
+		long impact = Math.round(gain / scale);
+		return (int) Math.max(1, Math.min(LEVELS - 1, impact));
+	}
+}
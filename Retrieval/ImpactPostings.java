@@ -0,0 +1,115 @@
+/**
+ * This class holds the postings of a term ordered by impact instead of docId:
+ * they are grouped into segments of postings of equal quantized impact, from
+ * the highest impact to the lowest, and sorted by docId within a segment. The
+ * postings of impact 0 add nothing to the scores and are left out.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class ImpactPostings {
+
+	/**
+	 * These are the impacts of the segments, in decreasing order, and the
+	 * positions of their first postings in docIds, followed by the number of
+	 * postings.
+	 */
+	private int[] impacts, segmentStarts;
+
+	private int[] docIds;
+
+	/**
+	 * This is the gain of an impact of 1.
+	 */
+	private double scale;
+
+	/**
+	 * The constructor groups the postings of a term into segments.
+	 *
+	 * @param postings
+	 * @param postingImpacts
+	 *            quantized impact of every posting.
+	 * @param levels
+	 *            one more than the highest impact.
+	 * @param scale
+	 *            gain of an impact of 1.
+	 */
+	ImpactPostings(PostingCursor postings, int[] postingImpacts, int levels,
+			double scale) {
+		this.scale = scale;
+		// counting sort of the postings by decreasing impact, which keeps
+		// them sorted by docId within an impact.
+		int[] counts = new int[levels];
+		int segments = 0;
+		for (int i = 0; i < postingImpacts.length; i++) {
+			if (postingImpacts[i] > 0 && counts[postingImpacts[i]]++ == 0)
+				segments++;
+		}
+		this.impacts = new int[segments];
+		this.segmentStarts = new int[segments + 1];
+		int[] next = new int[levels];
+		int segment = 0, position = 0;
+		for (int impact = levels - 1; impact > 0; impact--) {
+			if (counts[impact] == 0)
+				continue;
+			impacts[segment] = impact;
+			segmentStarts[segment++] = position;
+			next[impact] = position;
+			position += counts[impact];
+		}
+		segmentStarts[segments] = position;
+		this.docIds = new int[position];
+		for (int i = 0; i < postingImpacts.length; i++) {
+			if (postingImpacts[i] > 0)
+				docIds[next[postingImpacts[i]]++] = postings.docId(i);
+		}
+	}
+
+	/**
+	 * This method returns the number of segments.
+	 *
+	 * @return
+	 */
+	public int segments() {
+		return impacts.length;
+	}
+
+	/**
+	 * This method returns the quantized impact of the postings of a segment.
+	 *
+	 * @param segment
+	 * @return
+	 */
+	public int impact(int segment) {
+		return impacts[segment];
+	}
+
+	/**
+	 * This method returns the gain of the postings of a segment, on the scale
+	 * of the term.
+	 *
+	 * @param segment
+	 * @return
+	 */
+	public double gain(int segment) {
+		return impacts[segment] * scale;
+	}
+
+	public int start(int segment) {
+		return segmentStarts[segment];
+	}
+
+	public int end(int segment) {
+		return segmentStarts[segment + 1];
+	}
+
+	/**
+	 * This method returns the docId of the posting at the given position.
+	 *
+	 * @param i
+	 * @return
+	 */
+	public int docId(int i) {
+		return docIds[i];
+	}
+}
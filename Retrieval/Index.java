@@ -5,6 +5,7 @@ import java.io.ObjectInputStream;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class contains all the properties of an index and methods to process the
@@ -16,11 +17,11 @@ import java.util.TreeMap;
 public class Index {
 
 	/**
-	 * This map stores uncompressed index. Map has term as key and sorted
-	 * posting list as value. A posting list contains docId and term frequency
-	 * pair as key value.
+	 * This map stores uncompressed index. Map has term as key and posting list
+	 * sorted by docId as value. A posting list contains docId and term
+	 * frequency pairs.
 	 */
-	private Map<String, TreeMap<Integer, Integer>> index;
+	private Map<String, PostingList> index;
 
 	/**
 	 * This 2D array stores the frequency of most frequent term and doc length
@@ -29,19 +30,187 @@ public class Index {
 	private Integer[][] docInfo;
 
 	/**
-	 * Method constructs the index map using the binary file provided.
+	 * This reader holds the memory-mapped index file when the index is used
+	 * in mapped mode, in which case the map above is not built.
+	 */
+	private IndexReader mappedIndex;
+
+	/**
+	 * These are the statistics of the collection, computed the first time
+	 * they are asked for after the index and the document info are loaded.
+	 */
+	private CollectionStats collectionStats;
+
+	/**
+	 * This map stores the bounds of the postings of the terms, read from the
+	 * index file or computed the first time they are asked for.
+	 */
+	private ConcurrentHashMap<String, TermBounds> termBounds = new ConcurrentHashMap<String, TermBounds>();
+
+	/**
+	 * This map stores the blocks of the posting lists of the terms, read from
+	 * the index file or computed the first time they are asked for.
+	 */
+	private ConcurrentHashMap<String, PostingBlocks> postingBlocks = new ConcurrentHashMap<String, PostingBlocks>();
+
+	/**
+	 * This flag tells whether this index is a read-only view, which cannot be
+	 * loaded again.
+	 */
+	private boolean readOnly;
+
+	public Index() {
+	}
+
+	/**
+	 * This constructor creates a read-only view of an index. The view shares
+	 * the posting lists and the document info of the index, which are never
+	 * modified once loaded, and has its own caches and collection statistics,
+	 * so that loading the index again does not change the view.
+	 * 
+	 * @param source
+	 */
+	private Index(Index source) {
+		this.index = source.index;
+		this.docInfo = source.docInfo;
+		this.mappedIndex = source.mappedIndex;
+		this.termBounds.putAll(source.termBounds);
+		this.postingBlocks.putAll(source.postingBlocks);
+		this.readOnly = true;
+		this.collectionStats = new CollectionStats(this);
+	}
+
+	/**
+	 * This method returns a read-only view of this index, which can be shared
+	 * by threads ranking queries concurrently. Everything a query reads from
+	 * the view is either immutable, read in place from the mapped file with
+	 * absolute reads, or cached in concurrent maps.
+	 * 
+	 * @return
+	 */
+	public Index readOnlyView() {
+		if (this.readOnly)
+			return this;
+		return new Index(this);
+	}
+
+	/**
+	 * This method throws an IllegalStateException if this index is a
+	 * read-only view.
+	 */
+	private void checkWritable() {
+		if (this.readOnly)
+			throw new IllegalStateException("The index is a read-only view");
+	}
+
+	/**
+	 * Method constructs the index map using the index file provided. Index
+	 * files written by IndexWriter are read through IndexReader, and their
+	 * document info is loaded along with the posting lists. Serialized maps
+	 * written by older versions of the indexer are still accepted, posting
+	 * lists stored as TreeMap are converted to PostingList.
 	 * 
 	 * @param fileName
 	 * @throws IOException
 	 * @throws ClassNotFoundException
 	 */
-	@SuppressWarnings("unchecked")
 	public void constructIndex(String fileName) throws IOException,
 			ClassNotFoundException {
-		FileInputStream fis = new FileInputStream(new File(fileName));
+		checkWritable();
+		this.collectionStats = null;
+		this.termBounds.clear();
+		this.postingBlocks.clear();
+		File indexFile = new File(fileName);
+		if (IndexReader.isIndexFile(indexFile)) {
+			IndexReader reader = IndexReader.open(indexFile);
+			this.index = reader.readIndex();
+			if (reader.getNumberOfDocuments() > 0)
+				this.docInfo = reader.getDocInfo();
+			if (reader.hasPostingBounds()) {
+				for (int termNumber = 0; termNumber < reader.size(); termNumber++) {
+					this.termBounds.put(reader.getTerm(termNumber),
+							reader.getTermBounds(termNumber));
+				}
+			}
+			if (reader.hasPostingBlocks()) {
+				for (int termNumber = 0; termNumber < reader.size(); termNumber++) {
+					this.postingBlocks.put(reader.getTerm(termNumber), reader
+							.getPostingBlocks(termNumber).copy());
+				}
+			}
+		} else {
+			constructSerializedIndex(indexFile);
+		}
+	}
+
+	/**
+	 * Method maps the index file provided into memory instead of constructing
+	 * the index map. Terms are found by binary search in the mapped
+	 * dictionary and posting lists are read in place, so the time to open the
+	 * index does not depend on its size. The document info is read from the
+	 * mapped file as well if the file contains it. Compressed files can be
+	 * mapped too, but their posting lists are decoded on every access.
+	 * 
+	 * @param fileName
+	 * @throws IOException
+	 */
+	public void mapIndex(String fileName) throws IOException {
+		checkWritable();
+		this.collectionStats = null;
+		this.termBounds.clear();
+		this.postingBlocks.clear();
+		this.mappedIndex = IndexReader.map(new File(fileName));
+		this.index = null;
+	}
+
+	/**
+	 * Method constructs the index map from a serialized map of older versions
+	 * of the indexer.
+	 * 
+	 * @param indexFile
+	 * @throws IOException
+	 * @throws ClassNotFoundException
+	 */
+	@SuppressWarnings("unchecked")
+	private void constructSerializedIndex(File indexFile) throws IOException,
+			ClassNotFoundException {
+		FileInputStream fis = new FileInputStream(indexFile);
 		ObjectInputStream ois = new ObjectInputStream(fis);
-		this.index = (Map<String, TreeMap<Integer, Integer>>) ois.readObject();
+		Map<String, Object> storedIndex = (Map<String, Object>) ois
+				.readObject();
 		ois.close();
+		this.index = new TreeMap<String, PostingList>();
+		for (Map.Entry<String, Object> entry : storedIndex.entrySet()) {
+			Object postings = entry.getValue();
+			if (postings instanceof PostingList) {
+				this.index.put(entry.getKey(), (PostingList) postings);
+			} else {
+				TreeMap<Integer, Integer> oldPostings = (TreeMap<Integer, Integer>) postings;
+				int[] docIds = new int[oldPostings.size()];
+				int[] termFreqs = new int[oldPostings.size()];
+				int i = 0;
+				for (Map.Entry<Integer, Integer> posting : oldPostings
+						.entrySet()) {
+					docIds[i] = posting.getKey();
+					termFreqs[i] = posting.getValue();
+					i++;
+				}
+				this.index.put(entry.getKey(), new PostingList(docIds,
+						termFreqs, i));
+			}
+		}
+	}
+
+	/**
+	 * Method tells whether the document info has been loaded, either from the
+	 * index file or by loadDocInfo.
+	 * 
+	 * @return
+	 */
+	public boolean hasDocInfo() {
+		return this.docInfo != null
+				|| (this.mappedIndex != null && this.mappedIndex
+						.getNumberOfDocuments() > 0);
 	}
 
 	/**
@@ -54,6 +223,8 @@ public class Index {
 	 */
 	public void loadDocInfo(String fileName) throws IOException,
 			ClassNotFoundException {
+		checkWritable();
+		this.collectionStats = null;
 		FileInputStream fis = new FileInputStream(new File(fileName));
 		ObjectInputStream ois = new ObjectInputStream(fis);
 		this.docInfo = (Integer[][]) ois.readObject();
@@ -65,24 +236,103 @@ public class Index {
 	 * that term.
 	 */
 	public void printIndex() {
+		if (this.mappedIndex != null) {
+			for (int t = 0; t < this.mappedIndex.size(); t++) {
+				PostingCursor postings = this.mappedIndex.getPostingCursor(t);
+				System.out.print(this.mappedIndex.getTerm(t) + ": "
+						+ postings.size());
+				while (postings.next()) {
+					System.out.print(" " + postings.docId() + "-"
+							+ postings.termFreq());
+				}
+				System.out.println();
+			}
+			return;
+		}
 		Set<String> terms = this.index.keySet();
 		for (String term : terms) {
-			TreeMap<Integer, Integer> postingList = this.index.get(term);
+			PostingList postingList = this.index.get(term);
 			System.out.print(term + ": " + postingList.size());
-			for (Map.Entry<Integer, Integer> entry : postingList.entrySet()) {
-				System.out.print(" " + entry.getKey() + "-" + entry.getValue());
+			for (int i = 0; i < postingList.size(); i++) {
+				System.out.print(" " + postingList.docId(i) + "-"
+						+ postingList.termFreq(i));
 			}
 			System.out.println();
 		}
 	}
 
+	/**
+	 * This method tells whether the postings of a cursor are at hand without
+	 * decoding a whole posting list: they are in the heap, or read in place
+	 * from a mapped uncompressed file. The cursors of a mapped compressed file
+	 * decode their whole posting list when they are created.
+	 * 
+	 * @return
+	 */
+	public boolean hasDecodedPostings() {
+		return this.mappedIndex == null || !this.mappedIndex.isCompressed();
+	}
+
+	/**
+	 * This method returns the bounds of the postings of a term, or null if the
+	 * term is not in the index. They are read from index files of version 2,
+	 * and computed from the posting list for older index files.
+	 * 
+	 * @param term
+	 * @return
+	 */
+	public TermBounds getTermBounds(String term) {
+		if (this.mappedIndex != null && this.mappedIndex.hasPostingBounds()) {
+			int termNumber = this.mappedIndex.findTerm(term);
+			if (termNumber >= 0)
+				return this.mappedIndex.getTermBounds(termNumber);
+			return null;
+		}
+		TermBounds bounds = this.termBounds.get(term);
+		if (bounds == null) {
+			PostingCursor postings = getPostingCursor(term);
+			if (postings == null)
+				return null;
+			bounds = TermBounds.compute(postings, getCollectionStats());
+			this.termBounds.put(term, bounds);
+		}
+		return bounds;
+	}
+
+	/**
+	 * This method returns the blocks of the posting list of a term, or null if
+	 * the term is not in the index. They are read from index files of version
+	 * 3, and computed from the posting list for older index files.
+	 * 
+	 * @param term
+	 * @return
+	 */
+	public PostingBlocks getPostingBlocks(String term) {
+		if (this.mappedIndex != null && this.mappedIndex.hasPostingBlocks()) {
+			int termNumber = this.mappedIndex.findTerm(term);
+			if (termNumber >= 0)
+				return this.mappedIndex.getPostingBlocks(termNumber);
+			return null;
+		}
+		PostingBlocks blocks = this.postingBlocks.get(term);
+		if (blocks == null) {
+			PostingCursor postings = getPostingCursor(term);
+			if (postings == null)
+				return null;
+			blocks = PostingBlocks.compute(postings, getCollectionStats(),
+					IndexFormat.BLOCK_SIZE);
+			this.postingBlocks.put(term, blocks);
+		}
+		return blocks;
+	}
+
 	/**
 	 * Method print document info i.e. maxF and docLen for all the documents.
 	 */
 	public void printDocInfo() {
-		for (int i = 1; i < this.docInfo.length; i++) {
-			System.out.println("Doc " + i + " Max Freq " + this.docInfo[i][0]
-					+ " docLen " + this.docInfo[i][1]);
+		for (int i = 1; i < collectionSize() + 1; i++) {
+			System.out.println("Doc " + i + " Max Freq " + maxF(i)
+					+ " docLen " + docLen(i));
 		}
 	}
 
@@ -93,7 +343,13 @@ public class Index {
 	 * @return
 	 */
 	public int documentFreq(String term) {
-		TreeMap<Integer, Integer> postings = index.get(term);
+		if (this.mappedIndex != null) {
+			int termNumber = this.mappedIndex.findTerm(term);
+			if (termNumber >= 0)
+				return this.mappedIndex.getDocumentFreq(termNumber);
+			return 0;
+		}
+		PostingList postings = index.get(term);
 		if (postings != null)
 			return postings.size();
 		return 0;
@@ -106,14 +362,37 @@ public class Index {
 	 * @return
 	 */
 	public int termFreqInDoc(String term, int docId) {
-		TreeMap<Integer, Integer> postings = index.get(term);
-		int termFreq = 0;
-		if (postings != null) {
-			if (postings.containsKey(docId)) {
-				termFreq = postings.get(docId);
-			}
+		if (this.mappedIndex != null) {
+			int termNumber = this.mappedIndex.findTerm(term);
+			if (termNumber >= 0)
+				return this.mappedIndex.getPostingCursor(termNumber)
+						.termFreqInDoc(docId);
+			return 0;
+		}
+		PostingList postings = index.get(term);
+		if (postings != null)
+			return postings.termFreqInDoc(docId);
+		return 0;
+	}
+
+	/**
+	 * This method returns a cursor over the posting list of a term, or null if
+	 * the term is not in the index.
+	 * 
+	 * @param term
+	 * @return
+	 */
+	public PostingCursor getPostingCursor(String term) {
+		if (this.mappedIndex != null) {
+			int termNumber = this.mappedIndex.findTerm(term);
+			if (termNumber >= 0)
+				return this.mappedIndex.getPostingCursor(termNumber);
+			return null;
 		}
-		return termFreq;
+		PostingList postings = index.get(term);
+		if (postings != null)
+			return new PostingCursor(postings);
+		return null;
 	}
 
 	/**
@@ -123,6 +402,8 @@ public class Index {
 	 * @return
 	 */
 	public int docLen(int docId) {
+		if (this.docInfo == null)
+			return this.mappedIndex.getDocLen(docId);
 		return this.docInfo[docId][1];
 	}
 
@@ -134,11 +415,24 @@ public class Index {
 	public double avgDocLen() {
 		double avg = 0.0d;
 		for (int i = 1; i < collectionSize() + 1; i++) {
-			avg += this.docInfo[i][1];
+			avg += docLen(i);
 		}
 		return avg / collectionSize();
 	}
 
+	/**
+	 * Method returns the statistics of the collection used by the weighing
+	 * functions. They are computed once, after the index and the document info
+	 * have been loaded.
+	 * 
+	 * @return
+	 */
+	public synchronized CollectionStats getCollectionStats() {
+		if (this.collectionStats == null)
+			this.collectionStats = new CollectionStats(this);
+		return this.collectionStats;
+	}
+
 	/**
 	 * Method return the maxF of the given document id.
 	 * 
@@ -146,6 +440,8 @@ public class Index {
 	 * @return
 	 */
 	public int maxF(int docId) {
+		if (this.docInfo == null)
+			return this.mappedIndex.getMaxF(docId);
 		return this.docInfo[docId][0];
 	}
 
@@ -155,6 +451,8 @@ public class Index {
 	 * @return
 	 */
 	public int collectionSize() {
+		if (this.docInfo == null)
+			return this.mappedIndex.getNumberOfDocuments();
 		return this.docInfo.length - 1;
 	}
 }
@@ -0,0 +1,118 @@
+import java.nio.charset.Charset;
+
+/**
+ * This class holds the constants of the binary index file format.
+ *
+ * An index file starts with a fixed size header, followed by the posting lists
+ * of all the terms one after the other, the term dictionary, the bytes of the
+ * terms and the document information.
+ *
+ * Header: magic, version, flags, number of terms, number of documents, the
+ * number of postings per block (unused before version 3), and the offsets of
+ * the dictionary, the term bytes and the document information as longs.
+ *
+ * Dictionary: one fixed size entry per term, sorted by the UTF-8 bytes of the
+ * terms, so that a term can be found by binary search. An entry holds the
+ * offset and length of the term in the term bytes, the document frequency,
+ * the offset and length of the posting list, and the bounds of the postings
+ * used to bound the score of the term: the largest term frequency, and the
+ * smallest docLen and maxF of the documents containing the term, or 0 if the
+ * document information was not known when the list was written, and the
+ * offset of the blocks of the posting list. Version 1 entries have no bounds,
+ * and version 2 entries have no blocks.
+ *
+ * Posting lists: in an uncompressed index, all the docIds of the list followed
+ * by all the term frequencies, as ints. In a compressed index, the encoding of
+ * PostingCodecs. Every posting list is followed by its blocks: the postings
+ * are cut into blocks of a fixed number of postings, the last one possibly
+ * shorter, and for every block the last docId, the largest term frequency,
+ * and the smallest docLen and maxF of its documents are written, so that the
+ * score of the term in the documents of a block can be bounded without
+ * reading its postings.
+ *
+ * Document information: maxF and docLen of documents 1 to the number of
+ * documents, as ints.
+ *
+ * All numbers are big-endian.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class IndexFormat {
+
+	/**
+	 * This is the charset of the terms in the file.
+	 */
+	public static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * This is the magic number at the start of every index file, "CIDX".
+	 */
+	public static final int MAGIC = 0x43494458;
+
+	/**
+	 * This is the version of the format written by IndexWriter.
+	 */
+	public static final int VERSION = 3;
+
+	/**
+	 * This is the oldest version of the format which can still be read.
+	 */
+	public static final int MIN_VERSION = 1;
+
+	/**
+	 * This flag is set in compressed index files.
+	 */
+	public static final int FLAG_COMPRESSED = 1;
+
+	/**
+	 * These are the sizes in bytes of the header, a dictionary entry, a
+	 * posting of an uncompressed list and the information of a document.
+	 */
+	public static final int HEADER_SIZE = 48;
+	public static final int DICTIONARY_ENTRY_SIZE = 44;
+	public static final int V1_DICTIONARY_ENTRY_SIZE = 24;
+	public static final int V2_DICTIONARY_ENTRY_SIZE = 36;
+	public static final int BLOCK_ENTRY_SIZE = 16;
+	public static final int RAW_POSTING_SIZE = 8;
+	public static final int DOC_INFO_SIZE = 8;
+
+	/**
+	 * This is the number of postings per block written by IndexWriter.
+	 */
+	public static final int BLOCK_SIZE = 128;
+
+	/**
+	 * These are the offsets of the fields in the header.
+	 */
+	public static final int HEADER_MAGIC = 0;
+	public static final int HEADER_VERSION = 4;
+	public static final int HEADER_FLAGS = 8;
+	public static final int HEADER_TERMS = 12;
+	public static final int HEADER_DOCUMENTS = 16;
+	public static final int HEADER_BLOCK_SIZE = 20;
+	public static final int HEADER_DICTIONARY_OFFSET = 24;
+	public static final int HEADER_TERM_BYTES_OFFSET = 32;
+	public static final int HEADER_DOC_INFO_OFFSET = 40;
+
+	/**
+	 * These are the offsets of the fields in a dictionary entry.
+	 */
+	public static final int ENTRY_TERM_OFFSET = 0;
+	public static final int ENTRY_TERM_LENGTH = 4;
+	public static final int ENTRY_DOCUMENT_FREQ = 8;
+	public static final int ENTRY_POSTINGS_OFFSET = 12;
+	public static final int ENTRY_POSTINGS_LENGTH = 20;
+	public static final int ENTRY_MAX_TERM_FREQ = 24;
+	public static final int ENTRY_MIN_DOC_LEN = 28;
+	public static final int ENTRY_MIN_MAX_F = 32;
+	public static final int ENTRY_BLOCKS_OFFSET = 36;
+
+	/**
+	 * These are the offsets of the fields of a block.
+	 */
+	public static final int BLOCK_LAST_DOC_ID = 0;
+	public static final int BLOCK_MAX_TERM_FREQ = 4;
+	public static final int BLOCK_MIN_DOC_LEN = 8;
+	public static final int BLOCK_MIN_MAX_F = 12;
+}
@@ -0,0 +1,424 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * This class reads an index file in the format described in IndexFormat. The
+ * whole file is either read into a buffer with a single channel read or
+ * memory-mapped, and terms, posting lists and document information are decoded
+ * from that buffer on demand. Files are limited to 2 GB.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class IndexReader {
+
+	/**
+	 * This buffer holds the content of the index file.
+	 */
+	private ByteBuffer data;
+
+	private boolean compressed;
+	private int version;
+	private int numberOfTerms, numberOfDocuments;
+	private int entrySize, blockSize;
+	private int dictionaryOffset, termBytesOffset, docInfoOffset;
+
+	/**
+	 * This constructor reads an index file from a buffer holding its content.
+	 *
+	 * @param data
+	 * @throws IOException
+	 *             if the buffer does not hold an index file.
+	 */
+	public IndexReader(ByteBuffer data) throws IOException {
+		this.data = data;
+		if (data.limit() < IndexFormat.HEADER_SIZE
+				|| data.getInt(IndexFormat.HEADER_MAGIC) != IndexFormat.MAGIC)
+			throw new IOException("Not an index file");
+		this.version = data.getInt(IndexFormat.HEADER_VERSION);
+		if (version < IndexFormat.MIN_VERSION || version > IndexFormat.VERSION)
+			throw new IOException("Unsupported index file version " + version);
+		this.entrySize = version == 1 ? IndexFormat.V1_DICTIONARY_ENTRY_SIZE
+				: version == 2 ? IndexFormat.V2_DICTIONARY_ENTRY_SIZE
+						: IndexFormat.DICTIONARY_ENTRY_SIZE;
+		this.blockSize = version > 2 ? data
+				.getInt(IndexFormat.HEADER_BLOCK_SIZE) : 0;
+		this.compressed = (data.getInt(IndexFormat.HEADER_FLAGS) & IndexFormat.FLAG_COMPRESSED) != 0;
+		this.numberOfTerms = data.getInt(IndexFormat.HEADER_TERMS);
+		this.numberOfDocuments = data.getInt(IndexFormat.HEADER_DOCUMENTS);
+		this.dictionaryOffset = (int) data
+				.getLong(IndexFormat.HEADER_DICTIONARY_OFFSET);
+		this.termBytesOffset = (int) data
+				.getLong(IndexFormat.HEADER_TERM_BYTES_OFFSET);
+		this.docInfoOffset = (int) data
+				.getLong(IndexFormat.HEADER_DOC_INFO_OFFSET);
+	}
+
+	/**
+	 * This method reads a whole index file.
+	 *
+	 * @param indexFile
+	 * @return
+	 * @throws IOException
+	 */
+	public static IndexReader open(File indexFile) throws IOException {
+		FileInputStream fis = new FileInputStream(indexFile);
+		try {
+			FileChannel channel = fis.getChannel();
+			ByteBuffer data = ByteBuffer.allocate((int) channel.size());
+			while (data.hasRemaining()) {
+				if (channel.read(data) < 0)
+					throw new IOException("Unexpected end of " + indexFile);
+			}
+			data.clear();
+			return new IndexReader(data);
+		} finally {
+			fis.close();
+		}
+	}
+
+	/**
+	 * This method memory-maps a whole index file. Nothing is read until terms
+	 * or posting lists are accessed, and the pages of the file are shared by
+	 * all the processes which map it.
+	 *
+	 * @param indexFile
+	 * @return
+	 * @throws IOException
+	 */
+	public static IndexReader map(File indexFile) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(indexFile, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new IOException("Index file too large to map: "
+						+ indexFile);
+			// the mapping stays valid after the channel is closed.
+			return new IndexReader(channel.map(FileChannel.MapMode.READ_ONLY,
+					0, channel.size()));
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * This method checks whether a file starts like an index file.
+	 *
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	public static boolean isIndexFile(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			return raf.length() >= IndexFormat.HEADER_SIZE
+					&& raf.readInt() == IndexFormat.MAGIC;
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * This method returns whether the posting lists are compressed.
+	 *
+	 * @return
+	 */
+	public boolean isCompressed() {
+		return compressed;
+	}
+
+	/**
+	 * This method returns the number of distinct terms present in the index.
+	 *
+	 * @return
+	 */
+	public int size() {
+		return numberOfTerms;
+	}
+
+	/**
+	 * This method returns the offset of the dictionary entry of a term.
+	 *
+	 * @param termNumber
+	 *            position of the term in the dictionary.
+	 * @return
+	 */
+	private int entry(int termNumber) {
+		return dictionaryOffset + termNumber * entrySize;
+	}
+
+	/**
+	 * This method returns whether the dictionary holds the bounds of the
+	 * postings of the terms, which files of version 1 do not.
+	 *
+	 * @return
+	 */
+	public boolean hasPostingBounds() {
+		return version > 1;
+	}
+
+	/**
+	 * This method returns whether the posting lists are followed by their
+	 * blocks, which files of versions 1 and 2 are not.
+	 *
+	 * @return
+	 */
+	public boolean hasPostingBlocks() {
+		return version > 2;
+	}
+
+	/**
+	 * This method returns the term at the given position of the dictionary.
+	 *
+	 * @param termNumber
+	 * @return
+	 */
+	public String getTerm(int termNumber) {
+		int entry = entry(termNumber);
+		byte[] term = new byte[data.getInt(entry
+				+ IndexFormat.ENTRY_TERM_LENGTH)];
+		int termOffset = termBytesOffset
+				+ data.getInt(entry + IndexFormat.ENTRY_TERM_OFFSET);
+		for (int i = 0; i < term.length; i++) {
+			term[i] = data.get(termOffset + i);
+		}
+		return new String(term, IndexFormat.UTF8);
+	}
+
+	/**
+	 * This method returns the number of documents in which the term at the
+	 * given position of the dictionary is present.
+	 *
+	 * @param termNumber
+	 * @return
+	 */
+	public int getDocumentFreq(int termNumber) {
+		return data.getInt(entry(termNumber)
+				+ IndexFormat.ENTRY_DOCUMENT_FREQ);
+	}
+
+	/**
+	 * This method returns the size in bytes of the posting list of the term at
+	 * the given position of the dictionary.
+	 *
+	 * @param termNumber
+	 * @return
+	 */
+	public int getPostingsLength(int termNumber) {
+		return data.getInt(entry(termNumber)
+				+ IndexFormat.ENTRY_POSTINGS_LENGTH);
+	}
+
+	/**
+	 * This method returns the bounds of the postings of the term at the given
+	 * position of the dictionary, or null if the file does not hold them.
+	 *
+	 * @param termNumber
+	 * @return
+	 */
+	public TermBounds getTermBounds(int termNumber) {
+		if (!hasPostingBounds())
+			return null;
+		int entry = entry(termNumber);
+		return new TermBounds(data.getInt(entry
+				+ IndexFormat.ENTRY_MAX_TERM_FREQ), data.getInt(entry
+				+ IndexFormat.ENTRY_MIN_DOC_LEN), data.getInt(entry
+				+ IndexFormat.ENTRY_MIN_MAX_F));
+	}
+
+	/**
+	 * This method returns the blocks of the posting list of the term at the
+	 * given position of the dictionary, read in place from the buffer, or
+	 * null if the file does not hold them.
+	 *
+	 * @param termNumber
+	 * @return
+	 */
+	public PostingBlocks getPostingBlocks(int termNumber) {
+		if (!hasPostingBlocks())
+			return null;
+		int entry = entry(termNumber);
+		int size = getDocumentFreq(termNumber);
+		return new PostingBlocks(data, (int) data.getLong(entry
+				+ IndexFormat.ENTRY_BLOCKS_OFFSET), (size + blockSize - 1)
+				/ blockSize, blockSize);
+	}
+
+	/**
+	 * This method decodes the posting list of the term at the given position
+	 * of the dictionary.
+	 *
+	 * @param termNumber
+	 * @return
+	 */
+	public PostingList getPostingList(int termNumber) {
+		int entry = entry(termNumber);
+		int postingsOffset = (int) data.getLong(entry
+				+ IndexFormat.ENTRY_POSTINGS_OFFSET);
+		if (compressed) {
+			ByteBuffer postings = data.duplicate();
+			postings.limit(postingsOffset + getPostingsLength(termNumber));
+			postings.position(postingsOffset);
+			return PostingCodecs.decodePostingList(postings);
+		}
+		int size = getDocumentFreq(termNumber);
+		int[] docIds = new int[size];
+		int[] termFreqs = new int[size];
+		for (int i = 0; i < size; i++) {
+			docIds[i] = data.getInt(postingsOffset + 4 * i);
+			termFreqs[i] = data.getInt(postingsOffset + 4 * (size + i));
+		}
+		return new PostingList(docIds, termFreqs, size);
+	}
+
+	/**
+	 * This method returns a cursor over the posting list of the term at the
+	 * given position of the dictionary. Uncompressed postings are read in
+	 * place from the buffer.
+	 *
+	 * @param termNumber
+	 * @return
+	 */
+	public PostingCursor getPostingCursor(int termNumber) {
+		if (compressed)
+			return new PostingCursor(getPostingList(termNumber));
+		int postingsOffset = (int) data.getLong(entry(termNumber)
+				+ IndexFormat.ENTRY_POSTINGS_OFFSET);
+		return new PostingCursor(data, postingsOffset,
+				getDocumentFreq(termNumber));
+	}
+
+	/**
+	 * This method finds a term in the dictionary by binary search. It returns
+	 * the position of the term or -1 if the term is not present.
+	 *
+	 * @param term
+	 * @return
+	 */
+	public int findTerm(String term) {
+		byte[] key = term.getBytes(IndexFormat.UTF8);
+		return findTerm(key, key.length);
+	}
+
+	/**
+	 * This method finds a term held by a term buffer in the dictionary,
+	 * without creating a String for it. It returns the position of the term or
+	 * -1 if the term is not present.
+	 *
+	 * @param term
+	 * @return
+	 */
+	public int findTerm(TermBuffer term) {
+		return findTerm(term.bytes(), term.byteLength());
+	}
+
+	private int findTerm(byte[] key, int keyLength) {
+		int low = 0, high = numberOfTerms - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int comparison = compareTerm(middle, key, keyLength);
+			if (comparison < 0)
+				low = middle + 1;
+			else if (comparison > 0)
+				high = middle - 1;
+			else
+				return middle;
+		}
+		return -1;
+	}
+
+	/**
+	 * This method compares the term at the given position of the dictionary
+	 * with the first keyLength UTF-8 bytes of another term.
+	 *
+	 * @param termNumber
+	 * @param key
+	 * @param keyLength
+	 * @return
+	 */
+	private int compareTerm(int termNumber, byte[] key, int keyLength) {
+		int entry = entry(termNumber);
+		int termLength = data.getInt(entry + IndexFormat.ENTRY_TERM_LENGTH);
+		int termOffset = termBytesOffset
+				+ data.getInt(entry + IndexFormat.ENTRY_TERM_OFFSET);
+		int length = Math.min(termLength, keyLength);
+		for (int i = 0; i < length; i++) {
+			int difference = (data.get(termOffset + i) & 0xFF)
+					- (key[i] & 0xFF);
+			if (difference != 0)
+				return difference;
+		}
+		return termLength - keyLength;
+	}
+
+	/**
+	 * This method decodes all the posting lists into a map with term as key.
+	 *
+	 * @return
+	 */
+	public Map<String, PostingList> readIndex() {
+		Map<String, PostingList> index = new TreeMap<String, PostingList>();
+		for (int termNumber = 0; termNumber < numberOfTerms; termNumber++) {
+			index.put(getTerm(termNumber), getPostingList(termNumber));
+		}
+		return index;
+	}
+
+	/**
+	 * This method returns the number of documents whose information is stored
+	 * in the file.
+	 *
+	 * @return
+	 */
+	public int getNumberOfDocuments() {
+		return numberOfDocuments;
+	}
+
+	/**
+	 * This method returns the document information as a 2D array of maxF and
+	 * docLen indexed by docId.
+	 *
+	 * @return
+	 */
+	public Integer[][] getDocInfo() {
+		Integer[][] docInfo = new Integer[numberOfDocuments + 1][2];
+		docInfo[0][0] = 0;
+		docInfo[0][1] = 0;
+		for (int docId = 1; docId <= numberOfDocuments; docId++) {
+			int offset = docInfoOffset + (docId - 1)
+					* IndexFormat.DOC_INFO_SIZE;
+			docInfo[docId][0] = data.getInt(offset);
+			docInfo[docId][1] = data.getInt(offset + 4);
+		}
+		return docInfo;
+	}
+
+	/**
+	 * This method returns the frequency of the most frequent term of a
+	 * document.
+	 *
+	 * @param docId
+	 * @return
+	 */
+	public int getMaxF(int docId) {
+		return data.getInt(docInfoOffset + (docId - 1)
+				* IndexFormat.DOC_INFO_SIZE);
+	}
+
+	/**
+	 * This method returns the length of a document.
+	 *
+	 * @param docId
+	 * @return
+	 */
+	public int getDocLen(int docId) {
+		return data.getInt(docInfoOffset + (docId - 1)
+				* IndexFormat.DOC_INFO_SIZE + 4);
+	}
+}
@@ -0,0 +1,101 @@
+/**
+ * This class ranks the documents for a query with the MaxScore algorithm
+ * (Turtle and Flood, Query evaluation: strategies and optimizations).
+ *
+ * The query terms are sorted by the bound of their gain for the first
+ * weighing function. The non-essential terms are the longest prefix of them
+ * whose bounds, added to the largest baseline score, cannot make it into the
+ * top k of any weighing function, so that a document containing only
+ * non-essential terms need not be looked at. The documents are visited a
+ * document at a time over the essential terms only, and the postings of the
+ * non-essential terms are looked up with advance for the documents which may
+ * make it into the top k. The prefix grows as the top k fills.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class MaxScoreEvaluator extends DynamicPruningEvaluator {
+
+	public String getName() {
+		return "MaxScore";
+	}
+
+	protected void scoreMatchingDocuments(QueryState state) {
+		PostingCursor[] postings = state.postings;
+		int n = state.functions.length;
+		// terms with postings, by ascending bound of their gain.
+		int[] order = new int[postings.length];
+		int count = 0;
+		for (int t = 0; t < postings.length; t++) {
+			if (postings[t] != null
+					&& postings[t].nextDoc() != PostingsIterator.NO_MORE_DOCS)
+				order[count++] = t;
+		}
+		for (int i = 1; i < count; i++) {
+			int term = order[i];
+			int j = i - 1;
+			while (j >= 0
+					&& Double.compare(state.maxGains[order[j]][0],
+							state.maxGains[term][0]) > 0) {
+				order[j + 1] = order[j];
+				j--;
+			}
+			order[j + 1] = term;
+		}
+
+		double[] maxGainSums = new double[n];
+		int[] onDoc = new int[postings.length];
+		int nonEssential = 0;
+		while (true) {
+			// grow the non-essential prefix as far as the top k allows.
+			while (nonEssential < count) {
+				for (int f = 0; f < n; f++) {
+					maxGainSums[f] += state.maxGains[order[nonEssential]][f];
+				}
+				if (state.isCompetitive(maxGainSums)) {
+					for (int f = 0; f < n; f++) {
+						maxGainSums[f] -= state.maxGains[order[nonEssential]][f];
+					}
+					break;
+				}
+				nonEssential++;
+			}
+			int docId = PostingsIterator.NO_MORE_DOCS;
+			for (int i = nonEssential; i < count; i++) {
+				docId = Math.min(docId, postings[order[i]].docId());
+			}
+			if (docId == PostingsIterator.NO_MORE_DOCS)
+				break;
+
+			int onDocCount = 0;
+			for (int i = nonEssential; i < count; i++) {
+				if (postings[order[i]].docId() == docId)
+					onDoc[onDocCount++] = order[i];
+			}
+			int essentialCount = onDocCount;
+			// the non-essential terms may all be on this document.
+			for (int i = 0; i < nonEssential; i++) {
+				onDoc[onDocCount++] = order[i];
+			}
+			if (state.isCompetitive(docId, onDoc, onDocCount)) {
+				for (int i = 0; i < essentialCount; i++) {
+					state.tfs[onDoc[i]] = postings[onDoc[i]].freq();
+				}
+				state.evaluatedPostings += essentialCount;
+				for (int i = nonEssential - 1; i >= 0; i--) {
+					PostingCursor termPostings = postings[order[i]];
+					if (termPostings.docId() < docId)
+						termPostings.advance(docId);
+					if (termPostings.docId() == docId) {
+						state.tfs[order[i]] = termPostings.freq();
+						state.evaluatedPostings++;
+					}
+				}
+				state.score(docId);
+			}
+			for (int i = 0; i < essentialCount; i++) {
+				postings[onDoc[i]].nextDoc();
+			}
+		}
+	}
+}
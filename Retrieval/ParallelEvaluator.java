@@ -0,0 +1,172 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * This class ranks the documents for a query a document at a time on several
+ * threads of the common ForkJoinPool, with several weighing functions at once.
+ *
+ * The docId space is split in halves again and again until the estimated cost
+ * of every range is under the cost threshold, and every range is scored by
+ * DocAtATimeEvaluator with copies of the postings cursors of the query terms
+ * and collectors of its own. The top documents of two ranges are merged into
+ * a collector of k documents; the collectors ranking the documents by a total
+ * order, the final top k does not depend on the order in which the ranges
+ * end, and every score is computed exactly as by the sequential evaluator.
+ *
+ * The cost of a range is its number of documents plus its estimated number of
+ * postings, the postings being assumed spread evenly over the docIds. A query
+ * whose cost is under the threshold is ranked in the calling thread, since
+ * forking would cost more than it saves. The threshold is set by the
+ * "query.parallel.cost" system property.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class ParallelEvaluator implements QueryEvaluator {
+
+	private static final long DEFAULT_COST_THRESHOLD = 65536L;
+
+	private long costThreshold;
+
+	/**
+	 * The constructor creates an evaluator with the cost threshold given by
+	 * the system property.
+	 */
+	public ParallelEvaluator() {
+		this(Long.getLong("query.parallel.cost", DEFAULT_COST_THRESHOLD));
+	}
+
+	/**
+	 * The constructor creates an evaluator with the given cost threshold.
+	 *
+	 * @param costThreshold
+	 *            largest cost of a range scored without being split.
+	 */
+	public ParallelEvaluator(long costThreshold) {
+		this.costThreshold = Math.max(1L, costThreshold);
+	}
+
+	/**
+	 * This class scores a range of docIds, splitting it if it costs too much.
+	 */
+	@SuppressWarnings("serial")
+	private class RangeTask extends RecursiveTask<TopDocs[]> {
+
+		private QueryRanges query;
+		private int fromDocId, toDocId;
+
+		RangeTask(QueryRanges query, int fromDocId, int toDocId) {
+			this.query = query;
+			this.fromDocId = fromDocId;
+			this.toDocId = toDocId;
+		}
+
+		protected TopDocs[] compute() {
+			if (toDocId - fromDocId < 2
+					|| query.cost(fromDocId, toDocId) <= costThreshold)
+				return query.score(fromDocId, toDocId, true);
+			int middleDocId = (fromDocId + toDocId) >>> 1;
+			RangeTask left = new RangeTask(query, fromDocId, middleDocId);
+			left.fork();
+			TopDocs[] right = new RangeTask(query, middleDocId, toDocId)
+					.compute();
+			return merge(left.join(), right, query.k);
+		}
+	}
+
+	/**
+	 * This class holds what the ranges of a query share.
+	 */
+	private static class QueryRanges {
+
+		CollectionStats stats;
+		WeighingFunction[] functions;
+		double[] idf;
+		PostingCursor[] postings;
+		long postingsCount;
+		int k;
+
+		/**
+		 * This method returns the estimated cost of scoring a range.
+		 */
+		long cost(int fromDocId, int toDocId) {
+			long documents = toDocId - fromDocId;
+			return documents + postingsCount * documents
+					/ Math.max(1, stats.collectionSize());
+		}
+
+		/**
+		 * This method scores a range with collectors of its own, and with
+		 * copies of the postings cursors if they are shared with other
+		 * ranges.
+		 */
+		TopDocs[] score(int fromDocId, int toDocId, boolean copyPostings) {
+			PostingCursor[] rangePostings = postings;
+			if (copyPostings) {
+				rangePostings = new PostingCursor[postings.length];
+				for (int t = 0; t < postings.length; t++) {
+					if (postings[t] != null)
+						rangePostings[t] = postings[t].copy();
+				}
+			}
+			int n = functions.length;
+			TopKCollector[] topDocs = new TopKCollector[n];
+			for (int f = 0; f < n; f++) {
+				topDocs[f] = new TopKCollector(k);
+			}
+			DocAtATimeEvaluator.scoreRange(stats, rangePostings, idf,
+					functions, fromDocId, toDocId, topDocs);
+			TopDocs[] rankings = new TopDocs[n];
+			for (int f = 0; f < n; f++) {
+				rankings[f] = topDocs[f].topDocs();
+			}
+			return rankings;
+		}
+	}
+
+	public TopDocs[] evaluate(Index index, String[] queryTerms, int k,
+			WeighingFunction[] functions) {
+		QueryRanges query = new QueryRanges();
+		query.stats = index.getCollectionStats();
+		query.functions = functions;
+		query.k = k;
+		int m = queryTerms.length;
+		query.idf = new double[m];
+		query.postings = new PostingCursor[m];
+		for (int t = 0; t < m; t++) {
+			query.idf[t] = query.stats.idf(queryTerms[t]);
+			query.postings[t] = index.getPostingCursor(queryTerms[t]);
+			if (query.postings[t] != null)
+				query.postingsCount += query.postings[t].size();
+		}
+		int toDocId = query.stats.collectionSize() + 1;
+		if (query.cost(1, toDocId) <= costThreshold)
+			return query.score(1, toDocId, false);
+		return ForkJoinPool.commonPool().invoke(
+				new RangeTask(query, 1, toDocId));
+	}
+
+	/**
+	 * This method merges the top documents of two ranges for every weighing
+	 * function into the top k.
+	 *
+	 * @param rankings1
+	 * @param rankings2
+	 * @param k
+	 * @return
+	 */
+	static TopDocs[] merge(TopDocs[] rankings1, TopDocs[] rankings2, int k) {
+		TopDocs[] rankings = new TopDocs[rankings1.length];
+		TopKCollector topDocs = new TopKCollector(k);
+		for (int f = 0; f < rankings1.length; f++) {
+			for (int i = 0; i < rankings1[f].size(); i++) {
+				topDocs.collect(rankings1[f].docId(i), rankings1[f].score(i));
+			}
+			for (int i = 0; i < rankings2[f].size(); i++) {
+				topDocs.collect(rankings2[f].docId(i), rankings2[f].score(i));
+			}
+			rankings[f] = topDocs.topDocs();
+		}
+		return rankings;
+	}
+}
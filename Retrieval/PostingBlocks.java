@@ -0,0 +1,180 @@
+import java.nio.ByteBuffer;
+
+/**
+ * This class holds the blocks of the posting list of a term: the postings are
+ * cut into blocks of a fixed number of postings, and every block has its last
+ * docId and the bounds of its postings, from which the score of the term in
+ * the documents of the block can be bounded without reading its postings.
+ *
+ * The blocks of an index file of version 3 are read in place from the buffer
+ * holding the file, the blocks of older index files are computed from the
+ * posting list.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class PostingBlocks {
+
+	/**
+	 * This buffer holds the blocks read in place, at the given offset.
+	 */
+	private ByteBuffer data;
+	private int offset;
+
+	/**
+	 * These arrays hold the blocks which are not read in place.
+	 */
+	private int[] lastDocIds, maxTermFreqs, minDocLens, minMaxFs;
+
+	private int size, blockSize;
+
+	/**
+	 * This constructor creates blocks read in place from a buffer.
+	 *
+	 * @param data
+	 * @param offset
+	 *            offset of the first block.
+	 * @param size
+	 *            number of blocks.
+	 * @param blockSize
+	 *            number of postings per block.
+	 */
+	PostingBlocks(ByteBuffer data, int offset, int size, int blockSize) {
+		this.data = data;
+		this.offset = offset;
+		this.size = size;
+		this.blockSize = blockSize;
+	}
+
+	/**
+	 * This constructor creates blocks held by arrays.
+	 */
+	private PostingBlocks(int[] lastDocIds, int[] maxTermFreqs,
+			int[] minDocLens, int[] minMaxFs, int blockSize) {
+		this.lastDocIds = lastDocIds;
+		this.maxTermFreqs = maxTermFreqs;
+		this.minDocLens = minDocLens;
+		this.minMaxFs = minMaxFs;
+		this.size = lastDocIds.length;
+		this.blockSize = blockSize;
+	}
+
+	/**
+	 * This method cuts a posting list into blocks.
+	 *
+	 * @param postings
+	 * @param stats
+	 * @param blockSize
+	 * @return
+	 */
+	public static PostingBlocks compute(PostingCursor postings,
+			CollectionStats stats, int blockSize) {
+		int size = (postings.size() + blockSize - 1) / blockSize;
+		int[] lastDocIds = new int[size];
+		int[] maxTermFreqs = new int[size];
+		int[] minDocLens = new int[size];
+		int[] minMaxFs = new int[size];
+		for (int block = 0; block < size; block++) {
+			int start = block * blockSize;
+			int end = Math.min(start + blockSize, postings.size());
+			minDocLens[block] = Integer.MAX_VALUE;
+			minMaxFs[block] = Integer.MAX_VALUE;
+			for (int i = start; i < end; i++) {
+				int docId = postings.docId(i);
+				maxTermFreqs[block] = Math.max(maxTermFreqs[block],
+						postings.termFreq(i));
+				minDocLens[block] = Math.min(minDocLens[block],
+						stats.docLen(docId));
+				minMaxFs[block] = Math.min(minMaxFs[block], stats.maxF(docId));
+			}
+			lastDocIds[block] = postings.docId(end - 1);
+		}
+		return new PostingBlocks(lastDocIds, maxTermFreqs, minDocLens,
+				minMaxFs, blockSize);
+	}
+
+	/**
+	 * This method returns a copy of the blocks held by arrays, which does not
+	 * refer to the buffer any more.
+	 *
+	 * @return
+	 */
+	public PostingBlocks copy() {
+		int[] lastDocIds = new int[size];
+		int[] maxTermFreqs = new int[size];
+		int[] minDocLens = new int[size];
+		int[] minMaxFs = new int[size];
+		for (int block = 0; block < size; block++) {
+			lastDocIds[block] = lastDocId(block);
+			maxTermFreqs[block] = maxTermFreq(block);
+			minDocLens[block] = minDocLen(block);
+			minMaxFs[block] = minMaxF(block);
+		}
+		return new PostingBlocks(lastDocIds, maxTermFreqs, minDocLens,
+				minMaxFs, blockSize);
+	}
+
+	/**
+	 * This method returns the number of blocks.
+	 *
+	 * @return
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * This method returns the number of postings per block.
+	 *
+	 * @return
+	 */
+	public int blockSize() {
+		return blockSize;
+	}
+
+	private int field(int block, int field) {
+		return data.getInt(offset + block * IndexFormat.BLOCK_ENTRY_SIZE
+				+ field);
+	}
+
+	/**
+	 * This method returns the docId of the last posting of a block.
+	 *
+	 * @param block
+	 * @return
+	 */
+	public int lastDocId(int block) {
+		if (data != null)
+			return field(block, IndexFormat.BLOCK_LAST_DOC_ID);
+		return lastDocIds[block];
+	}
+
+	public int maxTermFreq(int block) {
+		if (data != null)
+			return field(block, IndexFormat.BLOCK_MAX_TERM_FREQ);
+		return maxTermFreqs[block];
+	}
+
+	public int minDocLen(int block) {
+		if (data != null)
+			return field(block, IndexFormat.BLOCK_MIN_DOC_LEN);
+		return minDocLens[block];
+	}
+
+	public int minMaxF(int block) {
+		if (data != null)
+			return field(block, IndexFormat.BLOCK_MIN_MAX_F);
+		return minMaxFs[block];
+	}
+
+	/**
+	 * This method returns the bounds of the postings of a block.
+	 *
+	 * @param block
+	 * @return
+	 */
+	public TermBounds bounds(int block) {
+		return new TermBounds(maxTermFreq(block), minDocLen(block),
+				minMaxF(block));
+	}
+}
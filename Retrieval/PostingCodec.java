@@ -0,0 +1,50 @@
+import java.nio.ByteBuffer;
+
+/**
+ * This interface represents a compression scheme for a sequence of integers,
+ * such as the docId gaps or the term frequencies of a posting list. The codecs
+ * available to the indexer are listed in PostingCodecs.
+ *
+ * Every codec must be able to encode positive numbers. A codec does not store
+ * the number of values, the caller keeps track of it.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public interface PostingCodec {
+
+	/**
+	 * This method returns the id of the codec which is stored along with the
+	 * encoded sequences, so that they can be decoded later on.
+	 *
+	 * @return
+	 */
+	public int getId();
+
+	/**
+	 * This method returns the name by which the codec can be selected.
+	 *
+	 * @return
+	 */
+	public String getName();
+
+	/**
+	 * This method encodes the first length values of the array.
+	 *
+	 * @param values
+	 * @param length
+	 * @param out
+	 */
+	public void encode(int[] values, int length, ByteWriter out);
+
+	/**
+	 * This method decodes length values starting at the position of the
+	 * buffer into the array. The position of the buffer is moved after the
+	 * encoded sequence.
+	 *
+	 * @param in
+	 * @param values
+	 * @param length
+	 */
+	public void decode(ByteBuffer in, int[] values, int length);
+}
@@ -0,0 +1,207 @@
+import java.nio.ByteBuffer;
+
+/**
+ * This class lists the available posting codecs and encodes whole posting
+ * lists with them.
+ *
+ * A posting list is written as the id of the codec of the docId gaps, the id
+ * of the codec of the term frequencies, the size of the list in variable-byte
+ * coding, the encoded gaps and the encoded term frequencies. Since the codec
+ * ids are part of every list, the codecs can differ from list to list.
+ *
+ * The codecs are selected by name. Besides the names of the single codecs,
+ * "elias" selects the delta code for gaps and the gamma code for term
+ * frequencies, and "auto" chooses by the length of each list: bitwise codes
+ * for short lists, where they are the smallest, and byte or word aligned codes
+ * for longer ones, where decoding speed matters.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class PostingCodecs {
+
+	/**
+	 * These are the names of the codec combinations.
+	 */
+	public static final String ELIAS = "elias";
+	public static final String AUTO = "auto";
+
+	/**
+	 * In automatic mode lists shorter than this are encoded with Elias codes.
+	 */
+	private static final int SHORT_LIST = 16;
+
+	/**
+	 * These are the available codecs. Codecs do not keep any state, so they
+	 * can be shared.
+	 */
+	private static final PostingCodec GAMMA = new GammaCodec(),
+			DELTA = new DeltaCodec(), VBYTE = new VariableByteCodec(),
+			GROUP_VARINT = new GroupVarIntCodec(),
+			PFOR_DELTA = new PForDeltaCodec(), SIMPLE8B = new Simple8bCodec();
+
+	/**
+	 * This array holds all the codecs at the index of their id.
+	 */
+	private static final PostingCodec[] CODECS = new PostingCodec[7];
+
+	static {
+		PostingCodec[] codecs = { GAMMA, DELTA, VBYTE, GROUP_VARINT,
+				PFOR_DELTA, SIMPLE8B };
+		for (PostingCodec codec : codecs) {
+			CODECS[codec.getId()] = codec;
+		}
+	}
+
+	/**
+	 * This method returns the codec with the given id.
+	 *
+	 * @param id
+	 * @return
+	 */
+	public static PostingCodec forId(int id) {
+		if (id <= 0 || id >= CODECS.length)
+			throw new IllegalArgumentException("Unknown posting codec id: "
+					+ id);
+		return CODECS[id];
+	}
+
+	/**
+	 * This method returns the codec with the given name.
+	 *
+	 * @param name
+	 * @return
+	 */
+	public static PostingCodec forName(String name) {
+		for (PostingCodec codec : CODECS) {
+			if (codec != null && codec.getName().equalsIgnoreCase(name))
+				return codec;
+		}
+		throw new IllegalArgumentException("Unknown posting codec: " + name);
+	}
+
+	/**
+	 * This method checks that the name selects a codec or a combination of
+	 * codecs.
+	 *
+	 * @param name
+	 */
+	public static void checkName(String name) {
+		if (!name.equalsIgnoreCase(ELIAS) && !name.equalsIgnoreCase(AUTO))
+			forName(name);
+	}
+
+	/**
+	 * This method returns the codec of the docId gaps of a list of the given
+	 * size.
+	 *
+	 * @param name
+	 * @param size
+	 * @return
+	 */
+	private static PostingCodec gapCodec(String name, int size) {
+		if (name.equalsIgnoreCase(AUTO)) {
+			if (size < SHORT_LIST)
+				return DELTA;
+			if (size < PForDeltaCodec.BLOCK_SIZE)
+				return VBYTE;
+			return PFOR_DELTA;
+		}
+		if (name.equalsIgnoreCase(ELIAS))
+			return DELTA;
+		return forName(name);
+	}
+
+	/**
+	 * This method returns the codec of the term frequencies of a list of the
+	 * given size.
+	 *
+	 * @param name
+	 * @param size
+	 * @return
+	 */
+	private static PostingCodec termFreqCodec(String name, int size) {
+		if (name.equalsIgnoreCase(AUTO)) {
+			if (size < SHORT_LIST)
+				return GAMMA;
+			return SIMPLE8B;
+		}
+		if (name.equalsIgnoreCase(ELIAS))
+			return GAMMA;
+		return forName(name);
+	}
+
+	/**
+	 * This method encodes a posting list with the selected codecs and appends
+	 * it to the writer.
+	 *
+	 * @param postingList
+	 * @param name
+	 * @param out
+	 */
+	public static void encodePostingList(PostingList postingList,
+			String name, ByteWriter out) {
+		int size = postingList.size();
+		PostingCodec gapCodec = gapCodec(name, size);
+		PostingCodec termFreqCodec = termFreqCodec(name, size);
+		int[] gaps = new int[size];
+		int[] termFreqs = new int[size];
+		int previousDocId = 0;
+		for (int i = 0; i < size; i++) {
+			gaps[i] = postingList.docId(i) - previousDocId;
+			termFreqs[i] = postingList.termFreq(i);
+			previousDocId = postingList.docId(i);
+		}
+		out.writeByte(gapCodec.getId());
+		out.writeByte(termFreqCodec.getId());
+		VariableByteCodec.writeVInt(out, size);
+		gapCodec.encode(gaps, size, out);
+		termFreqCodec.encode(termFreqs, size, out);
+	}
+
+	/**
+	 * This method encodes a posting list with the selected codecs.
+	 *
+	 * @param postingList
+	 * @param name
+	 * @return
+	 */
+	public static byte[] encodePostingList(PostingList postingList,
+			String name) {
+		ByteWriter out = new ByteWriter();
+		encodePostingList(postingList, name, out);
+		return out.toByteArray();
+	}
+
+	/**
+	 * This method decodes a posting list starting at the position of the
+	 * buffer. The position is moved after the list.
+	 *
+	 * @param in
+	 * @return
+	 */
+	public static PostingList decodePostingList(ByteBuffer in) {
+		PostingCodec gapCodec = forId(in.get());
+		PostingCodec termFreqCodec = forId(in.get());
+		int size = VariableByteCodec.readVInt(in);
+		int[] docIds = new int[size];
+		int[] termFreqs = new int[size];
+		gapCodec.decode(in, docIds, size);
+		termFreqCodec.decode(in, termFreqs, size);
+		// turn the gaps back into docIds.
+		for (int i = 1; i < size; i++) {
+			docIds[i] += docIds[i - 1];
+		}
+		return new PostingList(docIds, termFreqs, size);
+	}
+
+	/**
+	 * This method decodes a posting list from a byte array.
+	 *
+	 * @param bytes
+	 * @return
+	 */
+	public static PostingList decodePostingList(byte[] bytes) {
+		return decodePostingList(ByteBuffer.wrap(bytes));
+	}
+}
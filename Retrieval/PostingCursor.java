@@ -0,0 +1,207 @@
+import java.nio.ByteBuffer;
+
+/**
+ * This class iterates over the posting list of a term of an index file. The
+ * docIds and term frequencies of an uncompressed list are read directly from
+ * the buffer holding the file, which may be memory-mapped, so no object is
+ * created per posting. A compressed list is decoded once when the cursor is
+ * created. The postings can also be accessed by position.
+ *
+ * As a PostingsIterator, advance gallops forward from the current position,
+ * so the cost of skipping depends on the distance skipped rather than on the
+ * length of the list.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class PostingCursor implements PostingsIterator {
+
+	/**
+	 * This buffer holds the index file of an uncompressed list.
+	 */
+	private ByteBuffer data;
+
+	/**
+	 * These are the offsets of the docIds and of the term frequencies in the
+	 * buffer.
+	 */
+	private int docIdsOffset, termFreqsOffset;
+
+	/**
+	 * This is the decoded posting list of a compressed list.
+	 */
+	private PostingList postingList;
+
+	private int size;
+
+	/**
+	 * This is the position of the current posting, -1 before the first call
+	 * of next.
+	 */
+	private int position;
+
+	/**
+	 * This constructor creates a cursor over an uncompressed posting list.
+	 *
+	 * @param data
+	 * @param postingsOffset
+	 * @param size
+	 */
+	PostingCursor(ByteBuffer data, int postingsOffset, int size) {
+		this.data = data;
+		this.docIdsOffset = postingsOffset;
+		this.termFreqsOffset = postingsOffset + 4 * size;
+		this.size = size;
+		this.position = -1;
+	}
+
+	/**
+	 * This constructor creates a cursor over a decoded posting list.
+	 *
+	 * @param postingList
+	 */
+	PostingCursor(PostingList postingList) {
+		this.postingList = postingList;
+		this.size = postingList.size();
+		this.position = -1;
+	}
+
+	/**
+	 * This method returns a new cursor over the same postings, before the
+	 * first posting, so that several threads can iterate over a list which
+	 * was decoded once.
+	 *
+	 * @return
+	 */
+	public PostingCursor copy() {
+		if (postingList != null)
+			return new PostingCursor(postingList);
+		return new PostingCursor(data, docIdsOffset, size);
+	}
+
+	/**
+	 * This method returns the number of postings in the list.
+	 *
+	 * @return
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * This method returns the docId of the i-th posting.
+	 *
+	 * @param i
+	 * @return
+	 */
+	public int docId(int i) {
+		if (postingList != null)
+			return postingList.docId(i);
+		return data.getInt(docIdsOffset + 4 * i);
+	}
+
+	/**
+	 * This method returns the term frequency of the i-th posting.
+	 *
+	 * @param i
+	 * @return
+	 */
+	public int termFreq(int i) {
+		if (postingList != null)
+			return postingList.termFreq(i);
+		return data.getInt(termFreqsOffset + 4 * i);
+	}
+
+	/**
+	 * This method moves the cursor to the next posting. It returns false when
+	 * there are no more postings.
+	 *
+	 * @return
+	 */
+	public boolean next() {
+		if (position < size)
+			position++;
+		return position < size;
+	}
+
+	/**
+	 * This method returns the docId of the current posting.
+	 *
+	 * @return
+	 */
+	public int docId() {
+		if (position < 0)
+			return -1;
+		if (position >= size)
+			return NO_MORE_DOCS;
+		return docId(position);
+	}
+
+	/**
+	 * This method returns the term frequency of the current posting.
+	 *
+	 * @return
+	 */
+	public int termFreq() {
+		return termFreq(position);
+	}
+
+	public int nextDoc() {
+		next();
+		return docId();
+	}
+
+	public int advance(int target) {
+		// find a range ending at a docId not less than the target by doubling
+		// the step, then search it.
+		int low = position + 1, step = 1;
+		int high = low;
+		while (high < size && docId(high) < target) {
+			low = high + 1;
+			high += step;
+			step <<= 1;
+		}
+		high = Math.min(high, size);
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (docId(middle) < target)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		position = low;
+		return docId();
+	}
+
+	public int freq() {
+		return termFreq(position);
+	}
+
+	public long cost() {
+		return size;
+	}
+
+	/**
+	 * This method returns the frequency of the term in the given document, or
+	 * 0 if the document is not in the list. It does not move the cursor.
+	 *
+	 * @param docId
+	 * @return
+	 */
+	public int termFreqInDoc(int docId) {
+		if (postingList != null)
+			return postingList.termFreqInDoc(docId);
+		int low = 0, high = size - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int middleDocId = docId(middle);
+			if (middleDocId < docId)
+				low = middle + 1;
+			else if (middleDocId > docId)
+				high = middle - 1;
+			else
+				return termFreq(middle);
+		}
+		return 0;
+	}
+}
@@ -0,0 +1,61 @@
+/**
+ * This interface represents an iterator over the postings of a term, in
+ * ascending order of docId. It is positioned before the first posting when it
+ * is created, and is moved by nextDoc and advance, which return the docId of
+ * the new posting, or NO_MORE_DOCS once the postings are exhausted.
+ *
+ * It is implemented by PostingCursor for the posting lists held in the heap,
+ * the ones read in place from a memory-mapped index file and the compressed
+ * ones.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public interface PostingsIterator {
+
+	/**
+	 * This is the docId of an exhausted iterator, larger than every docId.
+	 */
+	public static final int NO_MORE_DOCS = Integer.MAX_VALUE;
+
+	/**
+	 * This method returns the docId of the current posting, -1 before the
+	 * first call of nextDoc or advance, and NO_MORE_DOCS once the postings are
+	 * exhausted.
+	 *
+	 * @return
+	 */
+	public int docId();
+
+	/**
+	 * This method moves to the next posting and returns its docId.
+	 *
+	 * @return
+	 */
+	public int nextDoc();
+
+	/**
+	 * This method moves to the first posting whose docId is at least the
+	 * target and returns its docId. The target must be larger than the
+	 * current docId.
+	 *
+	 * @param target
+	 * @return
+	 */
+	public int advance(int target);
+
+	/**
+	 * This method returns the term frequency of the current posting.
+	 *
+	 * @return
+	 */
+	public int freq();
+
+	/**
+	 * This method returns an estimate of the cost of iterating over all the
+	 * postings, which is their number.
+	 *
+	 * @return
+	 */
+	public long cost();
+}
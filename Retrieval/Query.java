@@ -1,4 +1,3 @@
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
@@ -13,34 +12,39 @@ import java.util.TreeMap;
  */
 public class Query {
 	/**
-	 * This is the constant storing the default token count.
+	 * This map stores the tokens in the query and its occurrence.
 	 */
-	private static final int DEFAULT_TOKEN_COUNT = 1;
+	private Map<String, Integer> queryIndex;
 
 	/**
-	 * This map stores the tokens in the query and its occurrence.
+	 * These are the weighing functions used when none are given.
 	 */
-	private Map<String, Integer> queryIndex;
+	public static final WeighingFunction[] WEIGHING_FUNCTIONS = {
+			new WeighingFunction1(), new WeighingFunction2() };
 
 	/**
-	 * This stores the score of the document-query (this query) pair using
-	 * weighing function 1.
+	 * This is the query evaluator selected by the "query.evaluator" system
+	 * property.
 	 */
-	private Map<Integer, Double> docRankingByW1;
+	private static final QueryEvaluator evaluator = getEvaluator(System
+			.getProperty("query.evaluator", "taat"));
 
 	/**
-	 * This stores the score of the document-query (this query) pair using
-	 * weighing function 2.
+	 * These are the weighing functions this query was ranked with.
 	 */
-	private Map<Integer, Double> docRankingByW2;
+	private WeighingFunction[] weighingFunctions;
+
+	/**
+	 * This stores the top ranked documents for this query and their scores
+	 * using each of the weighing functions.
+	 */
+	private TopDocs[] docRankings;
 
 	/**
 	 * This is the constructor to initialize all the member variables./
 	 */
 	public Query() {
 		this.queryIndex = new TreeMap<String, Integer>();
-		this.docRankingByW1 = new TreeMap<Integer, Double>();
-		this.docRankingByW2 = new TreeMap<Integer, Double>();
 	}
 
 	/**
@@ -50,27 +54,8 @@ public class Query {
 	 * @param stopWords
 	 */
 	public void indexQuery(String query, TreeMap<String, String> stopWords) {
-		String[] tokens = query.replaceAll("[^a-zA-Z0-9'.]", " ")
-				.replaceAll("\\s+", " ").trim().split(" ");
-		ArrayList<String> listOfTokensInQuery = new ArrayList<String>();
-		for (String rawToken : tokens) {
-			if (rawToken.length() > 0)
-				listOfTokensInQuery.add(rawToken.trim());
-		}
 		Map<String, Integer> tokenMap = new HashMap<String, Integer>();
-		for (String rawToken : listOfTokensInQuery) {
-			ArrayList<String> processedTokens = Util.processToken(rawToken);
-			if (processedTokens != null) {
-				for (String processedToken : processedTokens) {
-					if (tokenMap.get(processedToken) == null)
-						tokenMap.put(processedToken, DEFAULT_TOKEN_COUNT);
-					else
-						tokenMap.put(processedToken,
-								tokenMap.get(processedToken) + 1);
-
-				}
-			}
-		}
+		Util.addTokens(tokenMap, query);
 		Map<String, Integer> stemmedTokens = Util.getStemmedTokens(tokenMap);
 		this.queryIndex = Util.removeStopWords(stemmedTokens, stopWords);
 	}
@@ -87,81 +72,140 @@ public class Query {
 	}
 
 	/**
-	 * This method calculates the score of this query with all the documents and
-	 * sort the score map in the reverse order of value.
+	 * This method ranks the documents for this query with weighing functions 1
+	 * and 2.
 	 * 
 	 * @param index
+	 * @param k
+	 *            number of documents to rank.
 	 */
-	public void generateRaking(Index index) {
-		for (int i = 1; i < index.collectionSize() + 1; i++) {
-			calculateByW1(i, index);
-			calculateByW2(i, index);
-		}
-		this.docRankingByW1 = Util.sortByValue(docRankingByW1);
-		this.docRankingByW2 = Util.sortByValue(docRankingByW2);
+	public void generateRaking(Index index, int k) {
+		generateRaking(index, k, WEIGHING_FUNCTIONS);
 	}
 
 	/**
-	 * This method uses weighing function 1 to calculate the score.
+	 * This method calculates the score of this query with all the documents
+	 * using several weighing functions at once, and keeps for each of them the
+	 * k documents with the highest scores, the documents with equal scores
+	 * being ranked by ascending docId.
+	 * 
+	 * The documents are ranked by the query evaluator selected by the
+	 * "query.evaluator" system property: "taat", the default, scores them a
+	 * term at a time, "daat" a document at a time, "parallel" a document at a
+	 * time over ranges of docIds on several threads, "wand", "maxscore" and
+	 * "bmw" (Block-Max WAND) skip the documents which cannot make it into the
+	 * top k. All of them rank the documents the same way, except "saat",
+	 * which ranks them approximately score at a time over impact-ordered
+	 * postings.
 	 * 
-	 * @param docId
 	 * @param index
+	 * @param k
+	 *            number of documents to rank.
+	 * @param functions
 	 */
-	private void calculateByW1(int docId, Index index) {
-		double w1 = 0.0d;
-		int maxF = index.maxF(docId);
-		int cs = index.collectionSize();
-		for (String queryToken : this.queryIndex.keySet()) {
-			int tf = index.termFreqInDoc(queryToken, docId);
-			int df = index.documentFreq(queryToken) + 1;
-			double w = (0.4d + 0.6d * Math.log(tf + 0.5d)
-					/ Math.log(maxF + 1.0d))
-					* (Math.log(cs / df) / Math.log(cs));
-			w1 += w;
-		}
-		this.docRankingByW1.put(docId, w1);
+	public void generateRaking(Index index, int k,
+			WeighingFunction... functions) {
+		generateRaking(index, k, evaluator, functions);
 	}
 
 	/**
-	 * This method uses weighing function 2 to calculate the score.
+	 * This method ranks the documents for this query like the method above,
+	 * with the given query evaluator.
 	 * 
-	 * @param docId
 	 * @param index
+	 * @param k
+	 *            number of documents to rank.
+	 * @param queryEvaluator
+	 * @param functions
+	 */
+	public void generateRaking(Index index, int k,
+			QueryEvaluator queryEvaluator, WeighingFunction... functions) {
+		String[] queryTerms = this.queryIndex.keySet().toArray(
+				new String[this.queryIndex.size()]);
+		this.docRankings = queryEvaluator.evaluate(index, queryTerms, k,
+				functions);
+		this.weighingFunctions = functions;
+	}
+
+	/**
+	 * This method returns the query evaluator used by generateRaking.
+	 * 
+	 * @return
+	 */
+	public static QueryEvaluator getEvaluator() {
+		return evaluator;
+	}
+
+	/**
+	 * This method returns the query evaluator of the given name.
+	 * 
+	 * @param name
+	 * @return
+	 */
+	public static QueryEvaluator getEvaluator(String name) {
+		if (name.equals("taat"))
+			return new TermAtATimeEvaluator();
+		if (name.equals("daat"))
+			return new DocAtATimeEvaluator();
+		if (name.equals("wand"))
+			return new WandEvaluator();
+		if (name.equals("maxscore"))
+			return new MaxScoreEvaluator();
+		if (name.equals("bmw"))
+			return new BlockMaxWandEvaluator();
+		if (name.equals("parallel"))
+			return new ParallelEvaluator();
+		if (name.equals("saat"))
+			return new ScoreAtATimeEvaluator();
+		throw new IllegalArgumentException("Unknown query evaluator: " + name);
+	}
+
+	/**
+	 * This method returns the top ranked documents and their scores calculated
+	 * using the weighing function at the given position of the ones this query
+	 * was ranked with, from the best to the worst.
+	 * 
+	 * @param function
+	 * @return
+	 */
+	public TopDocs getRanking(int function) {
+		return this.docRankings[function];
+	}
+
+	/**
+	 * This method returns the top ranked documents and their scores calculated
+	 * using the weighing function of the given class, or null if this query
+	 * was not ranked with it.
+	 * 
+	 * @param functionClass
+	 * @return
 	 */
-	private void calculateByW2(int docId, Index index) {
-		double w2 = 0.0d;
-		int docLen = index.docLen(docId);
-		int cs = index.collectionSize();
-		double avgDocLen = index.avgDocLen();
-		for (String queryToken : this.queryIndex.keySet()) {
-			int tf = index.termFreqInDoc(queryToken, docId);
-			int df = index.documentFreq(queryToken) + 1;
-			double w = 0.4d + 0.6
-					* (tf / (tf + 0.5d + 1.5 * (docLen / avgDocLen)))
-					* (Math.log(cs / df) / Math.log(cs));
-			w2 += w;
+	private TopDocs getRanking(Class<? extends WeighingFunction> functionClass) {
+		for (int f = 0; f < this.weighingFunctions.length; f++) {
+			if (functionClass.isInstance(this.weighingFunctions[f]))
+				return this.docRankings[f];
 		}
-		this.docRankingByW2.put(docId, w2);
+		return null;
 	}
 
 	/**
-	 * This method returns the score of this query with each document calculated
-	 * using weighing function 1.
+	 * This method returns the top ranked documents and their scores calculated
+	 * using weighing function 1, from the best to the worst.
 	 * 
 	 * @return
 	 */
-	public Map<Integer, Double> getRankingByW1() {
-		return this.docRankingByW1;
+	public TopDocs getRankingByW1() {
+		return getRanking(WeighingFunction1.class);
 	}
 
 	/**
-	 * This method returns the score of this query with each document calculated
-	 * using weighing function 1.
+	 * This method returns the top ranked documents and their scores calculated
+	 * using weighing function 2, from the best to the worst.
 	 * 
 	 * @return
 	 */
-	public Map<Integer, Double> getRankingByW2() {
-		return this.docRankingByW2;
+	public TopDocs getRankingByW2() {
+		return getRanking(WeighingFunction2.class);
 	}
 
 }
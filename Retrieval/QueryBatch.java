@@ -0,0 +1,154 @@
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class ranks the documents for a batch of queries concurrently on an
+ * executor, against a read-only view of an index. Every query is indexed and
+ * ranked by a task of its own, and the queries are returned in the order they
+ * were given, whatever the order in which their tasks end.
+ *
+ * The executor is selected by the "query.batch.executor" system property:
+ * none (the default) ranks the queries one at a time in the calling thread,
+ * platform on a pool of platform threads, as many as the "query.batch.threads"
+ * system property tells (the number of processors by default), and virtual on
+ * a virtual thread per query, falling back to platform threads when the Java
+ * runtime has no virtual threads.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class QueryBatch {
+
+	private Index index;
+	private TreeMap<String, String> stopWords;
+	private int k;
+
+	/**
+	 * The constructor creates a batch ranking the k top documents of the
+	 * queries against a read-only view of an index.
+	 *
+	 * @param index
+	 * @param stopWords
+	 * @param k
+	 */
+	public QueryBatch(Index index, TreeMap<String, String> stopWords, int k) {
+		this.index = index.readOnlyView();
+		this.stopWords = stopWords;
+		this.k = k;
+	}
+
+	/**
+	 * This method ranks the documents for the queries on the executor
+	 * selected by the system properties, which is shut down afterwards.
+	 *
+	 * @param queries
+	 * @return the ranked queries, in the order of the given queries.
+	 * @throws IOException
+	 */
+	public Query[] rank(String[] queries) throws IOException {
+		String kind = System.getProperty("query.batch.executor", "none");
+		if (kind.equals("none"))
+			return rank(queries, null);
+		ExecutorService executor = newExecutor(kind, Integer.getInteger(
+				"query.batch.threads", Runtime.getRuntime()
+						.availableProcessors()));
+		try {
+			return rank(queries, executor);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * This method ranks the documents for the queries on an executor, or in
+	 * the calling thread if the executor is null.
+	 *
+	 * @param queries
+	 * @param executor
+	 * @return the ranked queries, in the order of the given queries.
+	 * @throws IOException
+	 */
+	public Query[] rank(String[] queries, ExecutorService executor)
+			throws IOException {
+		Query[] rankedQueries = new Query[queries.length];
+		if (executor == null) {
+			for (int i = 0; i < queries.length; i++) {
+				rankedQueries[i] = rank(queries[i]);
+			}
+			return rankedQueries;
+		}
+		List<Future<Query>> futures = new ArrayList<Future<Query>>(
+				queries.length);
+		for (final String query : queries) {
+			futures.add(executor.submit(new Callable<Query>() {
+				public Query call() {
+					return rank(query);
+				}
+			}));
+		}
+		try {
+			for (int i = 0; i < queries.length; i++) {
+				rankedQueries[i] = futures.get(i).get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while ranking the queries", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			if (e.getCause() instanceof Error)
+				throw (Error) e.getCause();
+			throw new IOException(e.getCause());
+		} finally {
+			for (Future<Query> future : futures) {
+				future.cancel(true);
+			}
+		}
+		return rankedQueries;
+	}
+
+	/**
+	 * This method indexes a query and ranks the documents for it.
+	 */
+	private Query rank(String query) {
+		Query q = new Query();
+		q.indexQuery(query, stopWords);
+		q.generateRaking(index, k);
+		return q;
+	}
+
+	/**
+	 * This method creates an executor of the given kind, platform or virtual.
+	 * Virtual threads are looked up by reflection, so that the class still
+	 * runs on Java runtimes without them, on which a pool of platform threads
+	 * is created instead.
+	 *
+	 * @param kind
+	 * @param threads
+	 *            number of platform threads.
+	 * @return
+	 */
+	public static ExecutorService newExecutor(String kind, int threads) {
+		if (kind.equals("virtual")) {
+			try {
+				Method factory = Executors.class
+						.getMethod("newVirtualThreadPerTaskExecutor");
+				return (ExecutorService) factory.invoke(null);
+			} catch (Exception e) {
+				System.err.println("Virtual threads are not available,"
+						+ " using platform threads");
+			}
+		} else if (!kind.equals("platform")) {
+			throw new IllegalArgumentException("Unknown executor: " + kind);
+		}
+		return Executors.newFixedThreadPool(threads);
+	}
+}
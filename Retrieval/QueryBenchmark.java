@@ -0,0 +1,255 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * This program measures the time taken to rank the documents for the queries
+ * of a query file by every query evaluator. The rankings of the exhaustive
+ * term at a time evaluator of Query.generateRaking are the reference, and the
+ * program checks that every other evaluator ranks the same documents with
+ * bit for bit the same scores. The approximate evaluators are measured too,
+ * with the recall of their top k against the reference for every weighing
+ * function instead of the check. The index file is memory-mapped if the
+ * "index.mapped" system property is set.
+ *
+ * Before the measurements, every exact evaluator ranks every query with sparse
+ * accumulators lent fresh from a query touching no document, so that they
+ * must grow, and is checked against the rankings of dense accumulators.
+ *
+ * Usage: QueryBenchmark index-file query-file stop-word-file [k]
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class QueryBenchmark {
+
+	/**
+	 * This stores the location of doc.info file, used only when the index file
+	 * does not contain the document information.
+	 */
+	private static final String docInfoFile = "resources/docs.info";
+
+	/**
+	 * This is the number of times every measurement is repeated.
+	 */
+	private static final int ROUNDS = 10;
+
+	/**
+	 * These are the evaluators which are measured, the first one being the
+	 * reference.
+	 */
+	private static final String[] EVALUATOR_NAMES = { "taat", "daat",
+			"parallel", "wand", "maxscore", "bmw" };
+
+	/**
+	 * These are the approximate evaluators which are measured.
+	 */
+	private static final String[] APPROXIMATE_EVALUATOR_NAMES = { "saat" };
+
+	public static void main(String[] args) throws IOException,
+			ClassNotFoundException {
+		Index index = new Index();
+		if (Boolean.getBoolean("index.mapped"))
+			index.mapIndex(args[0]);
+		else
+			index.constructIndex(args[0]);
+		if (!index.hasDocInfo())
+			index.loadDocInfo(docInfoFile);
+		int k = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+		TreeMap<String, String> stopWords = Util.getStopWordsFromFile(args[2]);
+		List<Query> queries = new ArrayList<Query>();
+		for (String query : Client.getQueries(args[1])) {
+			if (query.length() != 0) {
+				Query q = new Query();
+				q.indexQuery(query, stopWords);
+				queries.add(q);
+			}
+		}
+		System.out.println("Queries : " + queries.size() + ", documents : "
+				+ index.collectionSize() + ", k : " + k);
+		checkGrownSparseAccumulators(index, queries, stopWords, k);
+
+		// every evaluator is run once before the measurements, so that all of
+		// them are compiled by the JIT when they are measured.
+		for (String name : allEvaluatorNames()) {
+			QueryEvaluator evaluator = Query.getEvaluator(name);
+			for (int round = 0; round < ROUNDS; round++) {
+				for (Query q : queries) {
+					q.generateRaking(index, k, evaluator,
+							Query.WEIGHING_FUNCTIONS);
+				}
+			}
+		}
+
+		System.out.printf("%-14s%16s%12s%12s%12s\n", "Evaluator",
+				"Time/query (us)", "Speedup", "Recall W1", "Recall W2");
+		TopDocs[][] reference = null;
+		double referenceTime = 0.0d;
+		for (String name : allEvaluatorNames()) {
+			QueryEvaluator evaluator = Query.getEvaluator(name);
+			TopDocs[][] rankings = new TopDocs[queries.size()][];
+			long bestTime = Long.MAX_VALUE;
+			for (int round = 0; round < ROUNDS; round++) {
+				long startTime = System.nanoTime();
+				for (int i = 0; i < queries.size(); i++) {
+					Query q = queries.get(i);
+					q.generateRaking(index, k, evaluator,
+							Query.WEIGHING_FUNCTIONS);
+					rankings[i] = new TopDocs[] { q.getRanking(0),
+							q.getRanking(1) };
+				}
+				bestTime = Math.min(bestTime, System.nanoTime() - startTime);
+			}
+			double time = bestTime / 1000.0d / queries.size();
+			if (reference == null) {
+				reference = rankings;
+				referenceTime = time;
+			}
+			if (evaluator instanceof ScoreAtATimeEvaluator) {
+				System.out.printf("%-14s%16.1f%12.2f%12.4f%12.4f\n", name,
+						time, referenceTime / time, recall(reference,
+								rankings, 0), recall(reference, rankings, 1));
+				System.out.println("  "
+						+ ((ScoreAtATimeEvaluator) evaluator).getReport());
+				continue;
+			}
+			check(name, reference, rankings);
+			System.out.printf("%-14s%16.1f%12.2f%12.4f%12.4f\n", name, time,
+					referenceTime / time, 1.0d, 1.0d);
+			if (evaluator instanceof DynamicPruningEvaluator)
+				System.out.println("  "
+						+ ((DynamicPruningEvaluator) evaluator).getReport());
+		}
+	}
+
+	/**
+	 * This method checks that every exact evaluator ranks the queries with
+	 * sparse accumulators reused from a smaller query like the term at a time
+	 * evaluator with dense accumulators. Before every query, the shared pool
+	 * is replaced by a pool of sparse accumulators, into which a query without
+	 * any term returns the smallest one.
+	 *
+	 * @param index
+	 * @param queries
+	 * @param stopWords
+	 * @param k
+	 */
+	private static void checkGrownSparseAccumulators(Index index,
+			List<Query> queries, TreeMap<String, String> stopWords, int k) {
+		AccumulatorPool sharedPool = AccumulatorPool.getShared();
+		try {
+			AccumulatorPool.setShared(new AccumulatorPool("dense"));
+			TopDocs[][] reference = rank(index, queries, k,
+					Query.getEvaluator(EVALUATOR_NAMES[0]), null);
+			Query emptyQuery = new Query();
+			emptyQuery.indexQuery("", stopWords);
+			for (String name : EVALUATOR_NAMES) {
+				check(name + " (sparse)", reference, rank(index, queries, k,
+						Query.getEvaluator(name), emptyQuery));
+			}
+		} finally {
+			AccumulatorPool.setShared(sharedPool);
+		}
+		System.out.println("Grown sparse accumulators rank like dense ones");
+	}
+
+	/**
+	 * This method ranks the queries with an evaluator. If a first query is
+	 * given, every query is ranked with a new pool of sparse accumulators,
+	 * after the first query.
+	 *
+	 * @param index
+	 * @param queries
+	 * @param k
+	 * @param evaluator
+	 * @param firstQuery
+	 * @return the rankings of every query for every weighing function.
+	 */
+	private static TopDocs[][] rank(Index index, List<Query> queries, int k,
+			QueryEvaluator evaluator, Query firstQuery) {
+		TopDocs[][] rankings = new TopDocs[queries.size()][];
+		for (int i = 0; i < queries.size(); i++) {
+			if (firstQuery != null) {
+				AccumulatorPool.setShared(new AccumulatorPool("sparse"));
+				firstQuery.generateRaking(index, k, evaluator,
+						Query.WEIGHING_FUNCTIONS);
+			}
+			Query q = queries.get(i);
+			q.generateRaking(index, k, evaluator, Query.WEIGHING_FUNCTIONS);
+			rankings[i] = new TopDocs[] { q.getRanking(0), q.getRanking(1) };
+		}
+		return rankings;
+	}
+
+	/**
+	 * This method returns the names of the exact evaluators followed by the
+	 * approximate ones.
+	 *
+	 * @return
+	 */
+	private static String[] allEvaluatorNames() {
+		String[] names = new String[EVALUATOR_NAMES.length
+				+ APPROXIMATE_EVALUATOR_NAMES.length];
+		System.arraycopy(EVALUATOR_NAMES, 0, names, 0, EVALUATOR_NAMES.length);
+		System.arraycopy(APPROXIMATE_EVALUATOR_NAMES, 0, names,
+				EVALUATOR_NAMES.length, APPROXIMATE_EVALUATOR_NAMES.length);
+		return names;
+	}
+
+	/**
+	 * This method returns the fraction of the documents ranked by the
+	 * reference for a weighing function which an evaluator ranks too, over all
+	 * the queries.
+	 *
+	 * @param reference
+	 * @param rankings
+	 * @param function
+	 * @return
+	 */
+	private static double recall(TopDocs[][] reference, TopDocs[][] rankings,
+			int function) {
+		long expectedCount = 0, foundCount = 0;
+		for (int i = 0; i < reference.length; i++) {
+			TopDocs expected = reference[i][function], actual = rankings[i][function];
+			Set<Integer> docIds = new HashSet<Integer>();
+			for (int rank = 0; rank < actual.size(); rank++) {
+				docIds.add(actual.docId(rank));
+			}
+			for (int rank = 0; rank < expected.size(); rank++) {
+				if (docIds.contains(expected.docId(rank)))
+					foundCount++;
+			}
+			expectedCount += expected.size();
+		}
+		return expectedCount == 0 ? 1.0d : (double) foundCount / expectedCount;
+	}
+
+	/**
+	 * This method checks that an evaluator ranks the same documents with the
+	 * same scores as the reference.
+	 *
+	 * @param name
+	 * @param reference
+	 * @param rankings
+	 */
+	private static void check(String name, TopDocs[][] reference,
+			TopDocs[][] rankings) {
+		for (int i = 0; i < reference.length; i++) {
+			for (int f = 0; f < reference[i].length; f++) {
+				TopDocs expected = reference[i][f], actual = rankings[i][f];
+				boolean same = expected.size() == actual.size();
+				for (int rank = 0; same && rank < expected.size(); rank++) {
+					same = expected.docId(rank) == actual.docId(rank)
+							&& Double.compare(expected.score(rank),
+									actual.score(rank)) == 0;
+				}
+				if (!same)
+					throw new IllegalStateException(name + ": query "
+							+ (i + 1) + " is not ranked like the reference");
+			}
+		}
+	}
+}
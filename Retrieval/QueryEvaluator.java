@@ -0,0 +1,26 @@
+/**
+ * This interface represents a strategy to rank the documents of an index for
+ * the terms of a query. Every strategy ranks the documents exactly the way
+ * scoring every document term by term in the order of the query would.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public interface QueryEvaluator {
+
+	/**
+	 * This method returns for each weighing function the k documents with the
+	 * highest scores, from the best to the worst, the documents with equal
+	 * scores being ranked by ascending docId.
+	 *
+	 * @param index
+	 * @param queryTerms
+	 *            terms of the query in the order they are scored.
+	 * @param k
+	 *            number of documents to rank.
+	 * @param functions
+	 * @return
+	 */
+	public TopDocs[] evaluate(Index index, String[] queryTerms, int k,
+			WeighingFunction[] functions);
+}
@@ -0,0 +1,73 @@
+/**
+ * This interface represents the scores of the documents for a query, which
+ * start at 0 and are added to term by term. The documents which have been
+ * touched, i.e. added to, are listed so that the accumulator can be read and
+ * cleared without going over the whole collection.
+ *
+ * Accumulators are reused from query to query through an AccumulatorPool.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public interface ScoreAccumulator {
+
+	/**
+	 * This method makes room for the docIds from 0 to capacity - 1.
+	 *
+	 * @param capacity
+	 */
+	public void ensureCapacity(int capacity);
+
+	/**
+	 * This method marks a document as touched without changing its score.
+	 *
+	 * @param docId
+	 */
+	public void touch(int docId);
+
+	/**
+	 * This method adds a value to the score of a document and marks it as
+	 * touched.
+	 *
+	 * @param docId
+	 * @param value
+	 */
+	public void add(int docId, double value);
+
+	/**
+	 * This method returns the score of a document, 0 if it is not touched.
+	 *
+	 * @param docId
+	 * @return
+	 */
+	public double score(int docId);
+
+	public boolean isTouched(int docId);
+
+	/**
+	 * This method returns the number of touched documents.
+	 *
+	 * @return
+	 */
+	public int touchedCount();
+
+	/**
+	 * This method returns the i-th touched document, in the order in which
+	 * they were touched, or by ascending docId after sortTouched.
+	 *
+	 * @param i
+	 * @return
+	 */
+	public int touchedDocId(int i);
+
+	/**
+	 * This method sorts the touched documents by ascending docId.
+	 */
+	public void sortTouched();
+
+	/**
+	 * This method resets the scores of the touched documents to 0, in time
+	 * proportional to their number.
+	 */
+	public void clear();
+}
@@ -0,0 +1,205 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class ranks the documents for a query score at a time over the
+ * impact-ordered layout of the index (Anh and Moffat, Pruned query evaluation
+ * using pre-computed impacts). It trades exactness for speed: the rankings are
+ * approximate, and the evaluator can stop early.
+ *
+ * For every weighing function, the segments of the impact-ordered postings of
+ * all the query terms are processed from the highest gain to the lowest,
+ * adding the gain of the impact of every posting, on the scale of its term, to
+ * the accumulator of its document. The evaluation stops when all the segments
+ * are processed, when the number of postings processed reaches the postings
+ * budget, or when the time limit is over, so that the postings contributing
+ * most to the scores are the ones processed first. The score of a document is
+ * then its baseline score plus its accumulated gains, and the documents which
+ * were not reached are ranked by their baseline score.
+ *
+ * Without a budget the rankings differ from the exact ones only by the
+ * quantization of the gains. The postings budget is set by the
+ * "query.saat.postings" system property and the time limit, in microseconds,
+ * by the "query.saat.micros" system property, 0 meaning no limit; both apply
+ * to every weighing function.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class ScoreAtATimeEvaluator implements QueryEvaluator {
+
+	/**
+	 * This is the number of postings processed between two looks at the
+	 * clock.
+	 */
+	private static final int CLOCK_INTERVAL = 1024;
+
+	private long postingsBudget, timeLimit;
+
+	private AtomicLong queries = new AtomicLong();
+	private AtomicLong postings = new AtomicLong();
+	private AtomicLong processedPostings = new AtomicLong();
+	private AtomicLong earlyStops = new AtomicLong();
+
+	/**
+	 * The constructor creates an evaluator with the postings budget and the
+	 * time limit given by the system properties.
+	 */
+	public ScoreAtATimeEvaluator() {
+		this(Long.getLong("query.saat.postings", 0L), Long.getLong(
+				"query.saat.micros", 0L));
+	}
+
+	/**
+	 * The constructor creates an evaluator with the given postings budget and
+	 * time limit.
+	 *
+	 * @param postingsBudget
+	 *            largest number of postings processed per weighing function,
+	 *            0 for no limit.
+	 * @param timeLimit
+	 *            time limit per weighing function in microseconds, 0 for no
+	 *            limit.
+	 */
+	public ScoreAtATimeEvaluator(long postingsBudget, long timeLimit) {
+		this.postingsBudget = postingsBudget > 0 ? postingsBudget
+				: Long.MAX_VALUE;
+		this.timeLimit = timeLimit > 0 ? timeLimit * 1000L : Long.MAX_VALUE;
+	}
+
+	public TopDocs[] evaluate(Index index, String[] queryTerms, int k,
+			WeighingFunction[] functions) {
+		CollectionStats stats = index.getCollectionStats();
+		int cs = stats.collectionSize();
+		int m = queryTerms.length, n = functions.length;
+		double[] idf = new double[m];
+		for (int t = 0; t < m; t++) {
+			idf[t] = stats.idf(queryTerms[t]);
+		}
+		AccumulatorPool pool = AccumulatorPool.getShared();
+		BaselineScores baselines = new BaselineScores(stats, idf, functions);
+		TopDocs[] rankings = new TopDocs[n];
+		try {
+			for (int f = 0; f < n; f++) {
+				ImpactIndex impactIndex = stats.getImpactIndex(functions[f]);
+				ImpactPostings[] termPostings = new ImpactPostings[m];
+				long postingsCount = 0;
+				int segmentCount = 0;
+				for (int t = 0; t < m; t++) {
+					termPostings[t] = impactIndex.getPostings(queryTerms[t]);
+					if (termPostings[t] == null)
+						continue;
+					postingsCount += termPostings[t].start(termPostings[t]
+							.segments());
+					segmentCount += termPostings[t].segments();
+				}
+				ScoreAccumulator gains = pool.borrow(cs + 1, Math.min(
+						postingsCount, postingsBudget));
+				try {
+					long processed = process(termPostings, segmentCount,
+							gains);
+					postings.addAndGet(postingsCount);
+					processedPostings.addAndGet(processed);
+					if (processed < postingsCount)
+						earlyStops.incrementAndGet();
+					rankings[f] = rank(gains, baselines, f, stats
+							.getBaselineKeyIndex(functions[f]), k);
+				} finally {
+					pool.release(gains);
+				}
+			}
+		} finally {
+			baselines.release();
+		}
+		queries.incrementAndGet();
+		return rankings;
+	}
+
+	/**
+	 * This method adds the gains of the segments to the accumulator from the
+	 * highest gain to the lowest until the budget or the time is over, and
+	 * returns the number of postings processed.
+	 */
+	private long process(ImpactPostings[] termPostings, int segmentCount,
+			ScoreAccumulator gains) {
+		// the segments packed as the bits of their gain as a float, which
+		// order like the gains since they are positive, term and segment in a
+		// long, so that sorting them sorts them by gain.
+		long[] segments = new long[segmentCount];
+		int count = 0;
+		for (int t = 0; t < termPostings.length; t++) {
+			if (termPostings[t] == null)
+				continue;
+			for (int s = 0; s < termPostings[t].segments(); s++) {
+				long gainBits = Float.floatToIntBits((float) termPostings[t]
+						.gain(s));
+				segments[count++] = (gainBits << 32) | ((long) t << 8) | s;
+			}
+		}
+		Arrays.sort(segments);
+
+		long deadline = timeLimit == Long.MAX_VALUE ? Long.MAX_VALUE : System
+				.nanoTime() + timeLimit;
+		long processed = 0;
+		for (int i = count - 1; i >= 0 && processed < postingsBudget; i--) {
+			ImpactPostings segmentPostings = termPostings[(int) (segments[i] >>> 8) & 0xffffff];
+			int s = (int) segments[i] & 0xff;
+			double gain = segmentPostings.gain(s);
+			int end = segmentPostings.end(s);
+			for (int p = segmentPostings.start(s); p < end; p++) {
+				if (processed == postingsBudget)
+					break;
+				if (processed % CLOCK_INTERVAL == 0 && deadline != Long.MAX_VALUE
+						&& System.nanoTime() > deadline)
+					return processed;
+				gains.add(segmentPostings.docId(p), gain);
+				processed++;
+			}
+		}
+		return processed;
+	}
+
+	/**
+	 * This method ranks the documents reached by their baseline score plus
+	 * their accumulated gains, and the other ones by their baseline score, key
+	 * by key of the BaselineKeyIndex.
+	 */
+	private TopDocs rank(ScoreAccumulator gains, BaselineScores baselines,
+			int function, BaselineKeyIndex keyIndex, int k) {
+		TopKCollector topDocs = new TopKCollector(k);
+		for (int i = 0; i < gains.touchedCount(); i++) {
+			int docId = gains.touchedDocId(i);
+			topDocs.collect(docId, baselines.score(function, docId)
+					+ gains.score(docId));
+		}
+		for (int key = 0; key < keyIndex.keys(); key++) {
+			int start = keyIndex.start(key), end = keyIndex.end(key);
+			if (start == end)
+				continue;
+			double score = baselines.score(function, keyIndex.docId(start));
+			// the documents of a key are ranked by ascending docId.
+			for (int i = start; i < end; i++) {
+				int docId = keyIndex.docId(i);
+				if (!topDocs.isCompetitive(docId, score))
+					break;
+				if (!gains.isTouched(docId))
+					topDocs.collect(docId, score);
+			}
+		}
+		return topDocs.topDocs();
+	}
+
+	/**
+	 * This method returns a line telling how many postings were processed.
+	 *
+	 * @return
+	 */
+	public String getReport() {
+		long total = postings.get(), processed = processedPostings.get();
+		return String.format(
+				"ScoreAtATime : %d queries, %d of %d impact postings processed"
+						+ " (%.2f%%), %d early stops", queries.get(), processed,
+				total, total == 0 ? 0.0d : 100.0d * processed / total,
+				earlyStops.get());
+	}
+}
@@ -0,0 +1,156 @@
+import java.util.Arrays;
+
+/**
+ * This class keeps the scores of the touched documents only, in an open
+ * addressing hash table with linear probing. Its memory depends on the number
+ * of touched documents instead of the size of the collection, which suits
+ * selective queries on very large collections.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class SparseAccumulator implements ScoreAccumulator {
+
+	/**
+	 * The table is grown when more than this share of its slots are used.
+	 */
+	private static final double LOAD_FACTOR = 0.5d;
+
+	private int[] keys;
+	private double[] scores;
+	private boolean[] used;
+
+	/**
+	 * The slot of a docId is given by the top bits of its Fibonacci hash, this
+	 * is 32 minus the number of bits of the table size.
+	 */
+	private int shift;
+
+	/**
+	 * These are the touched documents and the slots holding them.
+	 */
+	private int[] touchedDocIds, touchedSlots;
+	private int touchedCount;
+
+	/**
+	 * The constructor creates an accumulator for about the given number of
+	 * documents, it grows if more are touched.
+	 *
+	 * @param expectedDocs
+	 */
+	public SparseAccumulator(int expectedDocs) {
+		int tableSize = 16;
+		while (tableSize * LOAD_FACTOR < expectedDocs)
+			tableSize <<= 1;
+		this.keys = new int[tableSize];
+		this.scores = new double[tableSize];
+		this.used = new boolean[tableSize];
+		this.shift = 32 - Integer.numberOfTrailingZeros(tableSize);
+		this.touchedDocIds = new int[16];
+		this.touchedSlots = new int[16];
+	}
+
+	/**
+	 * Any docId fits into the table, so nothing is done.
+	 */
+	public void ensureCapacity(int capacity) {
+	}
+
+	/**
+	 * This method returns the slot holding a docId, or the free slot where it
+	 * belongs.
+	 */
+	private int slot(int docId) {
+		int mask = keys.length - 1;
+		int slot = (docId * 0x9E3779B9) >>> shift;
+		while (used[slot] && keys[slot] != docId)
+			slot = (slot + 1) & mask;
+		return slot;
+	}
+
+	/**
+	 * This method returns the slot of a docId, adding it to the table if it
+	 * is not there yet.
+	 */
+	private int touchSlot(int docId) {
+		int slot = slot(docId);
+		if (!used[slot]) {
+			if (touchedCount + 1 > keys.length * LOAD_FACTOR) {
+				rehash(2 * keys.length);
+				slot = slot(docId);
+			}
+			used[slot] = true;
+			keys[slot] = docId;
+			if (touchedCount == touchedDocIds.length) {
+				touchedDocIds = Arrays.copyOf(touchedDocIds, 2 * touchedCount);
+				touchedSlots = Arrays.copyOf(touchedSlots, 2 * touchedCount);
+			}
+			touchedDocIds[touchedCount] = docId;
+			touchedSlots[touchedCount++] = slot;
+		}
+		return slot;
+	}
+
+	/**
+	 * This method moves all the touched documents to a table of a new size.
+	 */
+	private void rehash(int tableSize) {
+		double[] oldScores = scores;
+		int[] oldSlots = touchedSlots;
+		keys = new int[tableSize];
+		scores = new double[tableSize];
+		used = new boolean[tableSize];
+		shift = 32 - Integer.numberOfTrailingZeros(tableSize);
+		touchedSlots = new int[touchedDocIds.length];
+		for (int i = 0; i < touchedCount; i++) {
+			int slot = slot(touchedDocIds[i]);
+			used[slot] = true;
+			keys[slot] = touchedDocIds[i];
+			scores[slot] = oldScores[oldSlots[i]];
+			touchedSlots[i] = slot;
+		}
+	}
+
+	public void touch(int docId) {
+		touchSlot(docId);
+	}
+
+	public void add(int docId, double value) {
+		// the slot is found first, since it may move the scores to a new table.
+		int slot = touchSlot(docId);
+		scores[slot] += value;
+	}
+
+	public double score(int docId) {
+		int slot = slot(docId);
+		return used[slot] ? scores[slot] : 0.0d;
+	}
+
+	public boolean isTouched(int docId) {
+		return used[slot(docId)];
+	}
+
+	public int touchedCount() {
+		return touchedCount;
+	}
+
+	public int touchedDocId(int i) {
+		return touchedDocIds[i];
+	}
+
+	public void sortTouched() {
+		Arrays.sort(touchedDocIds, 0, touchedCount);
+		for (int i = 0; i < touchedCount; i++) {
+			touchedSlots[i] = slot(touchedDocIds[i]);
+		}
+	}
+
+	public void clear() {
+		for (int i = 0; i < touchedCount; i++) {
+			int slot = touchedSlots[i];
+			used[slot] = false;
+			scores[slot] = 0.0d;
+		}
+		touchedCount = 0;
+	}
+}
@@ -0,0 +1,119 @@
+/**
+ * This class ranks the documents for a query term at a time, with several
+ * weighing functions at once.
+ *
+ * Only the posting lists of the query terms are traversed, once for all the
+ * weighing functions. The documents found in them are touched in score
+ * accumulators borrowed from the accumulator pool, one per weighing function,
+ * and then scored term by term in the order of the query, adding the score of
+ * every term, whether the document contains it or not, so that all the scores
+ * are exactly the ones of scoring every document. The documents containing
+ * none of the query terms are scored by BaselineScores, one key of the
+ * BaselineKeyIndex of every weighing function at a time, and only the first
+ * documents of a key which can still make it into the top k are looked at,
+ * so the cost of a query depends on the length of the posting lists of its
+ * terms and on the number of keys rather than on the size of the collection.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class TermAtATimeEvaluator implements QueryEvaluator {
+
+	public TopDocs[] evaluate(Index index, String[] queryTerms, int k,
+			WeighingFunction[] functions) {
+		CollectionStats stats = index.getCollectionStats();
+		int cs = stats.collectionSize();
+		double[] idf = new double[queryTerms.length];
+		PostingCursor[] postings = new PostingCursor[queryTerms.length];
+		long postingsCount = 0;
+		for (int t = 0; t < queryTerms.length; t++) {
+			idf[t] = stats.idf(queryTerms[t]);
+			postings[t] = index.getPostingCursor(queryTerms[t]);
+			if (postings[t] != null)
+				postingsCount += postings[t].size();
+		}
+
+		int n = functions.length;
+		AccumulatorPool pool = AccumulatorPool.getShared();
+		ScoreAccumulator touched = pool.borrow(cs + 1, postingsCount);
+		ScoreAccumulator[] scores = new ScoreAccumulator[n];
+		BaselineScores baselines = null;
+		try {
+			for (int f = 0; f < n; f++) {
+				scores[f] = pool.borrow(cs + 1, postingsCount);
+			}
+			baselines = new BaselineScores(stats, idf, functions);
+			// touch the documents containing at least one of the terms.
+			for (PostingCursor termPostings : postings) {
+				if (termPostings == null)
+					continue;
+				for (int i = 0; i < termPostings.size(); i++) {
+					touched.touch(termPostings.docId(i));
+				}
+			}
+			touched.sortTouched();
+
+			int touchedCount = touched.touchedCount();
+			for (int t = 0; t < queryTerms.length; t++) {
+				PostingCursor termPostings = postings[t];
+				int size = termPostings == null ? 0 : termPostings.size();
+				int p = 0;
+				// merge the sorted touched documents with the posting list.
+				for (int i = 0; i < touchedCount; i++) {
+					int docId = touched.touchedDocId(i);
+					while (p < size && termPostings.docId(p) < docId)
+						p++;
+					int tf = p < size && termPostings.docId(p) == docId ? termPostings
+							.termFreq(p) : 0;
+					for (int f = 0; f < n; f++) {
+						scores[f].add(docId,
+								functions[f].score(tf, idf[t], stats, docId));
+					}
+				}
+			}
+
+			TopKCollector[] topDocs = new TopKCollector[n];
+			for (int f = 0; f < n; f++) {
+				topDocs[f] = new TopKCollector(k);
+			}
+			for (int i = 0; i < touchedCount; i++) {
+				int docId = touched.touchedDocId(i);
+				for (int f = 0; f < n; f++) {
+					topDocs[f].collect(docId, scores[f].score(docId));
+				}
+			}
+			// the documents containing none of the terms, key by key.
+			for (int f = 0; f < n; f++) {
+				BaselineKeyIndex keyIndex = stats
+						.getBaselineKeyIndex(functions[f]);
+				for (int key = 0; key < keyIndex.keys(); key++) {
+					int start = keyIndex.start(key), end = keyIndex.end(key);
+					if (start == end)
+						continue;
+					double score = baselines.score(f, keyIndex.docId(start));
+					// the documents of a key are ranked by ascending docId.
+					for (int j = start; j < end; j++) {
+						int docId = keyIndex.docId(j);
+						if (!topDocs[f].isCompetitive(docId, score))
+							break;
+						if (!touched.isTouched(docId))
+							topDocs[f].collect(docId, score);
+					}
+				}
+			}
+			TopDocs[] rankings = new TopDocs[n];
+			for (int f = 0; f < n; f++) {
+				rankings[f] = topDocs[f].topDocs();
+			}
+			return rankings;
+		} finally {
+			pool.release(touched);
+			for (int f = 0; f < n; f++) {
+				if (scores[f] != null)
+					pool.release(scores[f]);
+			}
+			if (baselines != null)
+				baselines.release();
+		}
+	}
+}
@@ -0,0 +1,80 @@
+/**
+ * This class holds the bounds of the postings of a term from which weighing
+ * functions bound the score of the term in any document containing it: the
+ * largest term frequency, and the smallest docLen and maxF of the documents
+ * containing the term. A smallest docLen or maxF of 0 means it is not known.
+ *
+ * The bounds are stored in the dictionary of index files of version 2, and
+ * computed from the posting list of the term for older index files.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class TermBounds {
+
+	private int maxTermFreq, minDocLen, minMaxF;
+
+	/**
+	 * The constructor initializes the bounds.
+	 *
+	 * @param maxTermFreq
+	 * @param minDocLen
+	 * @param minMaxF
+	 */
+	public TermBounds(int maxTermFreq, int minDocLen, int minMaxF) {
+		this.maxTermFreq = maxTermFreq;
+		this.minDocLen = minDocLen;
+		this.minMaxF = minMaxF;
+	}
+
+	/**
+	 * This method computes the bounds of a posting list.
+	 *
+	 * @param postings
+	 * @param stats
+	 * @return
+	 */
+	public static TermBounds compute(PostingCursor postings,
+			CollectionStats stats) {
+		int maxTermFreq = 0;
+		int minDocLen = Integer.MAX_VALUE, minMaxF = Integer.MAX_VALUE;
+		for (int i = 0; i < postings.size(); i++) {
+			int docId = postings.docId(i);
+			maxTermFreq = Math.max(maxTermFreq, postings.termFreq(i));
+			minDocLen = Math.min(minDocLen, stats.docLen(docId));
+			minMaxF = Math.min(minMaxF, stats.maxF(docId));
+		}
+		if (postings.size() == 0)
+			return new TermBounds(0, 0, 0);
+		return new TermBounds(maxTermFreq, minDocLen, minMaxF);
+	}
+
+	/**
+	 * This method returns the largest term frequency of the term.
+	 *
+	 * @return
+	 */
+	public int maxTermFreq() {
+		return maxTermFreq;
+	}
+
+	/**
+	 * This method returns the smallest docLen of the documents containing the
+	 * term, or 0 if it is not known.
+	 *
+	 * @return
+	 */
+	public int minDocLen() {
+		return minDocLen;
+	}
+
+	/**
+	 * This method returns the smallest maxF of the documents containing the
+	 * term, or 0 if it is not known.
+	 *
+	 * @return
+	 */
+	public int minMaxF() {
+		return minMaxF;
+	}
+}
@@ -0,0 +1,54 @@
+/**
+ * This class holds the documents ranked for a query, from the best to the
+ * worst, as a pair of arrays of docIds and scores.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class TopDocs {
+
+	private int[] docIds;
+	private double[] scores;
+
+	/**
+	 * The constructor initializes the ranked documents.
+	 *
+	 * @param docIds
+	 * @param scores
+	 */
+	public TopDocs(int[] docIds, double[] scores) {
+		this.docIds = docIds;
+		this.scores = scores;
+	}
+
+	/**
+	 * This method returns the number of ranked documents.
+	 *
+	 * @return
+	 */
+	public int size() {
+		return docIds.length;
+	}
+
+	/**
+	 * This method returns the docId of the document at the given rank,
+	 * starting from 0.
+	 *
+	 * @param rank
+	 * @return
+	 */
+	public int docId(int rank) {
+		return docIds[rank];
+	}
+
+	/**
+	 * This method returns the score of the document at the given rank,
+	 * starting from 0.
+	 *
+	 * @param rank
+	 * @return
+	 */
+	public double score(int rank) {
+		return scores[rank];
+	}
+}
@@ -0,0 +1,143 @@
+/**
+ * This class keeps the k documents with the highest scores out of all the
+ * documents it is given, in a binary min-heap of (docId, score) pairs stored
+ * in two primitive arrays. The root of the heap is the worst of the kept
+ * documents, so a document is kept only if it is better than the root, and
+ * collecting N documents costs O(N log k) without creating any object.
+ *
+ * A document is better than another if its score is higher, or if the scores
+ * are equal and its docId is lower, the scores being compared by
+ * Double.compare. This is the order of a stable sort of the documents by
+ * descending score, so the ranking does not depend on the order in which the
+ * documents are collected.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class TopKCollector {
+
+	private int[] docIds;
+	private double[] scores;
+	private int size;
+
+	/**
+	 * The constructor creates a collector keeping k documents.
+	 *
+	 * @param k
+	 */
+	public TopKCollector(int k) {
+		this.docIds = new int[k];
+		this.scores = new double[k];
+	}
+
+	/**
+	 * This method empties the collector, so that it can be used for another
+	 * query.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * This method tells whether the first document is better than the second.
+	 */
+	private static boolean isBetter(int docId1, double score1, int docId2,
+			double score2) {
+		int comparison = Double.compare(score1, score2);
+		return comparison > 0 || (comparison == 0 && docId1 < docId2);
+	}
+
+	/**
+	 * This method tells whether a document with the given score would be
+	 * kept if it was collected now.
+	 *
+	 * @param docId
+	 * @param score
+	 * @return
+	 */
+	public boolean isCompetitive(int docId, double score) {
+		return size < docIds.length
+				|| (size > 0 && isBetter(docId, score, docIds[0], scores[0]));
+	}
+
+	/**
+	 * This method tells whether a document of any docId with the given score
+	 * could be kept if it was collected now.
+	 *
+	 * @param score
+	 * @return
+	 */
+	public boolean isCompetitive(double score) {
+		return size < docIds.length
+				|| (size > 0 && Double.compare(score, scores[0]) >= 0);
+	}
+
+	/**
+	 * This method offers a document to the collector.
+	 *
+	 * @param docId
+	 * @param score
+	 */
+	public void collect(int docId, double score) {
+		if (size < docIds.length) {
+			// sift the new document up from the last leaf.
+			int i = size++;
+			while (i > 0) {
+				int parent = (i - 1) >>> 1;
+				if (!isBetter(docIds[parent], scores[parent], docId, score))
+					break;
+				docIds[i] = docIds[parent];
+				scores[i] = scores[parent];
+				i = parent;
+			}
+			docIds[i] = docId;
+			scores[i] = score;
+		} else if (size > 0 && isBetter(docId, score, docIds[0], scores[0])) {
+			siftDown(docId, score, size);
+		}
+	}
+
+	/**
+	 * This method puts a document at the root of the first n elements of the
+	 * heap and sifts it down to its place.
+	 */
+	private void siftDown(int docId, double score, int n) {
+		int i = 0;
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= n)
+				break;
+			if (child + 1 < n
+					&& isBetter(docIds[child], scores[child], docIds[child + 1],
+							scores[child + 1]))
+				child++;
+			if (!isBetter(docId, score, docIds[child], scores[child]))
+				break;
+			docIds[i] = docIds[child];
+			scores[i] = scores[child];
+			i = child;
+		}
+		docIds[i] = docId;
+		scores[i] = score;
+	}
+
+	/**
+	 * This method returns the collected documents from the best to the worst
+	 * and empties the collector.
+	 *
+	 * @return
+	 */
+	public TopDocs topDocs() {
+		int n = size;
+		int[] rankedDocIds = new int[n];
+		double[] rankedScores = new double[n];
+		// the worst document is removed from the root and put at the end.
+		for (int last = n - 1; last >= 0; last--) {
+			rankedDocIds[last] = docIds[0];
+			rankedScores[last] = scores[0];
+			siftDown(docIds[last], scores[last], last);
+		}
+		size = 0;
+		return new TopDocs(rankedDocIds, rankedScores);
+	}
+}
@@ -1,23 +1,13 @@
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Scanner;
 import java.util.Set;
 import java.util.TreeMap;
 
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-
 /**
  * This class implement methods for manipulating/processing tokens and files..
  * 
@@ -31,142 +21,41 @@ public class Util {
 	private static final int DEFAULT_TOKEN_COUNT = 1;
 
 	/**
-	 * This method takes a raw token and process it and returns a list of
-	 * processed tokens.
-	 * 
-	 * @param rawToken
-	 *            a String type.
-	 * @return ArrayList of type String.
-	 */
-	public static ArrayList<String> processToken(String rawToken) {
-		ArrayList<String> processedTokens = new ArrayList<String>();
-		ArrayList<String> processedTokensTemp = new ArrayList<String>();
-
-		// splitting tokens if it contains "-"
-		if (rawToken.contains("-")) {
-			for (String hypenRemovedString : processHypens(rawToken)) {
-				processedTokens.add(hypenRemovedString.toLowerCase());
-			}
-		} else {
-			processedTokens.add(rawToken.toLowerCase());
-		}
-
-		// removing "." from abbreviations like "U.N."
-		for (String token : processedTokens) {
-			if (token.contains(".") && token.length() != 1)
-				processedTokensTemp.add(token.replaceAll("\\.", ""));
-			else if (!token.equals("."))
-				processedTokensTemp.add(token);
-		}
-		processedTokens.clear();
-
-		// removing "'s" from the end of the tokens
-		for (String token : processedTokensTemp) {
-			if (token.endsWith("'s"))
-				processedTokens.add(token.substring(0, token.length() - 2));
-			else {
-				String freshToken = token.replace("'", "");
-				if (freshToken.length() > 0)
-					processedTokens.add(freshToken);
-			}
-
-		}
-		processedTokensTemp.clear();
-		return processedTokens;
-	}
-
-	/**
-	 * This method splits a string by hyphens in it and returns the list of
-	 * strings.
-	 * 
-	 * @param rawToken
-	 *            a String type
-	 * @return List of type String.
-	 */
-	private static List<String> processHypens(String rawToken) {
-		return Arrays.asList((rawToken.split("-")));
-	}
-
-	/**
-	 * This method removes all the SGML tags in the file, remove everything
-	 * except letters(lower case, upper case), numbers, dots, "'" and returns
-	 * list of string by splitting them by spaces.
+	 * This method parses single file and creates tokens from it. The text is
+	 * cut into tokens by a single scan of the Tokenizer.
 	 * 
 	 * @param file
-	 *            a File type.
-	 * @return ArrayList<String>
+	 *            a File type
+	 * @throws FileNotFoundException
 	 */
-	public static ArrayList<String> removeSGMLTags(File file) {
-		ArrayList<String> listOfTokensInFile = new ArrayList<String>();
+	public static Map<String, Integer> getTokensFromFile(File file)
+			throws FileNotFoundException {
+		Map<String, Integer> tokens = new HashMap<String, Integer>();
 		try {
-			String fileToString = Jsoup.parse(file, "UTF-8").text();
-			String[] tokensWithOutSpaces = fileToString
-					.replaceAll("[^a-zA-Z0-9'.]", " ").replaceAll("\\s+", " ")
-					.trim().split(" ");
-			for (String rawToken : tokensWithOutSpaces) {
-				if (rawToken.length() > 0)
-					listOfTokensInFile.add(rawToken.trim());
-			}
+			addTokens(tokens, SgmlReader.getText(file));
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
-		return listOfTokensInFile;
-	}
-
-	/**
-	 * This method sorts the map in the descending order of values and returns a
-	 * sorted map.
-	 * 
-	 * @param map
-	 *            a HashMap type
-	 * @return Map type
-	 */
-	public static Map<Integer, Double> sortByValue(Map<Integer, Double> map) {
-		// List of entries of map
-		List<Entry<Integer, Double>> list = new LinkedList<Entry<Integer, Double>>(
-				map.entrySet());
-
-		// Sorting the list based on values
-		Collections.sort(list, new Comparator<Entry<Integer, Double>>() {
-			public int compare(Entry<Integer, Double> o1,
-					Entry<Integer, Double> o2) {
-				return o2.getValue().compareTo(o1.getValue());
-			}
-		});
-
-		// creating a sorted map.
-		Map<Integer, Double> sortedMap = new LinkedHashMap<Integer, Double>();
-		for (Entry<Integer, Double> entry : list) {
-			sortedMap.put(entry.getKey(), entry.getValue());
-		}
-		return sortedMap;
+		return tokens;
 	}
 
 	/**
-	 * This method parses single file and creates tokens from it.
+	 * This method adds the tokens of a text to a map of tokens and their
+	 * frequency.
 	 * 
-	 * @param file
-	 *            a File type
-	 * @throws FileNotFoundException
+	 * @param tokens
+	 * @param text
 	 */
-	public static Map<String, Integer> getTokensFromFile(File file)
-			throws FileNotFoundException {
-		Map<String, Integer> tokens = new HashMap<String, Integer>();
-		ArrayList<String> listOfRawTokensInFile = Util.removeSGMLTags(file);
-		for (String rawToken : listOfRawTokensInFile) {
-			ArrayList<String> processedTokens = processToken(rawToken);
-			if (processedTokens != null) {
-				for (String processedToken : processedTokens) {
-					if (tokens.get(processedToken) == null)
-						tokens.put(processedToken, DEFAULT_TOKEN_COUNT);
-					else
-						tokens.put(processedToken,
-								tokens.get(processedToken) + 1);
-
-				}
-			}
+	public static void addTokens(Map<String, Integer> tokens, String text) {
+		Tokenizer tokenizer = new Tokenizer(text);
+		while (tokenizer.next()) {
+			String processedToken = tokenizer.toString();
+			Integer count = tokens.get(processedToken);
+			if (count == null)
+				tokens.put(processedToken, DEFAULT_TOKEN_COUNT);
+			else
+				tokens.put(processedToken, count + 1);
 		}
-		return tokens;
 	}
 
 	/**
@@ -259,19 +148,17 @@ public class Util {
 
 	/**
 	 * This method do stemming on each term of the map and constructs a new map
-	 * with stemmed tokens.
+	 * with stemmed tokens. The stems are taken from the shared stem cache.
 	 * 
 	 * @param tokensFromFile
 	 * @return
 	 */
 	public static Map<String, Integer> getStemmedTokens(
 			Map<String, Integer> tokensFromFile) {
-		Stemmer stemmer = new Stemmer();
+		StemCache stemCache = StemCache.getShared();
 		Map<String, Integer> stemmedTokens = new HashMap<String, Integer>();
 		for (String token : tokensFromFile.keySet()) {
-			stemmer.add(token.toCharArray(), token.length());
-			stemmer.stem();
-			String stemmedToken = stemmer.toString();
+			String stemmedToken = stemCache.stem(token);
 			if (stemmedTokens.get(stemmedToken) == null)
 				stemmedTokens.put(stemmedToken, tokensFromFile.get(token));
 			else
@@ -281,82 +168,6 @@ public class Util {
 		return stemmedTokens;
 	}
 
-	/**
-	 * This method encodes an integer using delta encoding.
-	 * 
-	 * @param gaps
-	 * @return
-	 */
-	public static short deltaEncoding(Integer gaps) {
-		int count = 1;
-		// int unary = 0;
-		int n = gaps;
-		while (n > 1) {
-			n = n / 2;
-			count++;
-
-		}
-		// System.out.println(count);
-		int code = gammaEncoding(count);
-		int count1 = 0;
-		// System.out.println(code);
-		// int unary1=0;
-		int n1 = gaps;
-		while (n1 != 1) {
-			n1 = n1 / 2;
-			count1++;
-
-		}
-		// System.out.println(count1);
-		// int holdcnt1= count1;
-		int k = gaps;
-		int y = 1 << count1;
-		y = y - 1;
-		// System.out.println(y);
-		k = k & y;
-		// System.out.println(k);
-		// System.out.println(k);
-		// System.out.println(code);
-		code = code << count1;
-		code = k | code;
-		// System.out.println(Integer.toBinaryString(code));
-		return (short) code;
-	}
-
-	/**
-	 * This method encodes an integer using delta encoding.
-	 * 
-	 * @param gaps
-	 * @return
-	 */
-	public static short gammaEncoding(Integer frequency) {
-		int count = 0;
-		int unary = 0;
-		int n = frequency;
-		while (n != 1) {
-			n = n / 2;
-			count++;
-
-		}
-		int holdcnt = count;
-		int k = frequency;
-		int y = 1 << count;
-		y = y - 1;
-		k = frequency & y;
-		// System.out.println(k);
-		while (count != 0) {
-			unary = unary << 1;
-			unary |= 1;
-			count--;
-		}
-		unary = unary << 1;
-		// System.out.println(unary);
-		unary = unary << holdcnt;
-		// System.out.println();
-		k = k | unary;
-		return (short) k;
-	}
-
 	/**
 	 * This method retrieves the text between the TITLE tag present in the
 	 * document.
@@ -369,7 +180,6 @@ public class Util {
 	public static String getDocTitle(String cranfieldPrefix, int docId)
 			throws IOException {
 		File file = new File(cranfieldPrefix + String.format("%04d", docId));
-		Document doc = Jsoup.parse(file, "UTF-8");
-		return doc.select("TITLE").text();
+		return SgmlReader.getField(file, SgmlReader.TITLE);
 	}
 }
@@ -0,0 +1,102 @@
+/**
+ * This class ranks the documents for a query with the WAND algorithm
+ * (Broder et al., Efficient query evaluation using a two-level retrieval
+ * process).
+ *
+ * The postings iterators of the query terms are kept sorted by their current
+ * docId. The pivot is the first iterator at which the largest baseline score
+ * plus the bounds of the gains of the iterators up to it may make it into the
+ * top k of some weighing function; a document before the pivot document
+ * contains only terms of the iterators before the pivot, so it cannot make it
+ * and the iterators are advanced to the pivot document. When the first
+ * iterator is on the pivot document, the document is scored if its own
+ * baseline score plus the bounds of the gains of the terms it contains may
+ * still make it.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class WandEvaluator extends DynamicPruningEvaluator {
+
+	public String getName() {
+		return "WAND";
+	}
+
+	protected void scoreMatchingDocuments(QueryState state) {
+		PostingCursor[] postings = state.postings;
+		int n = state.functions.length;
+		// terms with postings left, sorted by current docId.
+		int[] order = new int[postings.length];
+		int active = 0;
+		for (int t = 0; t < postings.length; t++) {
+			if (postings[t] != null
+					&& postings[t].nextDoc() != PostingsIterator.NO_MORE_DOCS)
+				order[active++] = t;
+		}
+		double[] maxGainSums = new double[n];
+		while (active > 0) {
+			active = sort(order, active, postings);
+			if (active == 0)
+				break;
+			int pivotDocId = PostingsIterator.NO_MORE_DOCS;
+			for (int f = 0; f < n; f++) {
+				maxGainSums[f] = 0.0d;
+			}
+			for (int i = 0; i < active; i++) {
+				for (int f = 0; f < n; f++) {
+					maxGainSums[f] += state.maxGains[order[i]][f];
+				}
+				if (state.isCompetitive(maxGainSums)) {
+					pivotDocId = postings[order[i]].docId();
+					break;
+				}
+			}
+			if (pivotDocId == PostingsIterator.NO_MORE_DOCS)
+				break;
+
+			if (postings[order[0]].docId() == pivotDocId) {
+				int count = 0;
+				while (count < active
+						&& postings[order[count]].docId() == pivotDocId)
+					count++;
+				if (state.isCompetitive(pivotDocId, order, count)) {
+					for (int i = 0; i < count; i++) {
+						state.tfs[order[i]] = postings[order[i]].freq();
+					}
+					state.evaluatedPostings += count;
+					state.score(pivotDocId);
+				}
+				for (int i = 0; i < count; i++) {
+					postings[order[i]].nextDoc();
+				}
+			} else {
+				for (int i = 0; postings[order[i]].docId() < pivotDocId; i++) {
+					postings[order[i]].advance(pivotDocId);
+				}
+			}
+		}
+	}
+
+	/**
+	 * This method sorts the terms by the current docId of their iterators
+	 * with an insertion sort, the number of terms being small and the order
+	 * changing little from a step to the next, and returns the number of
+	 * terms with postings left.
+	 */
+	static int sort(int[] order, int active, PostingsIterator[] postings) {
+		for (int i = 1; i < active; i++) {
+			int term = order[i];
+			int docId = postings[term].docId();
+			int j = i - 1;
+			while (j >= 0 && postings[order[j]].docId() > docId) {
+				order[j + 1] = order[j];
+				j--;
+			}
+			order[j + 1] = term;
+		}
+		while (active > 0
+				&& postings[order[active - 1]].docId() == PostingsIterator.NO_MORE_DOCS)
+			active--;
+		return active;
+	}
+}
@@ -0,0 +1,73 @@
+/**
+ * This interface represents a weighing function, which scores a document for
+ * a query as the sum of the scores of the query terms in the document. Several
+ * weighing functions are evaluated together in a single traversal of the
+ * posting lists of the query terms.
+ *
+ * The score of a term which is not in a document must depend on the document
+ * only through a single integer key, such as its maxF or its docLen, so that
+ * the score of the documents containing none of the query terms can be
+ * computed once per key.
+ *
+ * The gain of a term in a document, its score less the score it would have
+ * with a term frequency of 0, must be bounded from the TermBounds of the term,
+ * so that the evaluators pruning documents can tell which documents cannot
+ * make it into the top k. This holds for the usual functions, which grow with
+ * the term frequency and shrink with the length of the document.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public interface WeighingFunction {
+
+	/**
+	 * This method returns the name of the weighing function.
+	 *
+	 * @return
+	 */
+	public String getName();
+
+	/**
+	 * This method returns the score of a query term in a document.
+	 *
+	 * @param tf
+	 *            term frequency of the term in the document, may be 0.
+	 * @param idf
+	 *            log(cs / df) / log(cs) of the term.
+	 * @param stats
+	 * @param docId
+	 * @return
+	 */
+	public double score(int tf, double idf, CollectionStats stats, int docId);
+
+	/**
+	 * This method returns the key of a document on which the score of a term
+	 * of frequency 0 depends.
+	 *
+	 * @param stats
+	 * @param docId
+	 * @return
+	 */
+	public int baselineKey(CollectionStats stats, int docId);
+
+	/**
+	 * This method returns one more than the largest key of all the documents.
+	 *
+	 * @param stats
+	 * @return
+	 */
+	public int baselineKeys(CollectionStats stats);
+
+	/**
+	 * This method returns an upper bound of the gain of a term in any document
+	 * containing it, i.e. of score(tf, idf, stats, docId) - score(0, idf,
+	 * stats, docId), or NaN if the gain cannot be bounded.
+	 *
+	 * @param idf
+	 * @param bounds
+	 *            bounds of the postings of the term.
+	 * @param stats
+	 * @return
+	 */
+	public double maxGain(double idf, TermBounds bounds, CollectionStats stats);
+}
@@ -0,0 +1,38 @@
+/**
+ * This class implements weighing function 1:
+ * (0.4 + 0.6 * log(tf + 0.5) / log(maxF + 1)) * (log(cs / df) / log(cs)).
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class WeighingFunction1 implements WeighingFunction {
+
+	public String getName() {
+		return "W1";
+	}
+
+	public double score(int tf, double idf, CollectionStats stats, int docId) {
+		return (0.4d + 0.6d * Math.log(tf + 0.5d) / stats.logMaxF(docId))
+				* idf;
+	}
+
+	public int baselineKey(CollectionStats stats, int docId) {
+		return stats.maxF(docId);
+	}
+
+	public int baselineKeys(CollectionStats stats) {
+		return stats.largestMaxF() + 1;
+	}
+
+	/**
+	 * The gain is 0.6 * (log(tf + 0.5) - log(0.5)) / log(maxF + 1) * idf,
+	 * largest for the largest tf and the smallest maxF, which is at least 1.
+	 */
+	public double maxGain(double idf, TermBounds bounds, CollectionStats stats) {
+		if (!(idf >= 0.0d) || Double.isInfinite(idf))
+			return Double.NaN;
+		return 0.6d
+				* (Math.log(bounds.maxTermFreq() + 0.5d) - Math.log(0.5d))
+				/ Math.log(Math.max(bounds.minMaxF(), 1) + 1.0d) * idf;
+	}
+}
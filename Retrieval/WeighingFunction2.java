@@ -0,0 +1,40 @@
+/**
+ * This class implements weighing function 2:
+ * 0.4 + 0.6 * (tf / (tf + 0.5 + 1.5 * (docLen / avgDocLen))) *
+ * (log(cs / df) / log(cs)).
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class WeighingFunction2 implements WeighingFunction {
+
+	public String getName() {
+		return "W2";
+	}
+
+	public double score(int tf, double idf, CollectionStats stats, int docId) {
+		return 0.4d + 0.6
+				* (tf / (tf + 0.5d + 1.5 * stats.docLenNorm(docId))) * idf;
+	}
+
+	public int baselineKey(CollectionStats stats, int docId) {
+		return stats.docLen(docId);
+	}
+
+	public int baselineKeys(CollectionStats stats) {
+		return stats.largestDocLen() + 1;
+	}
+
+	/**
+	 * The gain is 0.6 * (tf / (tf + 0.5 + 1.5 * (docLen / avgDocLen))) * idf,
+	 * largest for the largest tf and the smallest docLen.
+	 */
+	public double maxGain(double idf, TermBounds bounds, CollectionStats stats) {
+		if (!(idf >= 0.0d) || Double.isInfinite(idf))
+			return Double.NaN;
+		int tf = bounds.maxTermFreq();
+		return 0.6d
+				* (tf / (tf + 0.5d + 1.5d * bounds.minDocLen()
+						/ stats.avgDocLen())) * idf;
+	}
+}
@@ -0,0 +1,317 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class reads the fields of a Cranfield document (DOCNO, TITLE, AUTHOR,
+ * BIBLIO and TEXT) in a single scan over the bytes of the file, without
+ * building a document tree. The text between two tags is handed to a
+ * FieldHandler along with the name of the innermost open tag, with entities
+ * decoded and runs of white space replaced by a single space, the way
+ * Jsoup's text() does it.
+ *
+ * The markup characters are all ASCII, so the bytes can be scanned before
+ * they are decoded as UTF-8: only the text itself is decoded.
+ *
+ * @author Abhishek Gupta (axg137230)
+ *
+ */
+public class SgmlReader {
+
+	/**
+	 * These are the names of the fields of a Cranfield document.
+	 */
+	public static final String DOCNO = "DOCNO";
+	public static final String TITLE = "TITLE";
+	public static final String AUTHOR = "AUTHOR";
+	public static final String BIBLIO = "BIBLIO";
+	public static final String TEXT = "TEXT";
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * This interface receives the text of the fields of a document.
+	 */
+	public interface FieldHandler {
+
+		/**
+		 * This method is called for every piece of text between two tags
+		 * which is not only white space.
+		 *
+		 * @param field
+		 *            upper case name of the innermost open tag, or null if
+		 *            the text is outside all tags.
+		 * @param text
+		 *            text without leading or trailing white space.
+		 */
+		public void field(String field, String text);
+	}
+
+	/**
+	 * This method reads a document and hands the text of its fields to the
+	 * handler in the order of the document.
+	 *
+	 * @param file
+	 * @param handler
+	 * @throws IOException
+	 */
+	public static void read(File file, FieldHandler handler)
+			throws IOException {
+		byte[] bytes = readBytes(file);
+		List<String> openTags = new ArrayList<String>();
+		StringBuilder text = new StringBuilder();
+		int textStart = 0, position = 0, end = bytes.length;
+		while (position < end) {
+			if (bytes[position] != '<' || position + 1 == end
+					|| !isMarkupStart(bytes[position + 1])) {
+				position++;
+				continue;
+			}
+			appendText(bytes, textStart, position, text);
+			emit(openTags, text, handler);
+			position = readMarkup(bytes, position, openTags);
+			textStart = position;
+		}
+		appendText(bytes, textStart, end, text);
+		emit(openTags, text, handler);
+	}
+
+	/**
+	 * This method returns all the text of a document, the text of its fields
+	 * separated by spaces.
+	 *
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	public static String getText(File file) throws IOException {
+		final StringBuilder text = new StringBuilder();
+		read(file, new FieldHandler() {
+			public void field(String field, String fieldText) {
+				if (text.length() > 0)
+					text.append(' ');
+				text.append(fieldText);
+			}
+		});
+		return text.toString();
+	}
+
+	/**
+	 * This method returns the text of the given field of a document, or an
+	 * empty string if the document does not have it.
+	 *
+	 * @param file
+	 * @param fieldName
+	 *            upper case name of the field.
+	 * @return
+	 * @throws IOException
+	 */
+	public static String getField(File file, final String fieldName)
+			throws IOException {
+		final StringBuilder text = new StringBuilder();
+		read(file, new FieldHandler() {
+			public void field(String field, String fieldText) {
+				if (fieldName.equals(field)) {
+					if (text.length() > 0)
+						text.append(' ');
+					text.append(fieldText);
+				}
+			}
+		});
+		return text.toString();
+	}
+
+	private static byte[] readBytes(File file) throws IOException {
+		InputStream in = new FileInputStream(file);
+		try {
+			byte[] bytes = new byte[(int) file.length()];
+			int length = 0, read;
+			while (length < bytes.length
+					&& (read = in.read(bytes, length, bytes.length - length)) > 0) {
+				length += read;
+			}
+			if (length < bytes.length) {
+				byte[] newBytes = new byte[length];
+				System.arraycopy(bytes, 0, newBytes, 0, length);
+				bytes = newBytes;
+			}
+			return bytes;
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * This method tells whether a "<" followed by the given byte starts a tag,
+	 * a closing tag, a comment or a declaration. Any other "<" is text.
+	 *
+	 * @param b
+	 * @return
+	 */
+	private static boolean isMarkupStart(byte b) {
+		return isLetter(b) || b == '/' || b == '!' || b == '?';
+	}
+
+	private static boolean isLetter(byte b) {
+		return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z');
+	}
+
+	/**
+	 * This method reads the markup starting at the given "<", updates the
+	 * open tags and returns the position following it.
+	 *
+	 * @param bytes
+	 * @param position
+	 * @param openTags
+	 * @return
+	 */
+	private static int readMarkup(byte[] bytes, int position,
+			List<String> openTags) {
+		int end = bytes.length;
+		if (bytes[position + 1] == '!' && position + 3 < end
+				&& bytes[position + 2] == '-' && bytes[position + 3] == '-') {
+			// a comment ends with "-->".
+			for (int i = position + 4; i + 2 < end; i++) {
+				if (bytes[i] == '-' && bytes[i + 1] == '-'
+						&& bytes[i + 2] == '>')
+					return i + 3;
+			}
+			return end;
+		}
+		int close = position + 1;
+		while (close < end && bytes[close] != '>')
+			close++;
+		if (isLetter(bytes[position + 1])) {
+			String name = readName(bytes, position + 1, close);
+			// a self closing tag does not contain any text.
+			if (bytes[close - 1] != '/')
+				openTags.add(name);
+		} else if (bytes[position + 1] == '/') {
+			String name = readName(bytes, position + 2, close);
+			int i = openTags.lastIndexOf(name);
+			if (i >= 0) {
+				while (openTags.size() > i)
+					openTags.remove(openTags.size() - 1);
+			}
+		}
+		return Math.min(close + 1, end);
+	}
+
+	/**
+	 * This method returns the upper case name of a tag starting at from.
+	 */
+	private static String readName(byte[] bytes, int from, int end) {
+		StringBuilder name = new StringBuilder();
+		for (int i = from; i < end; i++) {
+			byte b = bytes[i];
+			if (b == ' ' || b == '\t' || b == '\n' || b == '\r' || b == '\f'
+					|| b == '/')
+				break;
+			name.append(Character.toUpperCase((char) b));
+		}
+		return name.toString();
+	}
+
+	private static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+	}
+
+	/**
+	 * This method decodes the text between two positions, replaces its
+	 * entities and appends it to the text with every run of white space
+	 * replaced by a single space.
+	 *
+	 * @param bytes
+	 * @param from
+	 * @param to
+	 * @param text
+	 */
+	private static void appendText(byte[] bytes, int from, int to,
+			StringBuilder text) {
+		if (from >= to)
+			return;
+		String decoded = new String(bytes, from, to - from, UTF8);
+		int length = decoded.length();
+		for (int i = 0; i < length; i++) {
+			char c = decoded.charAt(i);
+			if (c == '&') {
+				int semicolon = decoded.indexOf(';', i);
+				String entity = semicolon < 0 ? null : decodeEntity(decoded
+						.substring(i + 1, semicolon));
+				if (entity != null) {
+					appendNormalized(entity, text);
+					i = semicolon;
+					continue;
+				}
+			}
+			appendNormalized(c, text);
+		}
+	}
+
+	private static void appendNormalized(String s, StringBuilder text) {
+		for (int i = 0; i < s.length(); i++) {
+			appendNormalized(s.charAt(i), text);
+		}
+	}
+
+	private static void appendNormalized(char c, StringBuilder text) {
+		if (isWhitespace(c)) {
+			if (text.length() > 0 && text.charAt(text.length() - 1) != ' ')
+				text.append(' ');
+		} else {
+			text.append(c);
+		}
+	}
+
+	/**
+	 * This method returns the character of an entity without "&" and ";", or
+	 * null if it is not known.
+	 *
+	 * @param entity
+	 * @return
+	 */
+	private static String decodeEntity(String entity) {
+		if (entity.equals("amp"))
+			return "&";
+		if (entity.equals("lt"))
+			return "<";
+		if (entity.equals("gt"))
+			return ">";
+		if (entity.equals("quot"))
+			return "\"";
+		if (entity.equals("apos"))
+			return "'";
+		if (entity.equals("nbsp"))
+			return "\u00a0";
+		if (entity.length() > 1 && entity.charAt(0) == '#') {
+			try {
+				int codePoint = entity.charAt(1) == 'x'
+						|| entity.charAt(1) == 'X' ? Integer.parseInt(
+						entity.substring(2), 16) : Integer.parseInt(entity
+						.substring(1));
+				return new String(Character.toChars(codePoint));
+			} catch (IllegalArgumentException e) {
+				return null;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * This method hands the text read so far to the handler and clears it.
+	 */
+	private static void emit(List<String> openTags, StringBuilder text,
+			FieldHandler handler) {
+		int length = text.length();
+		if (length > 0 && text.charAt(length - 1) == ' ')
+			length--;
+		if (length > 0)
+			handler.field(openTags.isEmpty() ? null : openTags.get(openTags
+					.size() - 1), text.substring(0, length));
+		text.setLength(0);
+	}
+}
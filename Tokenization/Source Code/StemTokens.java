@@ -29,9 +29,9 @@ public class StemTokens {
 	 */
 	private Long stemmedTokensCount;
 	/**
-	 * This is a Stemmer instance which implements the Porter's algorithm.
+	 * This is the cache of the stems created by the Porter's algorithm.
 	 */
-	private Stemmer stemmer;
+	private StemCache stemCache;
 
 	/**
 	 * This is the constructor which uses token instance to instantiate the
@@ -42,7 +42,7 @@ public class StemTokens {
 	 */
 	public StemTokens(Tokens tokens) {
 		this.tokens = tokens;
-		this.stemmer = new Stemmer();
+		this.stemCache = StemCache.getShared();
 		this.stemmedTokens = new HashMap<String, Integer>();
 		this.stemmedTokensCount = 0L;
 	}
@@ -78,9 +78,7 @@ public class StemTokens {
 	public void stemAllTokens() {
 		Set<String> allTokens = tokens.getAlltokens();
 		for (String string : allTokens) {
-			stemmer.add(string.toCharArray(), string.length());
-			stemmer.stem();
-			String stemmedToken = stemmer.toString();
+			String stemmedToken = stemCache.stem(string);
 			// if stemmed token is different from the token
 			if (!stemmedToken.equals(string))
 				insertStem(stemmedToken);
@@ -109,6 +109,39 @@ class Stemmer {
 			b[i++] = w[c];
 	}
 
+	/**
+	 * Adds the characters of w from offset to offset + length to the word
+	 * being stemmed, so that a token can be stemmed straight from the buffer
+	 * of a tokenizer.
+	 */
+
+	public void add(char[] w, int offset, int length) {
+		grow(length);
+		System.arraycopy(w, offset, b, i, length);
+		i += length;
+	}
+
+	/**
+	 * Adds the characters of s from start to end to the word being stemmed,
+	 * without copying them to a char[] array first.
+	 */
+
+	public void add(CharSequence s, int start, int end) {
+		grow(end - start);
+		for (int c = start; c < end; c++)
+			b[i++] = s.charAt(c);
+	}
+
+	/* grow(n) makes room in b for n more characters. */
+
+	private final void grow(int n) {
+		if (i + n >= b.length) {
+			char[] new_b = new char[i + n + INC];
+			System.arraycopy(b, 0, new_b, 0, i);
+			b = new_b;
+		}
+	}
+
 	/**
 	 * After a word has been stemmed, it can be retrieved by toString(), or a
 	 * reference to the internal buffer can be retrieved by getResultBuffer and
@@ -134,6 +167,16 @@ class Stemmer {
 		return b;
 	}
 
+	/**
+	 * Copies the result of the stemming process into dest at offset, which
+	 * must have room for getResultLength() characters, and returns its
+	 * length.
+	 */
+	public int getResult(char[] dest, int offset) {
+		System.arraycopy(b, 0, dest, offset, i_end);
+		return i_end;
+	}
+
 	/* cons(i) is true <=> b[i] is a consonant. */
 
 	private final boolean cons(int i) {
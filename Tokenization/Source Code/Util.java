@@ -11,8 +11,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import org.jsoup.Jsoup;
-
 /**
  * This class implement methods for manipulating/processing tokens and files..
  * 
@@ -85,7 +83,7 @@ public class Util {
 	public static ArrayList<String> removeSGMLTags(File file) {
 		ArrayList<String> listOfTokensInFile = new ArrayList<String>();
 		try {
-			String[] tokensWithoutSGMLTags = Jsoup.parse(file, "UTF-8").text()
+			String[] tokensWithoutSGMLTags = SgmlReader.getText(file)
 					.replaceAll("[^a-zA-Z'.0-9]", " ").split(" ");
 			for (String rawToken : tokensWithoutSGMLTags) {
 				if (rawToken.trim().length() > 0)